@@ -2,8 +2,10 @@ package com.example.aitutor;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class AItutorApplication {
   public static void main(String[] args) {
     SpringApplication.run(AItutorApplication.class, args);
@@ -0,0 +1,49 @@
+package com.example.aitutor.archive;
+
+import java.nio.file.Path;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 啟動時執行離線匯入：java -jar app.jar --archive-import.path=/data/warc
+ * 預設匯入完成即結束程序（archive-import.exit-when-done=false 則繼續提供服務）。
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "archive-import", name = "path")
+@RequiredArgsConstructor
+public class ArchiveImportRunner implements ApplicationRunner {
+
+  private final ArchiveImporter importer;
+  private final ConfigurableApplicationContext context;
+
+  @Value("${archive-import.path}")
+  private String path;
+
+  @Value("${archive-import.exit-when-done:true}")
+  private boolean exitWhenDone;
+
+  @Override
+  public void run(ApplicationArguments args) throws Exception {
+    int code = 0;
+    try {
+      importer.run(Path.of(path));
+    } catch (Exception e) {
+      log.error("[Import] failed: {}", e.toString(), e);
+      code = 1;
+    }
+    if (exitWhenDone) {
+      int exit = code;
+      System.exit(SpringApplication.exit(context, () -> exit));
+    }
+  }
+}
@@ -0,0 +1,301 @@
+package com.example.aitutor.archive;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.aitutor.article.ArticleService;
+import com.example.aitutor.article.ExtractedArticle;
+import com.example.aitutor.article.JsoupFetcher;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 離線匯入封存的新聞頁面（不連網）：WARC（.warc / .warc.gz）或 HTML 目錄。
+ *
+ *   讀取：單一執行緒依序讀（memory-mapped），每頁有序號
+ *   抽取：JsoupFetcher.extract(Document) 在固定大小的 pool 並行（預設 CPU 核心數），同時在途頁數有上限
+ *   寫入：依序號順序收集結果，每 batchSize 篇以 JDBC batch 寫入（content_hash 重複即略過），
+ *         寫入成功後才推進 checkpoint，因此中斷重跑不會重複也不會遺漏
+ *
+ * checkpoint 以檔案路徑為 key：WARC 記錄檔內已寫入的頁數，HTML 檔則逐檔記錄已完成，
+ * 目錄內新增或刪除檔案後重跑也不會錯位。
+ */
+@Slf4j
+@Component
+public class ArchiveImporter {
+
+  private static final long PROGRESS_INTERVAL_NANOS = 5_000_000_000L;
+
+  /**
+   * @param pages    讀到的 HTML 頁數（不含因 checkpoint 跳過的）
+   * @param inserted 新寫入的文章數
+   * @param skipped  沒有正文或已存在（網址、內容或近似重複）的頁數
+   * @param failed   解析失敗的頁數
+   */
+  public record Report(long pages, long inserted, long skipped, long failed, double seconds) {
+    public double pagesPerSecond() {
+      return seconds <= 0 ? 0 : pages / seconds;
+    }
+  }
+
+  private interface PageSource extends AutoCloseable {
+    ArchivedPage next() throws IOException;
+
+    /** 上一次 next() 回傳的頁面所屬的檔案 checkpoint key；null = 以整個來源的頁數記錄進度。 */
+    default String fileKey() {
+      return null;
+    }
+
+    @Override
+    void close() throws IOException;
+  }
+
+  private record Pending(long seq, String fileKey, CompletableFuture<ExtractedArticle> result) {}
+
+  private final JsoupFetcher fetcher;
+  private final ArticleService articles;
+  private final int threads;
+  private final int batchSize;
+  private final int maxBodyBytes;
+  private final Path checkpointFile;
+
+  public ArchiveImporter(JsoupFetcher fetcher,
+                         ArticleService articles,
+                         @Value("${archive-import.threads:0}") int threads,
+                         @Value("${archive-import.batch-size:200}") int batchSize,
+                         @Value("${ingest.fetch.max-body-bytes:2097152}") int maxBodyBytes,
+                         @Value("${archive-import.checkpoint:cache/archive-import.checkpoint}") String checkpointFile) {
+    this.fetcher = fetcher;
+    this.articles = articles;
+    this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    this.batchSize = Math.max(1, batchSize);
+    this.maxBodyBytes = maxBodyBytes;
+    this.checkpointFile = Path.of(checkpointFile);
+  }
+
+  /** 匯入單一 WARC 檔，或目錄下所有 WARC 與 HTML 檔（HTML 檔合成同一串頁面依路徑排序，逐檔記錄 checkpoint）。 */
+  public Report run(Path input) throws IOException {
+    ImportCheckpoint checkpoint = ImportCheckpoint.load(checkpointFile);
+    Progress progress = new Progress();
+
+    List<Path> warcs = new ArrayList<>();
+    List<Path> htmls = new ArrayList<>();
+    if (Files.isDirectory(input)) {
+      try (Stream<Path> walk = Files.walk(input)) {
+        walk.filter(Files::isRegularFile).sorted().forEach(p -> {
+          String name = p.getFileName().toString().toLowerCase(Locale.ROOT);
+          if (name.endsWith(".warc") || name.endsWith(".warc.gz")) warcs.add(p);
+          else if (name.endsWith(".html") || name.endsWith(".htm")) htmls.add(p);
+        });
+      }
+    } else {
+      warcs.add(input);
+    }
+    log.info("[Import] {}: {} WARC files, {} HTML files, {} threads, checkpoint {}",
+        input, warcs.size(), htmls.size(), threads, checkpointFile);
+
+    ExecutorService pool = Executors.newFixedThreadPool(threads, Thread.ofPlatform().name("import-parse-", 0).factory());
+    try {
+      for (Path warc : warcs) {
+        importSource(checkpointKey(warc), new WarcSource(warc), checkpoint, pool, progress);
+      }
+      if (!htmls.isEmpty()) {
+        List<Path> todo = htmls.stream().filter(p -> !checkpoint.isDone(checkpointKey(p))).toList();
+        if (todo.size() < htmls.size()) {
+          log.info("[Import] skip {} HTML files (already done)", htmls.size() - todo.size());
+        }
+        importSource(null, new HtmlDirSource(todo), checkpoint, pool, progress);
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+
+    Report r = progress.report();
+    log.info("[Import] done: pages={} inserted={} skipped={} failed={} in {}s ({} pages/s)",
+        r.pages(), r.inserted(), r.skipped(), r.failed(), String.format("%.1f", r.seconds()),
+        String.format("%.1f", r.pagesPerSecond()));
+    return r;
+  }
+
+  // 整個來源依頁數記錄進度時 key 為來源檔路徑；逐檔記錄時（HTML）key 為 null，改用每頁的 fileKey
+  private void importSource(String key, PageSource source, ImportCheckpoint checkpoint,
+                            ExecutorService pool, Progress progress) throws IOException {
+    try (source) {
+      if (key != null && checkpoint.isDone(key)) {
+        log.info("[Import] skip (already done): {}", key);
+        return;
+      }
+      long resumeAfter = key == null ? 0 : checkpoint.position(key);
+      if (resumeAfter > 0) log.info("[Import] resume {} after {} pages", key, resumeAfter);
+
+      Deque<Pending> pending = new ArrayDeque<>();
+      Batch batch = new Batch(key, resumeAfter);
+      int maxInFlight = threads * 2;   // 頁面原始位元組只在在途期間佔用 heap
+      long seq = 0;
+
+      ArchivedPage page;
+      while ((page = source.next()) != null) {
+        if (++seq <= resumeAfter) continue;
+        ArchivedPage p = page;
+        pending.add(new Pending(seq, source.fileKey(), CompletableFuture.supplyAsync(() -> extract(p), pool)));
+        progress.pages++;
+        while (pending.size() >= maxInFlight) {
+          collect(pending.poll(), batch, progress);
+          if (batch.articles.size() >= batchSize) flush(batch, checkpoint, progress);
+        }
+        progress.maybeLog();
+      }
+      while (!pending.isEmpty()) {
+        collect(pending.poll(), batch, progress);
+        if (batch.articles.size() >= batchSize) flush(batch, checkpoint, progress);
+      }
+      flush(batch, checkpoint, progress);
+      if (key != null) checkpoint.markDone(key);
+    }
+  }
+
+  /** 尚未寫入的抽取結果，以及寫入後要推進的 checkpoint（來源頁數或已完成的檔案）。 */
+  private static final class Batch {
+    final String key;
+    final List<ExtractedArticle> articles = new ArrayList<>();
+    final List<String> doneFiles = new ArrayList<>();
+    long lastDone;
+
+    Batch(String key, long lastDone) {
+      this.key = key;
+      this.lastDone = lastDone;
+    }
+  }
+
+  private void collect(Pending p, Batch batch, Progress progress) {
+    try {
+      ExtractedArticle ex = p.result().join();
+      if (ex != null) batch.articles.add(ex);
+      else progress.skipped++;
+    } catch (CompletionException e) {
+      progress.failed++;
+      log.debug("[Import] parse failed: {}", e.getCause() == null ? e.getMessage() : e.getCause().getMessage());
+    }
+    batch.lastDone = p.seq();
+    if (p.fileKey() != null) batch.doneFiles.add(p.fileKey());
+  }
+
+  private void flush(Batch batch, ImportCheckpoint checkpoint, Progress progress) {
+    if (!batch.articles.isEmpty()) {
+      int inserted = articles.insertExtracted(batch.articles);
+      progress.inserted += inserted;
+      progress.skipped += batch.articles.size() - inserted;
+      batch.articles.clear();
+    }
+    if (batch.key != null) {
+      checkpoint.advance(batch.key, batch.lastDone);
+    } else if (!batch.doneFiles.isEmpty()) {
+      checkpoint.markDone(batch.doneFiles);
+      batch.doneFiles.clear();
+    }
+  }
+
+  private static String checkpointKey(Path file) {
+    return file.toAbsolutePath().normalize().toString();
+  }
+
+  // 沒有正文時回傳 null
+  private ExtractedArticle extract(ArchivedPage page) {
+    try {
+      Document doc = Jsoup.parse(new ByteArrayInputStream(page.body()), page.charset(), page.url());
+      ExtractedArticle ex = fetcher.extract(doc);
+      return ex.cleanedText() == null || ex.cleanedText().isBlank() ? null : ex;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Parse failed: " + page.url(), e);
+    }
+  }
+
+  /** 進度計數（只由讀取/寫入端的單一執行緒更新）。 */
+  private static final class Progress {
+    final long startNanos = System.nanoTime();
+    long lastLogNanos = startNanos;
+    long pages, inserted, skipped, failed;
+
+    void maybeLog() {
+      long now = System.nanoTime();
+      if (now - lastLogNanos < PROGRESS_INTERVAL_NANOS) return;
+      lastLogNanos = now;
+      double secs = (now - startNanos) / 1e9;
+      log.info("[Import] pages={} inserted={} skipped={} failed={} ({} pages/s)",
+          pages, inserted, skipped, failed, String.format("%.1f", pages / secs));
+    }
+
+    Report report() {
+      return new Report(pages, inserted, skipped, failed, (System.nanoTime() - startNanos) / 1e9);
+    }
+  }
+
+  private final class WarcSource implements PageSource {
+    private final WarcReader reader;
+
+    WarcSource(Path file) throws IOException {
+      this.reader = new WarcReader(file, maxBodyBytes);
+    }
+
+    @Override
+    public ArchivedPage next() throws IOException {
+      return reader.next();
+    }
+
+    @Override
+    public void close() throws IOException {
+      reader.close();
+    }
+  }
+
+  private final class HtmlDirSource implements PageSource {
+    private final List<Path> files;
+    private int index;
+    private String current;
+
+    HtmlDirSource(List<Path> files) {
+      this.files = files;
+    }
+
+    // 超過上限而略過的檔案不記錄 checkpoint（每次重跑都只是比一次檔案大小）
+    @Override
+    public ArchivedPage next() throws IOException {
+      while (index < files.size()) {
+        Path f = files.get(index++);
+        if (Files.size(f) > maxBodyBytes) continue;
+        current = checkpointKey(f);
+        try (InputStream in = new MappedInputStream(f)) {
+          return new ArchivedPage(f.toUri().toString(), in.readAllBytes(), null);
+        }
+      }
+      return null;
+    }
+
+    @Override
+    public String fileKey() {
+      return current;
+    }
+
+    @Override
+    public void close() {}
+  }
+}
@@ -0,0 +1,10 @@
+package com.example.aitutor.archive;
+
+/**
+ * 封存檔中的一個 HTML 頁面。
+ *
+ * @param url     原始網址（WARC-Target-URI；HTML 目錄則為檔案的 file: URI）
+ * @param body    HTML 位元組（已去掉 HTTP 標頭、chunked 與 gzip 編碼）
+ * @param charset HTTP Content-Type 的 charset；未知時為 null（交給 Jsoup 偵測）
+ */
+record ArchivedPage(String url, byte[] body, String charset) {}
@@ -0,0 +1,78 @@
+package com.example.aitutor.archive;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * 匯入進度檔（properties）：每個來源檔（WARC 或單一 HTML 檔，以絕對路徑為 key）已完成與否、未完成時已寫入 DB 的頁數。
+ * 每批寫入成功後才更新，並以暫存檔 + rename 原子替換；中斷後重跑會跳過已寫入的頁面。
+ */
+final class ImportCheckpoint {
+
+  private final Path file;
+  private final Properties props = new Properties();
+
+  private ImportCheckpoint(Path file) {
+    this.file = file;
+  }
+
+  static ImportCheckpoint load(Path file) {
+    ImportCheckpoint cp = new ImportCheckpoint(file);
+    if (Files.exists(file)) {
+      try (InputStream in = Files.newInputStream(file)) {
+        cp.props.load(in);
+      } catch (IOException e) {
+        throw new UncheckedIOException("Read checkpoint failed: " + file, e);
+      }
+    }
+    return cp;
+  }
+
+  boolean isDone(String source) {
+    return Boolean.parseBoolean(props.getProperty("done." + source));
+  }
+
+  /** 該來源已寫入的頁數（依讀取順序）。 */
+  long position(String source) {
+    return Long.parseLong(props.getProperty("pos." + source, "0"));
+  }
+
+  void advance(String source, long position) {
+    props.setProperty("pos." + source, Long.toString(position));
+    save();
+  }
+
+  void markDone(String source) {
+    markDone(List.of(source));
+  }
+
+  /** 一次標記多個來源完成（HTML 檔逐檔記錄，每批只寫一次進度檔）。 */
+  void markDone(Collection<String> sources) {
+    for (String source : sources) {
+      props.remove("pos." + source);
+      props.setProperty("done." + source, "true");
+    }
+    save();
+  }
+
+  private void save() {
+    try {
+      if (file.getParent() != null) Files.createDirectories(file.getParent());
+      Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+      try (OutputStream out = Files.newOutputStream(tmp)) {
+        props.store(out, "archive import checkpoint");
+      }
+      Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Write checkpoint failed: " + file, e);
+    }
+  }
+}
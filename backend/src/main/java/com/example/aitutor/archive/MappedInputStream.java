@@ -0,0 +1,77 @@
+package com.example.aitutor.archive;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 以 memory-mapped 視窗依序讀取檔案的 InputStream：資料直接來自 page cache，不經 heap 緩衝，
+ * 大檔（&gt; 2GB）以固定大小的視窗逐段 map。
+ */
+final class MappedInputStream extends InputStream {
+
+  private static final long WINDOW = 256L * 1024 * 1024;
+
+  private final FileChannel channel;
+  private final long size;
+  private long windowStart;
+  private MappedByteBuffer buf;
+
+  MappedInputStream(Path file) throws IOException {
+    this.channel = FileChannel.open(file, StandardOpenOption.READ);
+    this.size = channel.size();
+    map(0);
+  }
+
+  private void map(long start) throws IOException {
+    windowStart = start;
+    buf = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW, size - start));
+  }
+
+  // 目前視窗讀完時換下一段；檔案結尾回傳 false
+  private boolean ensure() throws IOException {
+    if (buf.hasRemaining()) return true;
+    long next = windowStart + buf.capacity();
+    if (next >= size) return false;
+    map(next);
+    return true;
+  }
+
+  @Override
+  public int read() throws IOException {
+    return ensure() ? buf.get() & 0xff : -1;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0) return 0;
+    if (!ensure()) return -1;
+    int n = Math.min(len, buf.remaining());
+    buf.get(b, off, n);
+    return n;
+  }
+
+  @Override
+  public long skip(long n) throws IOException {
+    long skipped = 0;
+    while (skipped < n && ensure()) {
+      int step = (int) Math.min(n - skipped, buf.remaining());
+      buf.position(buf.position() + step);
+      skipped += step;
+    }
+    return skipped;
+  }
+
+  @Override
+  public int available() {
+    return buf.remaining();
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+}
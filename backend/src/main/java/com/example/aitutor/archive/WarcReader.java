@@ -0,0 +1,162 @@
+package com.example.aitutor.archive;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * WARC（.warc / .warc.gz）讀取：只回傳 HTTP 200 且 Content-Type 為 HTML 的 response 記錄。
+ * 檔案以 MappedInputStream 讀取；.warc.gz 為逐筆 gzip member 串接，GZIPInputStream 會連續解開。
+ * 超過 maxBodyBytes 的頁面直接跳過。
+ */
+final class WarcReader implements Closeable {
+
+  private final InputStream in;
+  private final int maxBodyBytes;
+
+  WarcReader(Path file, int maxBodyBytes) throws IOException {
+    InputStream raw = new MappedInputStream(file);
+    String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+    this.in = new BufferedInputStream(name.endsWith(".gz") ? new GZIPInputStream(raw, 64 * 1024) : raw, 64 * 1024);
+    this.maxBodyBytes = maxBodyBytes;
+  }
+
+  /** 下一個 HTML 頁面；檔案結尾回傳 null。 */
+  ArchivedPage next() throws IOException {
+    while (true) {
+      Map<String, String> headers = readRecordHeaders();
+      if (headers == null) return null;
+
+      long length = Long.parseLong(headers.getOrDefault("content-length", "0").strip());
+      String type = headers.getOrDefault("warc-type", "");
+      String target = headers.get("warc-target-uri");
+      String contentType = headers.getOrDefault("content-type", "").toLowerCase(Locale.ROOT);
+
+      if (!type.equals("response") || target == null || !contentType.startsWith("application/http")
+          || length > maxBodyBytes + 64L * 1024) {
+        skipFully(length);
+        continue;
+      }
+      byte[] block = in.readNBytes((int) length);
+      if (block.length < length) throw new EOFException("Truncated WARC record: " + target);
+
+      ArchivedPage page = httpPayload(stripAngle(target), block);
+      if (page != null) return page;
+    }
+  }
+
+  // WARC 標頭：版本行 + header 行，以空行結束；前面可能有上一筆記錄留下的空行
+  private Map<String, String> readRecordHeaders() throws IOException {
+    String line;
+    do {
+      line = readLine(in);
+      if (line == null) return null;
+    } while (line.isEmpty());
+    if (!line.startsWith("WARC/")) throw new IOException("Not a WARC record header: " + line);
+
+    Map<String, String> headers = new HashMap<>();
+    while ((line = readLine(in)) != null && !line.isEmpty()) {
+      int colon = line.indexOf(':');
+      if (colon > 0) headers.put(line.substring(0, colon).strip().toLowerCase(Locale.ROOT), line.substring(colon + 1).strip());
+    }
+    return headers;
+  }
+
+  // HTTP 回應：狀態行 + 標頭 + 空行 + body
+  private ArchivedPage httpPayload(String url, byte[] block) throws IOException {
+    InputStream http = new ByteArrayInputStream(block);
+    String status = readLine(http);
+    if (status == null || !status.startsWith("HTTP/")) return null;
+    String[] parts = status.split(" ", 3);
+    if (parts.length < 2 || !parts[1].equals("200")) return null;
+
+    Map<String, String> headers = new HashMap<>();
+    String line;
+    while ((line = readLine(http)) != null && !line.isEmpty()) {
+      int colon = line.indexOf(':');
+      if (colon > 0) headers.put(line.substring(0, colon).strip().toLowerCase(Locale.ROOT), line.substring(colon + 1).strip());
+    }
+    String contentType = headers.getOrDefault("content-type", "").toLowerCase(Locale.ROOT);
+    if (!contentType.contains("html")) return null;
+
+    byte[] body = http.readAllBytes();
+    if (headers.getOrDefault("transfer-encoding", "").toLowerCase(Locale.ROOT).contains("chunked")) {
+      body = dechunk(body);
+    }
+    if (headers.getOrDefault("content-encoding", "").toLowerCase(Locale.ROOT).contains("gzip")) {
+      try (InputStream gz = new GZIPInputStream(new ByteArrayInputStream(body))) {
+        // 多讀一個 byte：讀得到就表示解壓後超過上限，整頁跳過而不是截斷
+        body = gz.readNBytes(maxBodyBytes + 1);
+      }
+    }
+    if (body.length == 0 || body.length > maxBodyBytes) return null;
+    return new ArchivedPage(url, body, charsetOf(contentType));
+  }
+
+  private static byte[] dechunk(byte[] chunked) throws IOException {
+    InputStream in = new ByteArrayInputStream(chunked);
+    ByteArrayOutputStream out = new ByteArrayOutputStream(chunked.length);
+    String line;
+    while ((line = readLine(in)) != null) {
+      int semi = line.indexOf(';');
+      String hex = (semi < 0 ? line : line.substring(0, semi)).strip();
+      if (hex.isEmpty()) continue;
+      int size = Integer.parseInt(hex, 16);
+      if (size == 0) break;
+      out.write(in.readNBytes(size));
+      readLine(in);
+    }
+    return out.toByteArray();
+  }
+
+  private static String charsetOf(String contentType) {
+    int i = contentType.indexOf("charset=");
+    if (i < 0) return null;
+    String cs = contentType.substring(i + 8).split(";")[0].strip().replace("\"", "");
+    return cs.isEmpty() ? null : cs;
+  }
+
+  private static String stripAngle(String uri) {
+    return uri.startsWith("<") && uri.endsWith(">") ? uri.substring(1, uri.length() - 1) : uri;
+  }
+
+  private void skipFully(long n) throws IOException {
+    long left = n;
+    while (left > 0) {
+      long s = in.skip(left);
+      if (s <= 0) {
+        if (in.read() < 0) throw new EOFException("Truncated WARC record");
+        s = 1;
+      }
+      left -= s;
+    }
+  }
+
+  // 以 CRLF 或 LF 結尾的一行（ISO-8859-1）；串流結尾且沒有資料時回傳 null
+  private static String readLine(InputStream in) throws IOException {
+    ByteArrayOutputStream line = new ByteArrayOutputStream(128);
+    int b;
+    boolean any = false;
+    while ((b = in.read()) >= 0) {
+      any = true;
+      if (b == '\n') break;
+      if (b != '\r') line.write(b);
+    }
+    return any ? line.toString(StandardCharsets.ISO_8859_1) : null;
+  }
+
+  @Override
+  public void close() throws IOException {
+    in.close();
+  }
+}
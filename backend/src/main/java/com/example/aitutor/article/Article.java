@@ -1,6 +1,11 @@
 package com.example.aitutor.article;
 
 import java.time.Instant;
+import java.util.List;
+
+import org.hibernate.annotations.Type;
+
+import com.vladmihalcea.hibernate.type.json.JsonType;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
@@ -10,6 +15,7 @@ import jakarta.persistence.Id;
 import jakarta.persistence.Lob;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -45,15 +51,40 @@ public class Article {
   @Column(columnDefinition = "TEXT")
   private String lang;
 
-  // 對應 cleaned_text TEXT NOT NULL
+  // 對應 cleaned_text TEXT（text_codec=plain 時使用；壓縮儲存時為 null）
   @Lob
-  @Column(name = "cleaned_text", columnDefinition = "TEXT", nullable = false)
+  @Column(name = "cleaned_text", columnDefinition = "TEXT")
   private String cleanedText;
 
+  // 對應 cleaned_text_gz BYTEA（text_codec=gzip 時的壓縮全文）
+  @Column(name = "cleaned_text_gz", columnDefinition = "bytea")
+  private byte[] cleanedTextGz;
+
+  // 對應 text_codec TEXT NOT NULL DEFAULT 'plain'
+  @Column(name = "text_codec", columnDefinition = "TEXT", nullable = false)
+  private String textCodec;
+
+  // 壓縮全文第一次讀取時解壓的快取
+  @Transient
+  private String decodedText;
+
+  // 對應 paragraph_offsets jsonb（段落位移 [s0,e0,s1,e1,...]，見 ParagraphIndex；舊資料為 null，讀取時補算）
+  @Type(JsonType.class)
+  @Column(name = "paragraph_offsets", columnDefinition = "jsonb")
+  private List<Integer> paragraphOffsets;
+
   // 對應 content_hash TEXT UNIQUE NOT NULL
   @Column(name = "content_hash", columnDefinition = "TEXT", nullable = false, unique = true)
   private String contentHash;
 
+  // 對應 simhash BIGINT（近似去重指紋；過短文章為 null）
+  @Column(name = "simhash")
+  private Long simhash;
+
+  // 對應 near_duplicate_of BIGINT（flag 模式下標記為哪篇文章的近似重複）
+  @Column(name = "near_duplicate_of")
+  private Long nearDuplicateOf;
+
   // 對應 fetched_at TIMESTAMP NOT NULL DEFAULT NOW()
   @Column(name = "fetched_at", nullable = false)
   private Instant fetchedAt;
@@ -61,7 +92,28 @@ public class Article {
   @PrePersist
   void prePersist() {
     if (fetchedAt == null) fetchedAt = Instant.now();
+    if (textCodec == null) textCodec = TextCodec.PLAIN.id();
 }
+
+  /** 全文；壓縮儲存時第一次呼叫才解壓。 */
+  public String getCleanedText() {
+    if (cleanedText != null || cleanedTextGz == null) return cleanedText;
+    if (decodedText == null) decodedText = TextCodec.of(textCodec).decode(cleanedTextGz);
+    return decodedText;
+  }
+
+  /** 依 codec 寫入全文（PLAIN 存 cleaned_text，其餘存 cleaned_text_gz）。 */
+  public void storeText(String text, TextCodec codec) {
+    this.textCodec = codec.id();
+    if (codec == TextCodec.PLAIN) {
+      this.cleanedText = text;
+      this.cleanedTextGz = null;
+    } else {
+      this.cleanedText = null;
+      this.cleanedTextGz = codec.encode(text);
+    }
+    this.decodedText = codec == TextCodec.PLAIN ? null : text;
+  }
 }
 
 
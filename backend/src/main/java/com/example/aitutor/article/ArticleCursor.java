@@ -0,0 +1,34 @@
+package com.example.aitutor.article;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * 列表的 keyset 游標：上一頁最後一筆的 (fetched_at, id)，以 base64url 字串往返前端。
+ * 下一頁條件為 (fetched_at, id) &lt; 游標，依 idx_article_fetched_at_id 直接定位，不隨頁數變慢。
+ */
+public record ArticleCursor(Instant fetchedAt, long id) {
+
+  public static ArticleCursor after(ArticleSummary last) {
+    return new ArticleCursor(last.fetchedAt(), last.id());
+  }
+
+  public String encode() {
+    String raw = fetchedAt.getEpochSecond() + ":" + fetchedAt.getNano() + ":" + id;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+  }
+
+  /** @throws IllegalArgumentException 游標格式不正確 */
+  public static ArticleCursor decode(String cursor) {
+    try {
+      String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+      String[] parts = raw.split(":");
+      if (parts.length != 3) throw new IllegalArgumentException("malformed cursor");
+      Instant at = Instant.ofEpochSecond(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+      return new ArticleCursor(at, Long.parseLong(parts[2]));
+    } catch (RuntimeException e) {
+      throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+    }
+  }
+}
@@ -0,0 +1,13 @@
+package com.example.aitutor.article;
+
+import java.util.List;
+
+/**
+ * 文章的一段連續段落（GET /api/articles/{id}/paragraphs）。
+ *
+ * @param from       本次回傳的第一段索引（0-based）
+ * @param total      全文段落數
+ * @param paragraphs 段落 [from, from + paragraphs.size())
+ */
+public record ArticleParagraphs(Long id, String title, String source, String url,
+                                int from, int total, List<String> paragraphs) {}
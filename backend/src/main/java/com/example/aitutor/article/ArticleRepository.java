@@ -1,17 +1,162 @@
 package com.example.aitutor.article;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
-public interface ArticleRepository extends JpaRepository<Article, Long> {
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+public interface ArticleRepository extends JpaRepository<Article, Long>, ArticleUpsert {
 
   /** 依來源網址查找（去重用；不變更 DB 結構的最小方案） */
   Optional<Article> findBySourceUrl(String sourceUrl);
 
+  boolean existsBySourceUrl(String sourceUrl);
+
   /** 若未來要用內容雜湊去重，可保留此方法並在 Entity 加上 contentHash 欄位 */
   Optional<Article> findByContentHash(String contentHash);
-  Page<Article> findByTitleContainingIgnoreCaseOrSourceContainingIgnoreCase(
-      String title, String source, Pageable pageable);
+
+  /** 列表（offset 分頁）：只讀摘要欄位；回傳 Slice 以多取一筆判斷下一頁，不發 count。 */
+  @Query("""
+      select new com.example.aitutor.article.ArticleSummary(a.id, a.title, a.source, a.sourceUrl, a.fetchedAt)
+      from Article a order by a.fetchedAt desc, a.id desc
+      """)
+  Slice<ArticleSummary> findSummaries(Pageable pageable);
+
+  /** 列表（keyset 分頁）：(fetchedAt, id) 嚴格小於游標的下一段。 */
+  @Query("""
+      select new com.example.aitutor.article.ArticleSummary(a.id, a.title, a.source, a.sourceUrl, a.fetchedAt)
+      from Article a
+      where a.fetchedAt <= :fetchedAt and (a.fetchedAt < :fetchedAt or a.id < :id)
+      order by a.fetchedAt desc, a.id desc
+      """)
+  Slice<ArticleSummary> findSummariesBefore(Instant fetchedAt, Long id, Pageable pageable);
+
+  @Query("""
+      select new com.example.aitutor.article.ArticleSummary(a.id, a.title, a.source, a.sourceUrl, a.fetchedAt)
+      from Article a where a.id in :ids
+      """)
+  List<ArticleSummary> findSummariesByIdIn(Collection<Long> ids);
+
+  /** 統計資訊中的估計列數；從未 ANALYZE 過時為 -1 或 0。 */
+  @Query(value = "SELECT c.reltuples FROM pg_class c WHERE c.oid = to_regclass('article')", nativeQuery = true)
+  Number estimateCount();
+
+  /** 段落分頁讀取用：不含全文，只有標頭與段落位移。 */
+  interface ParagraphMeta {
+    Long getId();
+    String getTitle();
+    String getSource();
+    String getSourceUrl();
+    List<Integer> getParagraphOffsets();
+    String getTextCodec();
+  }
+
+  @Query("""
+      select a.id as id, a.title as title, a.source as source, a.sourceUrl as sourceUrl,
+             a.paragraphOffsets as paragraphOffsets, a.textCodec as textCodec
+      from Article a where a.id = :id
+      """)
+  Optional<ParagraphMeta> findParagraphMeta(Long id);
+
+  /** 只讀全文的一段（start 為 1-based code point 位置，與 Postgres substring 相同）。 */
+  @Query(value = "SELECT substring(cleaned_text FROM :start FOR :length) FROM article WHERE id = :id", nativeQuery = true)
+  String readTextRange(Long id, int start, int length);
+
+  /** 原樣讀出儲存的全文（plain 或壓縮位元組），供 /{id}/text 直接回傳。 */
+  interface StoredTextRow {
+    String getTextCodec();
+    String getCleanedText();
+    byte[] getCleanedTextGz();
+  }
+
+  @Query("""
+      select a.textCodec as textCodec, a.cleanedText as cleanedText, a.cleanedTextGz as cleanedTextGz
+      from Article a where a.id = :id
+      """)
+  Optional<StoredTextRow> findStoredText(Long id);
+
+  /** 對傳入的全文產生高亮摘要（壓縮列在 SQL 端沒有純文字可用）。 */
+  @Query(value = """
+      SELECT ts_headline('english', :text,
+        websearch_to_tsquery('english', :q) || websearch_to_tsquery('simple', :q),
+        'StartSel=<mark>, StopSel=</mark>, MaxFragments=2, MaxWords=30, MinWords=12')
+      """, nativeQuery = true)
+  String headline(String text, String q);
+
+  /** 全文檢索命中列：排序分數與高亮摘要（<mark>…</mark>）。 */
+  interface SearchHit {
+    Long getId();
+    Double getRank();
+    String getSnippet();
+  }
+
+  /**
+   * 以 search_vector（GIN）比對 websearch 語法查詢，english 詞幹或 simple 原詞任一完整命中即可。
+   * ts_headline 需重讀全文，故只對排序後的當頁結果計算；壓縮列在 SQL 端沒有純文字，snippet 為 null，
+   * 由呼叫端解壓後再算（最多一頁的筆數）。
+   */
+  @Query(value = """
+      WITH q AS (
+        SELECT websearch_to_tsquery('english', :q) || websearch_to_tsquery('simple', :q) AS query
+      ),
+      hits AS (
+        SELECT a.id, a.fetched_at, ts_rank_cd(a.search_vector, q.query) AS rank
+        FROM article a, q
+        WHERE a.search_vector @@ q.query
+        ORDER BY rank DESC, a.fetched_at DESC, a.id DESC
+        LIMIT :limit OFFSET :offset
+      )
+      SELECT h.id AS id, h.rank AS rank,
+             ts_headline('english', a.cleaned_text, q.query,
+               'StartSel=<mark>, StopSel=</mark>, MaxFragments=2, MaxWords=30, MinWords=12') AS snippet
+      FROM hits h JOIN article a ON a.id = h.id, q
+      ORDER BY h.rank DESC, h.fetched_at DESC, h.id DESC
+      """, nativeQuery = true)
+  List<SearchHit> search(String q, int limit, int offset);
+
+  /** 命中筆數，最多數到 cap（超過即停止掃描，避免熱門詞的 count 隨資料量線性成長）。 */
+  @Query(value = """
+      SELECT count(*) FROM (
+        SELECT 1 FROM article a
+        WHERE a.search_vector @@ (websearch_to_tsquery('english', :q) || websearch_to_tsquery('simple', :q))
+        LIMIT :cap
+      ) t
+      """, nativeQuery = true)
+  long countSearch(String q, int cap);
+
+  /** known-URL filter 載入用：網址與內容雜湊。 */
+  interface KnownRow {
+    Long getId();
+    String getSourceUrl();
+    String getContentHash();
+  }
+
+  @Query("""
+      select a.id as id, a.sourceUrl as sourceUrl, a.contentHash as contentHash
+      from Article a where a.id > :afterId order by a.id
+      """)
+  List<KnownRow> findKnownAfter(Long afterId, Pageable pageable);
+
+  /** 近似去重索引載入用：只讀 id 與 simhash。 */
+  interface SimhashRow {
+    Long getId();
+    Long getSimhash();
+  }
+
+  @Query("select a.id as id, a.simhash as simhash from Article a where a.simhash is not null")
+  List<SimhashRow> findAllSimhashes();
+
+  /** 補算 simhash 用（以 id 遞增分批）。 */
+  List<Article> findBySimhashIsNullAndIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+
+  @Modifying
+  @Transactional
+  @Query("update Article a set a.simhash = :simhash where a.id = :id")
+  int updateSimhash(Long id, Long simhash);
 }
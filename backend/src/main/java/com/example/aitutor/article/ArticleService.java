@@ -1,61 +1,331 @@
 package com.example.aitutor.article;
 
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
-import org.springframework.data.domain.Page;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class ArticleService {
 
+  private static final String MERGE = "merge";
+  private static final int SEARCH_COUNT_CAP = 1000;
+  private static final int MAX_PARAGRAPH_LIMIT = 200;
+
   private final ArticleRepository repo;
   private final JsoupFetcher fetcher;
+  private final IngestExecutor ingestExecutor;
+  private final NearDuplicateIndex nearDuplicates;
+  private final ArticleUrlAliasRepository aliases;
+  private final KnownUrlFilter knownUrls;
+  private final Map<String, CompletableFuture<Saved>> inFlight = new ConcurrentHashMap<>();
+
+  @Value("${ingest.near-duplicate.mode:merge}")
+  private String nearDuplicateMode;
+
+  @Value("${article.storage.codec:gzip}")
+  private String textCodec;
+
+  @Value("${article.storage.compress-min-bytes:1024}")
+  private int compressMinBytes;
 
   /**
    * 抓取→清洗(段落)→抽標題→以 content_hash 去重→保存
    * 注意：資料表對 content_hash 設了 UNIQUE NOT NULL，因此這裡以內容雜湊去重。
+   * 不包在交易內：下載期間不佔用 DB 連線，寫入本身是單一 upsert 陳述式。
    */
-  @Transactional
   public Article fetchAndSave(String url) {
-    // 先以 sourceUrl 去重（若已存在則直接回傳）
-    var byUrl = repo.findBySourceUrl(url);
-    if (byUrl.isPresent()) return byUrl.get();
+    // 先以正規化網址（含別名）去重；Bloom filter 判定沒有時不查 DB
+    String canonical = UrlCanonicalizer.canonicalize(url);
+    var known = findByUrl(canonical);
+    if (known.isPresent()) return known.get();
+
+    // 抓取並只解析一次：標題、段落（\n\n 分段）、content hash 一次取得
+    return singleFlight(canonical, () -> persist(canonical, fetcher.extract(url))).article();
+  }
 
-    // 取得原始 HTML
-    String html = fetcher.fetchHtml(url);
-    // 轉為純文字段落（\n\n 分段）
-    String cleaned = fetcher.cleanToParagraphs(html);
-    // 擷取標題（若取不到讓它為 null 亦可）
-    String title = fetcher.extractTitle(html);
+  /**
+   * 批次匯入：每個網址在 virtual thread 上抓取（受全域／每 host 並行上限），
+   * 解析在 CPU pool，完成一篇就回呼 onResult 一次（回呼可能來自不同執行緒）。
+   * 回傳結果順序與輸入一致；單一網址失敗不影響其他網址。
+   */
+  public List<IngestResult> fetchAndSaveAll(List<String> urls, Consumer<IngestResult> onResult) {
+    List<CompletableFuture<IngestResult>> futures = urls.stream()
+        .map(String::trim)
+        .filter(u -> !u.isEmpty())
+        .distinct()
+        .map(url -> ingestExecutor.submit(() -> ingestOne(url))
+            .exceptionally(e -> IngestResult.failed(url, e))
+            .thenApply(r -> notify(onResult, r)))
+        .toList();
+
+    return futures.stream().map(CompletableFuture::join).toList();
+  }
+
+  /** 回呼失敗（例如 SSE 用戶端已斷線）不應影響匯入本身。 */
+  private static IngestResult notify(Consumer<IngestResult> onResult, IngestResult r) {
+    try {
+      onResult.accept(r);
+    } catch (Exception e) {
+      log.debug("[Ingest] progress callback failed for {}: {}", r.url(), e.getMessage());
+    }
+    return r;
+  }
+
+  private IngestResult ingestOne(String url) throws InterruptedException {
+    String canonical = UrlCanonicalizer.canonicalize(url);
+    var known = findByUrl(canonical);
+    if (known.isPresent()) return IngestResult.of(url, known.get(), false);
+
+    Saved saved = singleFlight(canonical, () -> {
+      FetchedPage page = ingestExecutor.fetch(url, () -> fetcher.fetch(url));
+      ExtractedArticle ex = ingestExecutor.parse(() -> fetcher.parse(page));
+      return persist(canonical, ex);
+    });
+    return IngestResult.of(url, saved.article(), saved.created());
+  }
+
+  /**
+   * 同一（正規化後）網址同時只有一個抓取在進行：後到的呼叫者等待並共用同一結果（對它們而言 created=false），
+   * 不會重複下載/解析，也不會在寫入時互撞。完成（含失敗）後即移除，之後的呼叫照常走 findBySourceUrl。
+   */
+  private Saved singleFlight(String canonicalUrl, Callable<Saved> work) {
+    CompletableFuture<Saved> mine = new CompletableFuture<>();
+    CompletableFuture<Saved> leader = inFlight.putIfAbsent(canonicalUrl, mine);
+    if (leader != null) {
+      try {
+        return new Saved(leader.join().article(), false);
+      } catch (CompletionException e) {
+        throw e.getCause() instanceof RuntimeException re ? re : e;
+      }
+    }
+    try {
+      Saved saved = work.call();
+      mine.complete(saved);
+      return saved;
+    } catch (Exception e) {
+      mine.completeExceptionally(e);
+      throw e instanceof RuntimeException re ? re : new RuntimeException("Ingest failed: " + canonicalUrl, e);
+    } finally {
+      inFlight.remove(canonicalUrl, mine);
+    }
+  }
 
-    // 以 cleaned 內容計算 hash 做去重
-    String contentHash = fetcher.sha256(cleaned);
+  /**
+   * 以正規化網址 sourceUrl 保存：
+   * redirect 目標或 rel=canonical 已是既有文章時直接沿用；內容雜湊可能已存在時先查一次（Bloom filter 判定沒有就略過）；
+   * 再以 SimHash 做近似去重，最後以 content_hash upsert 保存。created=false 表示內容已存在。
+   * 近似重複時依 ingest.near-duplicate.mode：merge = 直接回傳既有文章；flag = 照樣保存並記錄 near_duplicate_of。
+   * 沿用既有文章時，sourceUrl 與其他網址變體都記為別名，下次不必再抓取。
+   */
+  private Saved persist(String sourceUrl, ExtractedArticle ex) {
+    Set<String> variants = urlVariants(sourceUrl, ex);
+    var known = findExisting(variants, ex.contentHash());
+    if (known.isPresent()) return reuse(known.get(), sourceUrl, variants);
 
-    var dup = repo.findByContentHash(contentHash);
-    if (dup.isPresent()) return dup.get();
+    Long simhash = SimHash.of(ex.cleanedText());
+    NearCheck near = checkNear(sourceUrl, simhash);
+    if (near.merge().isPresent()) return reuse(near.merge().get(), sourceUrl, variants);
+    Long nearDuplicateOf = near.nearDuplicateOf();
 
     // 建立並保存
+    Article a = newArticle(sourceUrl, ex, simhash, nearDuplicateOf);
+
+    // INSERT ... ON CONFLICT (content_hash) DO NOTHING：內容已存在時回傳既有列
+    var result = repo.upsert(a, ex.cleanedText());
+    if (!result.inserted()) {
+      return reuse(repo.findById(result.id()).orElseThrow(), sourceUrl, variants);
+    }
+    a.setId(result.id());
+    knownUrls.addUrl(sourceUrl);
+    knownUrls.addContentHash(ex.contentHash());
+    addAliases(a, variants);
+    if (simhash != null) nearDuplicates.add(result.id(), simhash);
+    return new Saved(a, true);
+  }
+
+  // 抓取後才知道的其他網址：redirect 目標、rel=canonical（皆正規化，排除 sourceUrl 本身）
+  private static Set<String> urlVariants(String sourceUrl, ExtractedArticle ex) {
+    Set<String> out = new LinkedHashSet<>();
+    for (String u : new String[] { ex.url(), ex.canonicalUrl() }) {
+      if (u == null || u.isBlank() || !u.startsWith("http")) continue;
+      String c = UrlCanonicalizer.canonicalize(u);
+      if (!c.equals(sourceUrl)) out.add(c);
+    }
+    return out;
+  }
+
+  /** 任一網址（含別名）或 content_hash 已存在的文章；content_hash 在 Bloom filter 判定沒有時不查 DB。 */
+  private Optional<Article> findExisting(Set<String> urls, String contentHash) {
+    for (String u : urls) {
+      var known = findByUrl(u);
+      if (known.isPresent()) return known;
+    }
+    if (knownUrls.mightContainContentHash(contentHash)) return repo.findByContentHash(contentHash);
+    return Optional.empty();
+  }
+
+  /**
+   * @param merge           merge 模式下要沿用的既有文章
+   * @param nearDuplicateOf flag 模式下要記錄的近似重複對象
+   */
+  private record NearCheck(Optional<Article> merge, Long nearDuplicateOf) {}
+
+  private static final NearCheck NOT_NEAR = new NearCheck(Optional.empty(), null);
+
+  // SimHash 近似去重，依 ingest.near-duplicate.mode 決定沿用既有文章或只做標記
+  private NearCheck checkNear(String sourceUrl, Long simhash) {
+    if (simhash == null) return NOT_NEAR;
+    var near = nearDuplicates.findNearest(simhash);
+    if (near.isEmpty()) return NOT_NEAR;
+    log.info("[NearDup] {} ~ article {} (distance={}, mode={})",
+        sourceUrl, near.get().articleId(), near.get().distance(), nearDuplicateMode);
+    if (!MERGE.equalsIgnoreCase(nearDuplicateMode)) return new NearCheck(Optional.empty(), near.get().articleId());
+    var existing = repo.findById(near.get().articleId());
+    return existing.isPresent() ? new NearCheck(existing, null) : NOT_NEAR;
+  }
+
+  private Saved reuse(Article existing, String sourceUrl, Set<String> variants) {
+    Set<String> all = new LinkedHashSet<>(variants);
+    all.add(sourceUrl);
+    addAliases(existing, all);
+    return new Saved(existing, false);
+  }
+
+  private void addAliases(Article target, Set<String> urls) {
+    for (String u : urls) {
+      if (u.equals(target.getSourceUrl())) continue;
+      aliases.insertIgnore(u, target.getId());
+      knownUrls.addUrl(u);
+    }
+  }
+
+  /** 以正規化網址找文章：source_url → 別名。Bloom filter 判定沒有時不查 DB。 */
+  private Optional<Article> findByUrl(String canonicalUrl) {
+    if (!knownUrls.mightContainUrl(canonicalUrl)) return Optional.empty();
+    var bySource = repo.findBySourceUrl(canonicalUrl);
+    if (bySource.isPresent()) return bySource;
+    return aliases.findArticleId(canonicalUrl).flatMap(repo::findById);
+  }
+
+  private record Saved(Article article, boolean created) {}
+
+  private Article newArticle(String sourceUrl, ExtractedArticle ex, Long simhash, Long nearDuplicateOf) {
     Article a = Article.builder()
-        .title(title)
-        .source(extractHost(url))
-        .sourceUrl(url)
-        .license(null)       // 若未解析授權/語言，先保留 null
-        .lang(null)
-        .cleanedText(cleaned)
-        .contentHash(contentHash)
+        .title(ex.title())
+        .source(extractHost(sourceUrl))
+        .sourceUrl(sourceUrl)
+        .license(null)       // 若未解析授權，先保留 null
+        .lang(ex.lang())
+        .contentHash(ex.contentHash())
+        .paragraphOffsets(ParagraphIndex.of(ex.cleanedText()))
+        .simhash(simhash)
+        .nearDuplicateOf(nearDuplicateOf)
         .fetchedAt(Instant.now())
         .build();
+    a.storeText(ex.cleanedText(), codecFor(ex.cleanedText()));
+    return a;
+  }
 
-    return repo.save(a);
+  /**
+   * 離線匯入：以 JDBC batch 寫入已抽取的文章，回傳實際新增筆數。
+   * 去重與 persist 相同（網址與別名、content_hash、SimHash 近似去重，沿用既有文章時記別名），只是不做網路抓取；
+   * 同一批內網址或內容重複的頁略過，與批內尚未寫入的文章近似重複時先寫入已累積的列再比對。
+   * 新增的列以 RETURNING 取回 id，加入 Bloom filter 與近似去重索引。
+   * source_url 取文章的 rel=canonical，沒有時用 ex.url()，皆先正規化。
+   */
+  public int insertExtracted(List<ExtractedArticle> batch) {
+    List<PendingRow> pending = new ArrayList<>();
+    Set<String> seenUrls = new HashSet<>();
+    Set<String> seenHashes = new HashSet<>();
+    int inserted = 0;
+    for (ExtractedArticle ex : batch) {
+      String url = ex.canonicalUrl() != null && ex.canonicalUrl().startsWith("http") ? ex.canonicalUrl() : ex.url();
+      String sourceUrl = UrlCanonicalizer.canonicalize(url);
+      Set<String> variants = urlVariants(sourceUrl, ex);
+      Set<String> urls = new LinkedHashSet<>(variants);
+      urls.add(sourceUrl);
+      if (seenHashes.contains(ex.contentHash()) || urls.stream().anyMatch(seenUrls::contains)) continue;
+      seenHashes.add(ex.contentHash());
+      seenUrls.addAll(urls);
+
+      var known = findExisting(urls, ex.contentHash());
+      if (known.isPresent()) {
+        reuse(known.get(), sourceUrl, variants);
+        continue;
+      }
+      Long simhash = SimHash.of(ex.cleanedText());
+      if (simhash != null && pending.stream()
+          .anyMatch(p -> p.article().getSimhash() != null && nearDuplicates.isNear(simhash, p.article().getSimhash()))) {
+        inserted += flushExtracted(pending);
+      }
+      NearCheck near = checkNear(sourceUrl, simhash);
+      if (near.merge().isPresent()) {
+        reuse(near.merge().get(), sourceUrl, variants);
+        continue;
+      }
+      pending.add(new PendingRow(newArticle(sourceUrl, ex, simhash, near.nearDuplicateOf()), variants));
+    }
+    return inserted + flushExtracted(pending);
+  }
+
+  private record PendingRow(Article article, Set<String> variants) {}
+
+  // 寫入累積的列；被並行寫入搶先（content_hash 已存在）的列沒有 id，直接略過
+  private int flushExtracted(List<PendingRow> pending) {
+    if (pending.isEmpty()) return 0;
+    Map<String, Long> ids = repo.insertAllIgnoringDuplicates(pending.stream().map(PendingRow::article).toList());
+    for (PendingRow p : pending) {
+      Article a = p.article();
+      knownUrls.addContentHash(a.getContentHash());
+      Long id = ids.get(a.getContentHash());
+      if (id == null) continue;
+      a.setId(id);
+      knownUrls.addUrl(a.getSourceUrl());
+      addAliases(a, p.variants());
+      if (a.getSimhash() != null) nearDuplicates.add(id, a.getSimhash());
+    }
+    pending.clear();
+    return ids.size();
+  }
+
+  // 短文壓縮效益小（gzip 標頭即佔 18 bytes），仍存純文字；以字元數近似位元組數即可
+  private TextCodec codecFor(String text) {
+    TextCodec codec = TextCodec.of(textCodec);
+    return text.length() < compressMinBytes ? TextCodec.PLAIN : codec;
+  }
+
+  /** 是否已匯入過此網址（正規化後比對，含別名；排程抓取用來略過已知項目）。 */
+  @Transactional(readOnly = true)
+  public boolean isKnownUrl(String url) {
+    String canonical = UrlCanonicalizer.canonicalize(url);
+    if (!knownUrls.mightContainUrl(canonical)) return false;
+    return repo.existsBySourceUrl(canonical) || aliases.findArticleId(canonical).isPresent();
   }
 
   @Transactional(readOnly = true)
@@ -64,34 +334,171 @@ public class ArticleService {
         .orElseThrow(() -> new IllegalArgumentException("Article not found: " + id));
   }
   
-  public Map<String,Object> findAllPaged(int page, int size, String q) {
-    Pageable pageable = PageRequest.of(
-        page,
-        size,
-        Sort.by(Sort.Direction.DESC, "fetchedAt")  // 依 fetchedAt DESC 排序
+  /**
+   * 文章列表：只讀 ArticleSummary，不載入全文。
+   * 帶 cursor 時走 keyset（忽略 page），否則沿用 page/size；兩者都回傳 nextCursor 供下一頁使用。
+   * 有 q 時改走全文檢索（依相關度排序，仍以 page 分頁）。
+   */
+  public Map<String,Object> findAllPaged(int page, int size, String q, ArticleCursor cursor, CountMode count) {
+    Pageable pageable = PageRequest.of(page, size);
+    if (q != null && !q.isBlank()) {
+      return search(pageable, q.strip());
+    }
+    Slice<ArticleSummary> slice = cursor == null
+        ? repo.findSummaries(pageable)
+        : repo.findSummariesBefore(cursor.fetchedAt(), cursor.id(), PageRequest.of(0, size));
+    List<ArticleSummary> rows = slice.getContent();
+
+    Map<String,Object> body = new LinkedHashMap<>();
+    body.put("content", rows.stream().map(this::toListItem).toList());
+    if (cursor == null) body.put("page", page);
+    body.put("size", size);
+    body.put("hasNext", slice.hasNext());
+    if (slice.hasNext() && !rows.isEmpty()) {
+      body.put("nextCursor", ArticleCursor.after(rows.get(rows.size() - 1)).encode());
+    }
+    if (count != CountMode.NONE) {
+      // 已知下界：目前位置之前的筆數 + 本頁 +（有下一頁時）至少一筆
+      long seen = (cursor == null ? pageable.getOffset() : 0) + rows.size() + (slice.hasNext() ? 1 : 0);
+      long total;
+      if (cursor == null && !slice.hasNext()) {
+        total = seen;                    // offset 模式的最後一頁：總數已確定
+      } else if (count == CountMode.EXACT) {
+        total = repo.count();
+      } else {
+        total = Math.max(estimateTotal(), seen);
+      }
+      body.put("totalElements", total);
+      body.put("totalPages", (int) ((total + size - 1) / size));
+      body.put("totalEstimated", count == CountMode.ESTIMATE && (cursor != null || slice.hasNext()));
+    }
+    return body;
+  }
+
+  private Map<String,Object> toListItem(ArticleSummary a) {
+    return Map.of(
+        "id", a.id(),
+        "title", a.title(),
+        "source", a.source(),
+        "url", a.sourceUrl(),
+        "fetchedAt", a.fetchedAt()
     );
-    Page<Article> result;
+  }
+
+  // reltuples 在表從未 ANALYZE 時為 -1（PG14+）或 0，此時退回精確 count
+  private long estimateTotal() {
+    Number estimate = repo.estimateCount();
+    if (estimate == null || estimate.longValue() <= 0) return repo.count();
+    return estimate.longValue();
+  }
+
+  /**
+   * 全文檢索：依相關度排序，附高亮摘要。
+   * 總數最多計到 SEARCH_COUNT_CAP，totalCapped 表示實際命中可能更多。
+   */
+  private Map<String,Object> search(Pageable pageable, String q) {
+    int size = pageable.getPageSize();
+    List<ArticleRepository.SearchHit> hits = repo.search(q, size, (int) pageable.getOffset());
+    Map<Long, ArticleSummary> byId = repo.findSummariesByIdIn(hits.stream().map(ArticleRepository.SearchHit::getId).toList())
+        .stream().collect(Collectors.toMap(ArticleSummary::id, a -> a));
+
+    long total = repo.countSearch(q, SEARCH_COUNT_CAP + 1);
+    boolean capped = total > SEARCH_COUNT_CAP;
+    total = Math.max(Math.min(total, SEARCH_COUNT_CAP), pageable.getOffset() + hits.size());
+
+    return Map.of(
+        "content", hits.stream().filter(h -> byId.containsKey(h.getId())).map(h -> {
+          ArticleSummary a = byId.get(h.getId());
+          return Map.of(
+              "id", a.id(),
+              "title", a.title(),
+              "source", a.source(),
+              "url", a.sourceUrl(),
+              "fetchedAt", a.fetchedAt(),
+              "rank", h.getRank(),
+              "snippet", h.getSnippet() != null ? h.getSnippet() : headline(h.getId(), q)
+          );
+        }).toList(),
+        "page", pageable.getPageNumber(),
+        "size", size,
+        "totalElements", total,
+        "totalPages", (int) ((total + size - 1) / size),
+        "totalCapped", capped
+    );
+  }
+
+  // 壓縮列：在 Java 端解壓整篇後交給 ts_headline，命中在全文任何位置都能高亮（只對當頁的壓縮列做）
+  private String headline(Long id, String q) {
+    String text = storedText(id).decode();
+    String snippet = text.isEmpty() ? null : repo.headline(text, q);
+    return snippet == null ? "" : snippet;
+  }
+
+  /** 依儲存格式原樣讀出全文（不解壓），供 HTTP 直接回傳壓縮位元組。 */
+  @Transactional(readOnly = true)
+  public StoredText storedText(Long id) {
+    var row = repo.findStoredText(id)
+        .orElseThrow(() -> new IllegalArgumentException("Article not found: " + id));
+    TextCodec codec = TextCodec.of(row.getTextCodec());
+    if (codec == TextCodec.PLAIN || row.getCleanedTextGz() == null) {
+      String text = row.getCleanedText() == null ? "" : row.getCleanedText();
+      return new StoredText(TextCodec.PLAIN, text.getBytes(StandardCharsets.UTF_8));
+    }
+    return new StoredText(codec, row.getCleanedTextGz());
+  }
+
+  /** 整篇切段：依已存的段落位移切字串；舊資料沒有位移時才掃描一次。 */
+  public List<String> paragraphs(Article a) {
+    return ParagraphIndex.split(a.getCleanedText(), a.getParagraphOffsets());
+  }
+
+  /**
+   * 讀取段落 [from, from + limit)：只從 DB 取出該範圍的文字（substring），不傳整篇全文。
+   * 舊資料沒有段落位移時，載入全文補算並寫回，之後同一篇就走範圍讀取。
+   * 壓縮儲存的文章改為讀出壓縮全文後在記憶體切段（壓縮後的傳輸量通常已小於純文字範圍）。
+   * limit 為 0 時只回傳標題等欄位與段落數，不讀文字（閱讀頁搭配 /text 取全文時用）。
+   */
+  @Transactional
+  public ArticleParagraphs paragraphs(Long id, int from, int limit) {
+    var meta = repo.findParagraphMeta(id)
+        .orElseThrow(() -> new IllegalArgumentException("Article not found: " + id));
+    List<Integer> offsets = meta.getParagraphOffsets();
+    if (offsets == null) {
+      Article a = get(id);
+      offsets = ParagraphIndex.of(a.getCleanedText());
+      a.setParagraphOffsets(offsets);
+      return rangeOf(meta, offsets, from, limit, a.getCleanedText());
+    }
+    if (limit <= 0) {
+      return rangeOf(meta, offsets, from, 0, null);
+    }
+    if (TextCodec.of(meta.getTextCodec()) != TextCodec.PLAIN) {
+      // 壓縮列無法在 DB 端 substring，解壓後切段
+      return rangeOf(meta, offsets, from, limit, storedText(id).decode());
+    }
+    return rangeOf(meta, offsets, from, limit, null);
+  }
+
+  private ArticleParagraphs rangeOf(ArticleRepository.ParagraphMeta meta, List<Integer> offsets,
+                                    int from, int limit, String fullText) {
+    int total = ParagraphIndex.count(offsets);
+    int start = Math.min(Math.max(0, from), total);
+    int end = Math.min(total, start + Math.max(0, Math.min(limit, MAX_PARAGRAPH_LIMIT)));
+    List<String> paragraphs = List.of();
+    if (start < end) {
+      if (fullText != null) {
+        paragraphs = ParagraphIndex.slice(fullText, 0, offsets, start, end);
+      } else {
+        int cpStart = ParagraphIndex.rangeStart(offsets, start);
+        int cpEnd = ParagraphIndex.rangeEnd(offsets, end);
+        String chunk = repo.readTextRange(meta.getId(), cpStart + 1, cpEnd - cpStart);
+        paragraphs = ParagraphIndex.slice(chunk, cpStart, offsets, start, end);
+      }
+    }
+    return new ArticleParagraphs(meta.getId(), meta.getTitle(), meta.getSource(), meta.getSourceUrl(),
+        start, total, paragraphs);
+  }
 
-    if (q != null && !q.isBlank()) {
-      result = repo.findByTitleContainingIgnoreCaseOrSourceContainingIgnoreCase(q, q, pageable);
-    } else {
-      result = repo.findAll(pageable);
-    }
-
-  return Map.of(
-    "content", result.getContent().stream().map(a -> Map.of(
-        "id", a.getId(),
-        "title", a.getTitle(),
-        "source", a.getSource(),
-        "url", a.getSourceUrl(),
-        "fetchedAt", a.getFetchedAt()
-    )).toList(),
-    "page", result.getNumber(),
-    "size", result.getSize(),
-    "totalElements", result.getTotalElements(),
-    "totalPages", result.getTotalPages()
-  );
-}
   // 若其他服務需要，可用這個別名；或直接呼叫 get(id) 也行
   @Transactional(readOnly = true)
   public Article findById(Long id) {
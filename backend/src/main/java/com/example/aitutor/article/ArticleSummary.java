@@ -0,0 +1,8 @@
+package com.example.aitutor.article;
+
+import java.time.Instant;
+
+/**
+ * 文章列表用的窄投影：不含 cleaned_text，列表查詢不必讀取全文。
+ */
+public record ArticleSummary(Long id, String title, String source, String sourceUrl, Instant fetchedAt) {}
@@ -0,0 +1,30 @@
+package com.example.aitutor.article;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ArticleRepository 的自訂片段：以 INSERT ... ON CONFLICT (content_hash) DO NOTHING 寫入文章，
+ * 衝突時再以 content_hash 查既有 id。
+ */
+public interface ArticleUpsert {
+
+  /**
+   * @param id       新寫入或既有（content_hash 相同）文章的 id
+   * @param inserted true=本次新寫入；false=內容已存在，未變更任何欄位
+   */
+  record UpsertResult(long id, boolean inserted) {}
+
+  /**
+   * 寫入文章並同時計算 search_vector（searchText 為未壓縮全文）。
+   * content_hash 衝突時不覆寫既有資料，只回傳既有 id，因此並行寫入同一內容不會再出現 unique 違反。
+   */
+  UpsertResult upsert(Article a, String searchText);
+
+  /**
+   * 批次寫入（分段的多列 INSERT ... ON CONFLICT (content_hash) DO NOTHING RETURNING），
+   * 回傳實際新增列的 content_hash → id；內容已存在而略過的列不在其中。
+   * search_vector 以各文章的 getCleanedText() 計算。
+   */
+  Map<String, Long> insertAllIgnoringDuplicates(List<Article> articles);
+}
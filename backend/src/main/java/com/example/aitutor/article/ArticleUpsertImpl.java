@@ -0,0 +1,117 @@
+package com.example.aitutor.article;
+
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * ArticleUpsert 實作（Spring Data 以 Impl 後綴自動組進 ArticleRepository）。
+ * 用 JdbcTemplate 而非 JPA：需要 RETURNING，且 null 參數要帶明確型別（bytea / jsonb / bigint）。
+ */
+@RequiredArgsConstructor
+class ArticleUpsertImpl implements ArticleUpsert {
+
+  private static final String INSERT_SQL = """
+      INSERT INTO article (title, source, source_url, license, lang,
+                           cleaned_text, cleaned_text_gz, text_codec, content_hash, paragraph_offsets,
+                           simhash, near_duplicate_of, fetched_at, search_vector)
+      VALUES\s""";
+
+  // source 是網域，以點分詞（www.bbc.com → www / bbc / com），否則整個網域只是一個 token
+  private static final String VALUES_ROW = """
+      (:title, :source, :sourceUrl, :license, :lang,
+       :cleanedText, :cleanedTextGz, :textCodec, :contentHash, CAST(:paragraphOffsets AS jsonb),
+       :simhash, :nearDuplicateOf, :fetchedAt,
+       setweight(to_tsvector('english', coalesce(:title, '')), 'A') ||
+       setweight(to_tsvector('simple', replace(coalesce(:source, ''), '.', ' ')), 'B') ||
+       setweight(to_tsvector('english', coalesce(:searchText, '')), 'C'))""";
+
+  // 衝突時不寫入任何東西（不產生 dead tuple / WAL），沒有 RETURNING 列就改查既有 id
+  private static final String UPSERT_SQL = INSERT_SQL + VALUES_ROW + """
+
+      ON CONFLICT (content_hash) DO NOTHING
+      RETURNING id
+      """;
+
+  private static final String EXISTING_ID_SQL = "SELECT id FROM article WHERE content_hash = :contentHash";
+
+  // 批次匯入：每段一個多列 INSERT（14 個參數/列，遠低於 65535 上限），衝突列略過，RETURNING 只回傳真正新增的列
+  private static final int INSERT_CHUNK = 200;
+  private static final Pattern PARAM = Pattern.compile(":(\\w+)");
+
+  private final NamedParameterJdbcTemplate jdbc;
+
+  @Override
+  public UpsertResult upsert(Article a, String searchText) {
+    MapSqlParameterSource params = params(a, searchText);
+    // 衝突列在兩個語句之間被刪除時，第二輪的 INSERT 就會成功
+    for (int attempt = 0; attempt < 2; attempt++) {
+      List<Long> inserted = jdbc.queryForList(UPSERT_SQL, params, Long.class);
+      if (!inserted.isEmpty()) return new UpsertResult(inserted.get(0), true);
+      List<Long> existing = jdbc.queryForList(EXISTING_ID_SQL, params, Long.class);
+      if (!existing.isEmpty()) return new UpsertResult(existing.get(0), false);
+    }
+    throw new IllegalStateException("Upsert found neither a new nor an existing row: " + a.getContentHash());
+  }
+
+  @Override
+  public Map<String, Long> insertAllIgnoringDuplicates(List<Article> articles) {
+    Map<String, Long> inserted = new HashMap<>();
+    for (int from = 0; from < articles.size(); from += INSERT_CHUNK) {
+      List<Article> chunk = articles.subList(from, Math.min(articles.size(), from + INSERT_CHUNK));
+      StringBuilder sql = new StringBuilder(INSERT_SQL);
+      MapSqlParameterSource params = new MapSqlParameterSource();
+      for (int i = 0; i < chunk.size(); i++) {
+        // 每列的參數名加上 _i 後綴：:title → :title_0、:title_1 ...
+        String suffix = "_" + i;
+        if (i > 0) sql.append(",\n");
+        sql.append(PARAM.matcher(VALUES_ROW).replaceAll(m -> ":" + m.group(1) + suffix));
+        Article a = chunk.get(i);
+        MapSqlParameterSource row = params(a, a.getCleanedText());
+        for (String name : row.getParameterNames()) {
+          params.addValue(name + suffix, row.getValue(name), row.getSqlType(name));
+        }
+      }
+      sql.append("\nON CONFLICT (content_hash) DO NOTHING\nRETURNING id, content_hash");
+      jdbc.query(sql.toString(), params, rs -> {
+        inserted.put(rs.getString("content_hash"), rs.getLong("id"));
+      });
+    }
+    return inserted;
+  }
+
+  private static MapSqlParameterSource params(Article a, String searchText) {
+    return new MapSqlParameterSource()
+        .addValue("title", a.getTitle(), Types.VARCHAR)
+        .addValue("source", a.getSource(), Types.VARCHAR)
+        .addValue("sourceUrl", a.getSourceUrl(), Types.VARCHAR)
+        .addValue("license", a.getLicense(), Types.VARCHAR)
+        .addValue("lang", a.getLang(), Types.VARCHAR)
+        .addValue("cleanedText", a.getCleanedTextGz() == null ? a.getCleanedText() : null, Types.VARCHAR)
+        .addValue("cleanedTextGz", a.getCleanedTextGz(), Types.BINARY)
+        .addValue("textCodec", a.getTextCodec() == null ? TextCodec.PLAIN.id() : a.getTextCodec(), Types.VARCHAR)
+        .addValue("contentHash", a.getContentHash(), Types.VARCHAR)
+        .addValue("paragraphOffsets", toJson(a.getParagraphOffsets()), Types.VARCHAR)
+        .addValue("simhash", a.getSimhash(), Types.BIGINT)
+        .addValue("nearDuplicateOf", a.getNearDuplicateOf(), Types.BIGINT)
+        .addValue("fetchedAt", LocalDateTime.ofInstant(
+            a.getFetchedAt() == null ? Instant.now() : a.getFetchedAt(), ZoneOffset.UTC), Types.TIMESTAMP)
+        .addValue("searchText", searchText, Types.VARCHAR);
+  }
+
+  private static String toJson(List<Integer> offsets) {
+    if (offsets == null) return null;
+    return offsets.stream().map(String::valueOf).collect(Collectors.joining(",", "[", "]"));
+  }
+}
@@ -0,0 +1,33 @@
+package com.example.aitutor.article;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * 文章的其他網址（正規化後）：redirect 目標、rel=canonical、舊資料未正規化的 source_url 等。
+ * 查詢已知網址時 source_url 沒命中才查這裡。
+ */
+@Entity
+@Table(name = "article_url_alias")
+@Getter @Setter
+@NoArgsConstructor
+public class ArticleUrlAlias {
+
+  // 對應 url TEXT PRIMARY KEY
+  @Id
+  @Column(columnDefinition = "TEXT")
+  private String url;
+
+  @Column(name = "article_id", nullable = false)
+  private Long articleId;
+
+  @Column(name = "created_at", nullable = false)
+  private Instant createdAt;
+}
@@ -0,0 +1,30 @@
+package com.example.aitutor.article;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface ArticleUrlAliasRepository extends JpaRepository<ArticleUrlAlias, String> {
+
+  @Query("select a.articleId from ArticleUrlAlias a where a.url = :url")
+  Optional<Long> findArticleId(String url);
+
+  /** 已存在（不論指向哪篇）就略過；先寫先贏。 */
+  @Modifying
+  @Transactional
+  @Query(value = """
+      INSERT INTO article_url_alias (url, article_id, created_at)
+      VALUES (:url, :articleId, now() AT TIME ZONE 'UTC')
+      ON CONFLICT (url) DO NOTHING
+      """, nativeQuery = true)
+  int insertIgnore(String url, Long articleId);
+
+  /** 啟動載入 known-URL filter 用（以 url 遞增分批）。 */
+  @Query("select a.url from ArticleUrlAlias a where a.url > :afterUrl order by a.url")
+  List<String> findUrlsAfter(String afterUrl, Pageable pageable);
+}
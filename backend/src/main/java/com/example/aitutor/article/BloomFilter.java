@@ -0,0 +1,76 @@
+package com.example.aitutor.article;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 字串 Bloom filter（執行緒安全、只增不減）。
+ * mightContain=false 代表一定沒加入過；true 則可能誤判（機率約為建立時指定的 fpp，超過 expected 後會上升）。
+ *
+ * 位元陣列為 AtomicLongArray；k 個位置由一個 128-bit 雜湊的兩半以 double hashing 產生。
+ */
+final class BloomFilter {
+
+  private final AtomicLongArray words;
+  private final long bits;
+  private final int hashes;
+
+  BloomFilter(long expected, double fpp) {
+    long n = Math.max(1, expected);
+    double p = Math.min(Math.max(fpp, 1e-9), 0.5);
+    long m = (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+    int words = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (m + 63) >>> 6));
+    this.words = new AtomicLongArray(words);
+    this.bits = (long) words << 6;
+    this.hashes = Math.max(1, (int) Math.round((double) bits / n * Math.log(2)));
+  }
+
+  void add(String value) {
+    long[] h = hash(value);
+    long combined = h[0];
+    for (int i = 0; i < hashes; i++) {
+      long bit = (combined & Long.MAX_VALUE) % bits;
+      int idx = (int) (bit >>> 6);
+      long mask = 1L << bit;
+      long old;
+      do {
+        old = words.get(idx);
+        if ((old & mask) != 0) break;
+      } while (!words.compareAndSet(idx, old, old | mask));
+      combined += h[1];
+    }
+  }
+
+  boolean mightContain(String value) {
+    long[] h = hash(value);
+    long combined = h[0];
+    for (int i = 0; i < hashes; i++) {
+      long bit = (combined & Long.MAX_VALUE) % bits;
+      if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) return false;
+      combined += h[1];
+    }
+    return true;
+  }
+
+  long sizeInBytes() {
+    return (long) words.length() * 8;
+  }
+
+  // UTF-8 位元組的 FNV-1a（兩個不同 offset basis）再各自以 SplitMix64 打散
+  private static long[] hash(String value) {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    long a = 0xcbf29ce484222325L;
+    long b = 0x84222325cbf29ce4L;
+    for (byte x : bytes) {
+      a = (a ^ (x & 0xff)) * 0x100000001b3L;
+      b = (b ^ (x & 0xff)) * 0x100000001b3L;
+    }
+    return new long[] { mix(a), mix(b) | 1L };
+  }
+
+  private static long mix(long z) {
+    z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+    z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+    return z ^ (z >>> 31);
+  }
+}
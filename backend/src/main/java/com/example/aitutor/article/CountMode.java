@@ -0,0 +1,16 @@
+package com.example.aitutor.article;
+
+import java.util.Locale;
+
+/**
+ * 列表總數的計算方式。
+ * EXACT=count(*)（隨資料量線性成長）、ESTIMATE=pg_class.reltuples 估計值、NONE=不回傳總數。
+ */
+public enum CountMode {
+  EXACT, ESTIMATE, NONE;
+
+  /** @throws IllegalArgumentException 不認得的值 */
+  public static CountMode parse(String s) {
+    return valueOf(s.strip().toUpperCase(Locale.ROOT));
+  }
+}
@@ -0,0 +1,28 @@
+package com.example.aitutor.article;
+
+import java.util.List;
+
+/**
+ * JsoupFetcher 單次抓取＋解析的結果（一份 DOM 產出全部欄位）。
+ *
+ * @param url          實際抓取的網址（redirect 後）
+ * @param title        標題（og:title → &lt;title&gt; → h1），可能為 null
+ * @param paragraphs   正文段落（已清洗）
+ * @param cleanedText  段落以 \n\n 串接後的純文字（即 Article.cleanedText）
+ * @param contentHash  cleanedText 的 SHA-256（去重用）
+ * @param canonicalUrl &lt;link rel=canonical&gt; 或 og:url，可能為 null
+ * @param siteName     og:site_name，可能為 null
+ * @param lang         &lt;html lang&gt;，可能為 null
+ * @param extractor    勝出的抽取策略（例如 "bbc"、"bbc/jsonld"、"generic/article"、"jsonld"、"fallback"）
+ */
+public record ExtractedArticle(
+    String url,
+    String title,
+    List<String> paragraphs,
+    String cleanedText,
+    String contentHash,
+    String canonicalUrl,
+    String siteName,
+    String lang,
+    String extractor
+) {}
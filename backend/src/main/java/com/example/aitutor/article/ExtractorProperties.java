@@ -0,0 +1,50 @@
+package com.example.aitutor.article;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * 站台抽取規則（application.yml 的 extractors.sites）。
+ * 選擇器在啟動時預先編譯；新增新聞來源只要加一筆規則，不會在其他站台的流程多跑任何選擇器。
+ */
+@Getter @Setter
+@Component
+@ConfigurationProperties(prefix = "extractors")
+public class ExtractorProperties {
+
+  private List<Rule> sites = new ArrayList<>(List.of(Rule.bbc()));
+
+  @Getter @Setter
+  public static class Rule {
+    /** 規則名稱（回報用）。 */
+    private String name;
+    /** 負責的 host（不含 www.）；子網域會往上比對。 */
+    private List<String> hosts = new ArrayList<>();
+    /** host 對不到時的內容特徵選擇器；留空表示不參與。 */
+    private String fingerprint;
+    /** 正文段落選擇器。 */
+    private String paragraphs;
+    /** 引言選擇器（可選）。 */
+    private String quotes;
+    /** 略過「整段只有一個連結」的段落（多半是相關閱讀）。 */
+    private boolean skipLinkOnlyParagraphs = true;
+
+    /** 內建 BBC 規則（設定檔未提供 extractors.sites 時使用）。 */
+    static Rule bbc() {
+      Rule r = new Rule();
+      r.setName("bbc");
+      r.setHosts(new ArrayList<>(List.of("bbc.com", "bbc.co.uk")));
+      r.setFingerprint("meta[property=og:site_name][content*=BBC], link[rel=canonical][href*=bbc.com], "
+          + "[data-component=text-block]");
+      r.setParagraphs("[data-component=text-block] p");
+      r.setQuotes("[data-component=quote-block] blockquote, [data-component=quote-block] q");
+      return r;
+    }
+  }
+}
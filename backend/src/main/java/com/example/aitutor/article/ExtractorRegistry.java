@@ -0,0 +1,112 @@
+package com.example.aitutor.article;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Evaluator;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 站台抽取器註冊表：
+ *   1) 以 canonical host 查 HashMap（子網域逐層往上，例如 news.bbc.co.uk → bbc.co.uk）
+ *   2) 查不到時才做一次 fingerprint 比對：所有規則的 fingerprint 合併成單一選擇器，只走訪 DOM 一次
+ *
+ * 來源：設定檔 extractors.sites（SelectorSiteExtractor）＋ 其他 SiteExtractor bean。
+ */
+@Slf4j
+@Component
+public class ExtractorRegistry {
+
+  private final Map<String, SiteExtractor> byHost = new HashMap<>();
+  private final List<SiteExtractor> fingerprinted = new ArrayList<>();
+  private final Evaluator combinedFingerprint;
+
+  public ExtractorRegistry(ExtractorProperties props, ObjectProvider<SiteExtractor> beans) {
+    List<SiteExtractor> all = new ArrayList<>();
+    props.getSites().forEach(rule -> all.add(new SelectorSiteExtractor(rule)));
+    beans.orderedStream().forEach(all::add);
+
+    for (SiteExtractor ex : all) {
+      for (String h : ex.hosts()) {
+        SiteExtractor prev = byHost.putIfAbsent(canonicalHost(h), ex);
+        if (prev != null) log.warn("[Extractor] host {} already mapped to {}, ignore {}", h, prev.name(), ex.name());
+      }
+      if (ex.fingerprint() != null) fingerprinted.add(ex);
+    }
+
+    this.combinedFingerprint = fingerprinted.isEmpty() ? null : new AnyFingerprint(List.copyOf(fingerprinted));
+    log.info("[Extractor] {} site extractor(s), {} host(s), {} fingerprint(s)",
+        all.size(), byHost.size(), fingerprinted.size());
+  }
+
+  /** 依網址（通常為 doc.location()）與內容找出站台抽取器。 */
+  public Optional<SiteExtractor> resolve(String url, Document doc) {
+    String host = canonicalHost(hostOf(url));
+    while (host != null) {
+      SiteExtractor ex = byHost.get(host);
+      if (ex != null) return Optional.of(ex);
+      int dot = host.indexOf('.');
+      host = (dot > 0 && host.indexOf('.', dot + 1) > 0) ? host.substring(dot + 1) : null;
+    }
+    return byFingerprint(doc);
+  }
+
+  private Optional<SiteExtractor> byFingerprint(Document doc) {
+    if (combinedFingerprint == null) return Optional.empty();
+    Element hit = doc.selectFirst(combinedFingerprint);
+    if (hit == null) return Optional.empty();
+    for (SiteExtractor ex : fingerprinted) {
+      if (hit.is(ex.fingerprint())) return Optional.of(ex);
+    }
+    return Optional.empty();
+  }
+
+  /** 所有 fingerprint 的 OR：selectFirst 只需走訪 DOM 一次。 */
+  private static final class AnyFingerprint extends Evaluator {
+    private final List<SiteExtractor> extractors;
+
+    AnyFingerprint(List<SiteExtractor> extractors) {
+      this.extractors = extractors;
+    }
+
+    @Override
+    public boolean matches(Element root, Element element) {
+      for (SiteExtractor ex : extractors) {
+        if (ex.fingerprint().matches(root, element)) return true;
+      }
+      return false;
+    }
+  }
+
+  /** 小寫並去掉 www. / m. / amp. / mobile. 前綴。 */
+  static String canonicalHost(String host) {
+    if (host == null || host.isBlank()) return null;
+    String h = host.trim().toLowerCase(Locale.ROOT);
+    if (h.endsWith(".")) h = h.substring(0, h.length() - 1);
+    for (String prefix : new String[] {"www.", "m.", "amp.", "mobile."}) {
+      if (h.startsWith(prefix) && h.indexOf('.', prefix.length()) > 0) {
+        return h.substring(prefix.length());
+      }
+    }
+    return h;
+  }
+
+  private static String hostOf(String url) {
+    if (url == null || url.isBlank()) return null;
+    try {
+      return URI.create(url).getHost();
+    } catch (Exception e) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,22 @@
+package com.example.aitutor.article;
+
+import org.jsoup.nodes.Document;
+
+/**
+ * 已下載的頁面（I/O 與解析分離：下載在 virtual thread，解析在 CPU pool）。
+ *
+ * @param url                請求的網址
+ * @param finalUrl           redirect 後的實際網址（解析時作為 baseUri）
+ * @param body               原始 body 位元組（串流模式下為實際讀到的部分；未啟用快取時可能為空）
+ * @param charset            Content-Type 宣告的字元集；null 時由 Jsoup 依 BOM / meta 判斷
+ * @param cachedExtraction   來自 HtmlCache（304 / offline）且規則版本相符的抽取結果；有值時 parse 直接沿用
+ * @param document           串流模式下邊下載邊建好的（可能只到正文容器為止的）DOM；有值時 parse 不再解析 body
+ */
+public record FetchedPage(
+    String url,
+    String finalUrl,
+    byte[] body,
+    String charset,
+    ExtractedArticle cachedExtraction,
+    Document document
+) {}
@@ -0,0 +1,245 @@
+package com.example.aitutor.article;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 原始 HTML 的磁碟快取（以 URL 為 key）。
+ * 每個網址兩個檔案：
+ *   - {sha256(url)}.html：原始 body 位元組
+ *   - {sha256(url)}.json：Entry（ETag / Last-Modified / charset / 是否只有部分 body / 上次抽取結果與抽取規則版本）
+ *
+ * 用途：
+ *   - 重抓時帶 If-None-Match / If-Modified-Since，304 直接沿用快取 body 與抽取結果
+ *   - offline 模式（ingest.html-cache.offline=true）只要有快取就不連網，可用新規則重跑抽取
+ *
+ * 寫入採「暫存檔 + rename」，避免並行匯入時讀到半個檔案。
+ * 定期清除超過 max-age 或使總量超過 max-bytes 的項目（以最後寫入時間判斷，最舊的先刪）。
+ */
+@Slf4j
+@Component
+public class HtmlCache {
+
+  /**
+   * @param extractorVersion extracted 由哪一版抽取規則產生；與 JsoupFetcher.EXTRACTOR_VERSION 不同時不可沿用
+   * @param partial          body 不是完整頁面（串流讀完正文即停止，或超過 max-body-bytes 截斷）
+   */
+  public record Entry(
+      String url,
+      String finalUrl,
+      String charset,
+      String etag,
+      String lastModified,
+      Instant fetchedAt,
+      int extractorVersion,
+      ExtractedArticle extracted,
+      boolean partial
+  ) {
+    Entry withExtracted(int version, ExtractedArticle ex) {
+      return new Entry(url, finalUrl, charset, etag, lastModified, fetchedAt, version, ex, partial);
+    }
+  }
+
+  /** 一個網址在磁碟上的兩個檔案合計。 */
+  private record DiskEntry(String key, long bytes, Instant modified) {
+    DiskEntry plus(DiskEntry other) {
+      return new DiskEntry(key, bytes + other.bytes, modified.isAfter(other.modified) ? modified : other.modified);
+    }
+  }
+
+  private static final HexFormat HEX = HexFormat.of();
+
+  private final ObjectMapper mapper;
+  private final boolean enabled;
+  private final boolean offline;
+  private final Path dir;
+  private final Duration maxAge;
+  private final long maxBytes;
+
+  public HtmlCache(ObjectMapper mapper,
+                   @Value("${ingest.html-cache.enabled:true}") boolean enabled,
+                   @Value("${ingest.html-cache.offline:false}") boolean offline,
+                   @Value("${ingest.html-cache.dir:cache/html}") String dir,
+                   @Value("${ingest.html-cache.max-age:P30D}") Duration maxAge,
+                   @Value("${ingest.html-cache.max-bytes:1073741824}") long maxBytes) {
+    this.mapper = mapper;
+    this.enabled = enabled;
+    this.offline = offline;
+    this.dir = Paths.get(dir);
+    this.maxAge = maxAge;
+    this.maxBytes = maxBytes;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /** offline 模式：有快取就不連網。 */
+  public boolean isOffline() {
+    return enabled && offline;
+  }
+
+  public Optional<Entry> lookup(String url) {
+    if (!enabled) return Optional.empty();
+    Path meta = metaPath(url);
+    if (!Files.isRegularFile(meta) || !Files.isRegularFile(bodyPath(url))) return Optional.empty();
+    try {
+      return Optional.of(mapper.readValue(meta.toFile(), Entry.class));
+    } catch (IOException e) {
+      log.warn("[HtmlCache] unreadable entry for {}: {}", url, e.getMessage());
+      return Optional.empty();
+    }
+  }
+
+  public byte[] readBody(String url) {
+    try {
+      return Files.readAllBytes(bodyPath(url));
+    } catch (IOException e) {
+      throw new RuntimeException("Read cached HTML failed: " + url, e);
+    }
+  }
+
+  /**
+   * 寫入新下載的 body 與驗證器（抽取結果尚未產生）。
+   * partial=true 表示 body 只是頁面前段；304 / offline 時仍可沿用（抽取結果本來就來自這一段）。
+   */
+  public void store(FetchedPage page, String etag, String lastModified, boolean partial) {
+    if (!enabled) return;
+    try {
+      Files.createDirectories(dir);
+      writeAtomically(bodyPath(page.url()), page.body());
+      Entry e = new Entry(page.url(), page.finalUrl(), page.charset(), etag, lastModified, Instant.now(), 0, null,
+          partial);
+      writeAtomically(metaPath(page.url()), mapper.writeValueAsBytes(e));
+    } catch (IOException e) {
+      log.warn("[HtmlCache] store failed for {}: {}", page.url(), e.getMessage());
+    }
+  }
+
+  /** 補上抽取結果，之後 304 / offline 時可直接沿用。 */
+  public void storeExtraction(String url, int extractorVersion, ExtractedArticle ex) {
+    if (!enabled) return;
+    lookup(url).ifPresent(e -> {
+      try {
+        writeAtomically(metaPath(url), mapper.writeValueAsBytes(e.withExtracted(extractorVersion, ex)));
+      } catch (IOException io) {
+        log.warn("[HtmlCache] store extraction failed for {}: {}", url, io.getMessage());
+      }
+    });
+  }
+
+  /** 所有已快取的網址（離線重跑抽取用）。 */
+  public List<String> cachedUrls() {
+    if (!enabled || !Files.isDirectory(dir)) return List.of();
+    try (Stream<Path> files = Files.list(dir)) {
+      return files
+          .filter(p -> p.getFileName().toString().endsWith(".json"))
+          .map(p -> {
+            try {
+              return mapper.readValue(p.toFile(), Entry.class).url();
+            } catch (IOException e) {
+              return null;
+            }
+          })
+          .filter(u -> u != null)
+          .toList();
+    } catch (IOException e) {
+      throw new RuntimeException("List HTML cache failed: " + dir, e);
+    }
+  }
+
+  /** 清除逾期與超過總量上限的快取（max-age / max-bytes 為 0 表示不限）。 */
+  @Scheduled(fixedDelayString = "${ingest.html-cache.purge-interval:PT1H}", initialDelayString = "PT5M")
+  public void purge() {
+    if (!enabled || !Files.isDirectory(dir)) return;
+    try {
+      Map<String, DiskEntry> entries = new HashMap<>();
+      try (Stream<Path> files = Files.list(dir)) {
+        for (Path p : (Iterable<Path>) files::iterator) {
+          String name = p.getFileName().toString();
+          if (!name.endsWith(".html") && !name.endsWith(".json")) continue;
+          String key = name.substring(0, name.lastIndexOf('.'));
+          try {
+            BasicFileAttributes attrs = Files.readAttributes(p, BasicFileAttributes.class);
+            entries.merge(key, new DiskEntry(key, attrs.size(), attrs.lastModifiedTime().toInstant()), DiskEntry::plus);
+          } catch (NoSuchFileException gone) {
+            // 並行覆寫或刪除，下次再算
+          }
+        }
+      }
+
+      Instant cutoff = maxAge.isZero() || maxAge.isNegative() ? null : Instant.now().minus(maxAge);
+      long total = entries.values().stream().mapToLong(DiskEntry::bytes).sum();
+      int expired = 0, trimmed = 0;
+      // 由舊到新：一旦既未逾期、總量也在上限內，後面的項目都不用刪
+      for (DiskEntry e : entries.values().stream().sorted(Comparator.comparing(DiskEntry::modified)).toList()) {
+        boolean old = cutoff != null && e.modified().isBefore(cutoff);
+        if (!old && (maxBytes <= 0 || total <= maxBytes)) break;
+        // 先刪 .json：lookup 需要兩個檔案都在，不會讀到只剩 body 的項目
+        Files.deleteIfExists(dir.resolve(e.key() + ".json"));
+        Files.deleteIfExists(dir.resolve(e.key() + ".html"));
+        total -= e.bytes();
+        if (old) expired++;
+        else trimmed++;
+      }
+      if (expired + trimmed > 0) {
+        log.info("[HtmlCache] purge: {} expired, {} over max-bytes, {} bytes left", expired, trimmed, total);
+      }
+    } catch (IOException e) {
+      log.warn("[HtmlCache] purge failed: {}", e.getMessage());
+    }
+  }
+
+  // ====== 內部實作 ======
+
+  private Path bodyPath(String url) {
+    return dir.resolve(key(url) + ".html");
+  }
+
+  private Path metaPath(String url) {
+    return dir.resolve(key(url) + ".json");
+  }
+
+  private static String key(String url) {
+    try {
+      MessageDigest md = MessageDigest.getInstance("SHA-256");
+      return HEX.formatHex(md.digest(url.getBytes(StandardCharsets.UTF_8)));
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static void writeAtomically(Path target, byte[] bytes) throws IOException {
+    Path tmp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+    try {
+      Files.write(tmp, bytes);
+      Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(tmp);
+    }
+  }
+}
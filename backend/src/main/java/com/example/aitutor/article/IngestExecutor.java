@@ -0,0 +1,110 @@
+package com.example.aitutor.article;
+
+import java.net.URI;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 文章匯入的執行資源：
+ *   - I/O（下載）跑在 virtual threads，受「全域」與「每個 host」兩層 Semaphore 限制（禮貌抓取）
+ *   - Jsoup 解析／抽取跑在固定大小的 CPU pool，避免大量同時解析吃光核心
+ *
+ * 設定：
+ *   ingest.max-concurrency  同時下載上限（全部 host 合計）
+ *   ingest.max-per-host     單一 host 同時下載上限
+ *   ingest.parse-threads    解析執行緒數；0 = CPU 核心數
+ */
+@Slf4j
+@Component
+public class IngestExecutor {
+
+  private final Semaphore globalPermits;
+  private final int maxPerHost;
+  private final ConcurrentHashMap<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+
+  private final ExecutorService ioPool = Executors.newVirtualThreadPerTaskExecutor();
+  private final ExecutorService parsePool;
+
+  public IngestExecutor(@Value("${ingest.max-concurrency:32}") int maxConcurrency,
+                        @Value("${ingest.max-per-host:4}") int maxPerHost,
+                        @Value("${ingest.parse-threads:0}") int parseThreads) {
+    this.globalPermits = new Semaphore(Math.max(1, maxConcurrency), true);
+    this.maxPerHost = Math.max(1, maxPerHost);
+
+    int threads = parseThreads > 0 ? parseThreads : Runtime.getRuntime().availableProcessors();
+    AtomicInteger seq = new AtomicInteger();
+    this.parsePool = Executors.newFixedThreadPool(threads, r -> {
+      Thread t = new Thread(r, "ingest-parse-" + seq.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    });
+    log.info("[Ingest] maxConcurrency={}, maxPerHost={}, parseThreads={}", maxConcurrency, this.maxPerHost, threads);
+  }
+
+  /** 在 virtual thread 上執行整段匯入流程（流程內再呼叫 fetch / parse）。 */
+  public <T> CompletableFuture<T> submit(Callable<T> task) {
+    return CompletableFuture.supplyAsync(() -> call(task), ioPool);
+  }
+
+  /**
+   * 在目前（virtual）執行緒上下載；先拿該 host 的 permit，再拿全域 permit。
+   * 等 host permit 時不佔全域名額，同一 host 排隊的大量連結不會卡住其他 host。
+   */
+  public <T> T fetch(String url, Callable<T> io) throws InterruptedException {
+    Semaphore host = hostPermits.computeIfAbsent(hostKey(url), h -> new Semaphore(maxPerHost, true));
+    host.acquire();
+    try {
+      globalPermits.acquire();
+      try {
+        return call(io);
+      } finally {
+        globalPermits.release();
+      }
+    } finally {
+      host.release();
+    }
+  }
+
+  /** 交給 CPU pool 解析並等待結果（呼叫端為 virtual thread，等待不佔平台執行緒）。 */
+  public <T> T parse(Callable<T> cpu) {
+    return CompletableFuture.supplyAsync(() -> call(cpu), parsePool).join();
+  }
+
+  @PreDestroy
+  void shutdown() {
+    ioPool.shutdownNow();
+    parsePool.shutdownNow();
+  }
+
+  private static <T> T call(Callable<T> c) {
+    try {
+      return c.call();
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new CompletionException(e);
+    }
+  }
+
+  private static String hostKey(String url) {
+    try {
+      String h = URI.create(url).getHost();
+      return h == null ? "" : h.toLowerCase(Locale.ROOT);
+    } catch (Exception e) {
+      return "";
+    }
+  }
+}
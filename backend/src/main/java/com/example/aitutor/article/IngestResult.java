@@ -0,0 +1,26 @@
+package com.example.aitutor.article;
+
+/**
+ * 批次匯入中單一網址的結果。
+ *
+ * @param url       請求的網址
+ * @param status    CREATED=新寫入、EXISTING=已存在（網址或內容雜湊命中）、FAILED=抓取/解析/寫入失敗
+ * @param articleId 文章 id（FAILED 時為 null）
+ * @param title     文章標題（FAILED 時為 null）
+ * @param error     失敗原因（非 FAILED 時為 null）
+ */
+public record IngestResult(String url, Status status, Long articleId, String title, String error) {
+
+  public enum Status { CREATED, EXISTING, FAILED }
+
+  static IngestResult of(String url, Article a, boolean created) {
+    return new IngestResult(url, created ? Status.CREATED : Status.EXISTING, a.getId(), a.getTitle(), null);
+  }
+
+  static IngestResult failed(String url, Throwable e) {
+    Throwable root = e;
+    while (root.getCause() != null && root.getCause() != root) root = root.getCause();
+    String msg = root.getMessage() == null ? root.getClass().getSimpleName() : root.getMessage();
+    return new IngestResult(url, Status.FAILED, null, null, msg);
+  }
+}
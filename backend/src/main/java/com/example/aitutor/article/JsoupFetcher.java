@@ -1,15 +1,25 @@
 package com.example.aitutor.article;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.net.URI;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HexFormat;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Optional;
 import java.util.Set;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -18,35 +28,276 @@ import org.jsoup.Jsoup;
 import org.jsoup.nodes.DataNode;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
+import org.jsoup.parser.Parser;
+import org.jsoup.parser.StreamParser;
 import org.jsoup.select.Elements;
+import org.jsoup.select.Evaluator;
+import org.jsoup.select.QueryParser;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import lombok.extern.slf4j.Slf4j;
+
 /**
  * 以 Jsoup 抓取與清洗文章的工具類。
  * 提供：
+ *   - extract(url): 抓取後只解析一次，回傳標題、段落、雜湊與 metadata（ExtractedArticle）
+ *   - fetch(url) / parse(page): 下載與解析分開呼叫（批次匯入時分別跑在 I/O 與 CPU 執行緒）
+ *   - reextractCached(url): 以目前規則重跑 HtmlCache 內的原始 HTML（不連網）
  *   - fetchHtml(url): 取回原始 HTML（帶 UA、redirect、Accept-Language）
  *   - cleanToParagraphs(html): 抽取正文並清洗為 \n\n 分段的純文字
  *   - extractTitle(html): 擷取標題（og:title → <title> → h1）
  *   - sha256(str): 內容雜湊（去重）
  *
- * 特化支援 BBC 新版頁面（data-component="text-block" 與 JSON-LD articleBody），
- * 並排除「More on this story / Related」等連結模組，避免混入正文。
+ * 站台特化規則由 ExtractorRegistry 依 host 分派（預設含 BBC：data-component="text-block" 與 JSON-LD articleBody），
+ * 並排除「More on this story / Related」等連結模組，避免混入正文；ExtractedArticle.extractor 記錄勝出的策略。
+ * 字串版 API（cleanToParagraphs / extractTitle）保留給既有呼叫端，內部與 extract 共用同一套 Document 抽取邏輯。
+ *
+ * 下載經過 HtmlCache：重抓時帶 If-None-Match / If-Modified-Since，304 沿用快取 body 與抽取結果。
+ * 修改抽取規則時請遞增 EXTRACTOR_VERSION，讓快取中的舊抽取結果失效（原始 HTML 仍可沿用）。
+ *
+ * 下載限制（ingest.fetch.*）：
+ *   - max-body-bytes：body 上限，超過即截斷（避免超大 live-blog 撐爆 heap）
+ *   - 非 HTML 的 Content-Type 在讀 body 之前就中止
+ *   - streaming=true：邊下載邊用 StreamParser 建 DOM，讀完第一個有足夠正文的 &lt;article&gt; 就停止下載
  */
+@Slf4j
 @Component
 public class JsoupFetcher {
 
+  /** 抽取規則版本；快取的抽取結果只在版本相同時沿用。 */
+  public static final int EXTRACTOR_VERSION = 3;
+
   private static final Duration TIMEOUT = Duration.ofSeconds(15);
   private static final String USER_AGENT =
       "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 "
           + "(KHTML, like Gecko) Chrome/124.0.0.0 Safari/537.36";
 
-  private static final Pattern MULTI_SPACE = Pattern.compile("[ \\t\\x0B\\f\\r]+");
-  private static final Pattern MULTI_NL = Pattern.compile("\\n{2,}");
+  // 一般流程的選擇器：啟動時編譯一次
+  private static final Evaluator ARTICLE = QueryParser.parse("article");
+  private static final Evaluator CONTAINERS = QueryParser.parse(
+      "main, .content, .post, .article, .entry-content, #content, .rich-text, .story-body");
+  private static final Evaluator JSON_LD = QueryParser.parse("script[type=application/ld+json]");
+  private static final Evaluator PARAGRAPH_LIKE = QueryParser.parse("p, h1, h2, h3, h4, h5, h6, li, blockquote");
+  private static final HexFormat HEX = HexFormat.of();
+
+  /** 串流模式下，&lt;article&gt; 內段落文字達此長度才視為正文容器已讀完。 */
+  private static final int MIN_ARTICLE_CHARS = 500;
+
+  /** 串流模式下，Content-Type 沒有 charset 時預讀多少位元組找 BOM / &lt;meta charset&gt;。 */
+  private static final int PRESCAN_BYTES = 4096;
+  // <meta charset="x"> 與 <meta http-equiv="Content-Type" content="text/html; charset=x"> 都適用
+  private static final Pattern META_CHARSET = Pattern.compile(
+      "<meta[^>]+charset\\s*=\\s*[\"']?\\s*([A-Za-z0-9_:.\\-]+)", Pattern.CASE_INSENSITIVE);
 
   private final ObjectMapper mapper = new ObjectMapper();
+  private final HtmlCache cache;
+  private final ExtractorRegistry registry;
+  private final int maxBodyBytes;
+  private final boolean streaming;
+
+  public JsoupFetcher(HtmlCache cache,
+                      ExtractorRegistry registry,
+                      @Value("${ingest.fetch.max-body-bytes:2097152}") int maxBodyBytes,
+                      @Value("${ingest.fetch.streaming:true}") boolean streaming) {
+    this.cache = cache;
+    this.registry = registry;
+    this.maxBodyBytes = maxBodyBytes;
+    this.streaming = streaming;
+  }
+
+  /** 抓取並只解析一次：同一份 DOM 產出標題、段落、content hash 與 metadata。 */
+  public ExtractedArticle extract(String url) {
+    return parse(fetch(url));
+  }
+
+  /**
+   * 只做 I/O：下載 body 位元組（不解析）。
+   * 有快取時帶條件式請求；304 或 offline 模式直接回傳快取內容。
+   */
+  public FetchedPage fetch(String url) {
+    Optional<HtmlCache.Entry> cached = cache.lookup(url);
+    if (cached.isPresent() && cache.isOffline()) return fromCache(cached.get());
+
+    try {
+      Connection conn = connect(url);
+      // 部分 body 只在串流模式下沿用；關閉串流後要重新下載完整頁面
+      cached.filter(e -> streaming || !e.partial()).ifPresent(e -> {
+        if (!isBlank(e.etag())) conn.header("If-None-Match", e.etag());
+        if (!isBlank(e.lastModified())) conn.header("If-Modified-Since", e.lastModified());
+      });
+      Connection.Response res = conn.execute();
+
+      if (res.statusCode() == 304 && cached.isPresent()) {
+        log.debug("[Fetch] 304 not modified, reuse cached HTML: {}", url);
+        return fromCache(cached.get());
+      }
+      requireHtml(url, res);
+
+      if (streaming) return fetchStreaming(url, res);
+
+      FetchedPage page = new FetchedPage(url, res.url().toString(), res.bodyAsBytes(), res.charset(), null, null);
+      boolean truncated = warnIfTruncated(url, page.body().length);
+      cache.store(page, res.header("ETag"), res.header("Last-Modified"), truncated);
+      return page;
+    } catch (IOException e) {
+      throw new RuntimeException("Fetch HTML failed: " + url, e);
+    }
+  }
+
+  /**
+   * 串流下載＋增量解析：每當一個 &lt;article&gt; 結束就檢查正文量，足夠就停止讀取 socket。
+   * 提前停止或截斷的頁面也寫入 HtmlCache（標記 partial），之後的條件式請求與 offline 重跑都能沿用；
+   * 未啟用快取時不複製 body。
+   */
+  private FetchedPage fetchStreaming(String url, Connection.Response res) throws IOException {
+    String finalUrl = res.url().toString();
+    CapturingInputStream in = new CapturingInputStream(res.bodyStream(), cache.isEnabled());
+    BufferedInputStream buffered = new BufferedInputStream(in, PRESCAN_BYTES);
+    String charset = res.charset() != null ? res.charset() : sniffCharset(buffered).name();
+
+    boolean stoppedEarly = false;
+    Document doc;
+    try (StreamParser sp = new StreamParser(Parser.htmlParser())
+        .parse(new InputStreamReader(buffered, charset), finalUrl)) {
+      Element article;
+      while ((article = sp.selectNext("article")) != null) {
+        if (paragraphChars(article) >= MIN_ARTICLE_CHARS) {
+          sp.stop();
+          stoppedEarly = true;
+          break;
+        }
+      }
+      doc = sp.document();
+    }
+
+    FetchedPage page = new FetchedPage(url, finalUrl, in.captured(), charset, null, doc);
+    boolean truncated = warnIfTruncated(url, in.count());
+    if (stoppedEarly) {
+      log.debug("[Fetch] stopped after article container at {} bytes: {}", in.count(), url);
+    }
+    cache.store(page, res.header("ETag"), res.header("Last-Modified"), stoppedEarly || truncated);
+    return page;
+  }
+
+  /**
+   * Content-Type 沒有 charset 時判斷字元集（與 Jsoup 一次讀完 body 時的順序相同）：
+   * BOM（並略過 BOM）→ 前 PRESCAN_BYTES 內的 &lt;meta charset&gt; → UTF-8。
+   */
+  private static Charset sniffCharset(BufferedInputStream in) throws IOException {
+    in.mark(PRESCAN_BYTES);
+    byte[] head = in.readNBytes(PRESCAN_BYTES);
+    in.reset();
+    if (startsWith(head, 0xEF, 0xBB, 0xBF)) {
+      in.skipNBytes(3);
+      return StandardCharsets.UTF_8;
+    }
+    if (startsWith(head, 0xFE, 0xFF)) {
+      in.skipNBytes(2);
+      return StandardCharsets.UTF_16BE;
+    }
+    if (startsWith(head, 0xFF, 0xFE)) {
+      in.skipNBytes(2);
+      return StandardCharsets.UTF_16LE;
+    }
+    Matcher m = META_CHARSET.matcher(new String(head, StandardCharsets.ISO_8859_1));
+    if (m.find()) {
+      try {
+        Charset cs = Charset.forName(m.group(1));
+        // 能讀到 ASCII 的 meta 就不可能是 UTF-16（HTML 規範同樣改用 UTF-8）
+        return cs.name().startsWith("UTF-16") ? StandardCharsets.UTF_8 : cs;
+      } catch (IllegalArgumentException ignored) {
+        // 不認得的名稱：退回 UTF-8
+      }
+    }
+    return StandardCharsets.UTF_8;
+  }
+
+  private static boolean startsWith(byte[] bytes, int... prefix) {
+    if (bytes.length < prefix.length) return false;
+    for (int i = 0; i < prefix.length; i++) {
+      if ((bytes[i] & 0xff) != prefix[i]) return false;
+    }
+    return true;
+  }
+
+  private static void requireHtml(String url, Connection.Response res) {
+    String ct = res.contentType();
+    if (ct == null) return;
+    String lc = ct.toLowerCase(Locale.ROOT);
+    if (!lc.contains("html")) {
+      throw new RuntimeException("Unsupported content type " + ct + ": " + url);
+    }
+  }
+
+  private boolean warnIfTruncated(String url, long bytes) {
+    if (maxBodyBytes > 0 && bytes >= maxBodyBytes) {
+      log.warn("[Fetch] body truncated at {} bytes: {}", maxBodyBytes, url);
+      return true;
+    }
+    return false;
+  }
+
+  private static int paragraphChars(Element container) {
+    int n = 0;
+    for (Element p : container.select("p")) n += p.text().length();
+    return n;
+  }
+
+  /** 只做 CPU：解析已下載的 body 並抽取（快取中有同版本抽取結果時直接沿用）。 */
+  public ExtractedArticle parse(FetchedPage page) {
+    if (page.cachedExtraction() != null) return page.cachedExtraction();
+    try {
+      Document doc = page.document() != null
+          ? page.document()
+          : Jsoup.parse(new ByteArrayInputStream(page.body()), page.charset(), page.finalUrl());
+      ExtractedArticle ex = extract(doc);
+      cache.storeExtraction(page.url(), EXTRACTOR_VERSION, ex);
+      return ex;
+    } catch (IOException e) {
+      throw new RuntimeException("Parse HTML failed: " + page.url(), e);
+    }
+  }
+
+  /** 以目前抽取規則重跑快取中的原始 HTML（不連網）；沒有快取時回傳 empty。 */
+  public Optional<ExtractedArticle> reextractCached(String url) {
+    return cache.lookup(url).map(e ->
+        parse(new FetchedPage(e.url(), e.finalUrl(), cache.readBody(e.url()), e.charset(), null, null)));
+  }
+
+  private FetchedPage fromCache(HtmlCache.Entry e) {
+    ExtractedArticle reusable = e.extractorVersion() == EXTRACTOR_VERSION ? e.extracted() : null;
+    return new FetchedPage(e.url(), e.finalUrl(), cache.readBody(e.url()), e.charset(), reusable, null);
+  }
+
+  /**
+   * 由已解析的 Document 抽取全部欄位。
+   * 注意：全頁 fallback 會就地移除 nav/header 等節點，因此標題與 metadata 必須先讀。
+   */
+  public ExtractedArticle extract(Document doc) {
+    String title = extractTitle(doc);
+    String canonical = attrOf(doc.selectFirst("link[rel=canonical]"), "abs:href");
+    if (isBlank(canonical)) canonical = attrOf(doc.selectFirst("meta[property=og:url]"), "content");
+    String siteName = attrOf(doc.selectFirst("meta[property=og:site_name]"), "content");
+    String lang = attrOf(doc.selectFirst("html[lang]"), "lang");
+
+    Body body = extractBody(doc);
+    String cleaned = String.join("\n\n", body.paragraphs());
+
+    return new ExtractedArticle(
+        isBlank(doc.location()) ? null : doc.location(),
+        title,
+        body.paragraphs(),
+        cleaned,
+        sha256(cleaned),
+        canonical,
+        siteName,
+        lang,
+        body.strategy());
+  }
 
   /** 抓取原始 HTML 字串（含 redirect、UA、Accept-Language）。 */
   public String fetchHtml(String url) {
@@ -61,34 +312,66 @@ public class JsoupFetcher {
   /** 將 HTML 解析為純文字段落（\n\n 分段），帶站台特化（BBC）與多層 fallback。 */
   public String cleanToParagraphs(String html) {
     if (isBlank(html)) return "";
-    Document doc = Jsoup.parse(html);
+    return String.join("\n\n", extractBody(Jsoup.parse(html)).paragraphs());
+  }
+
+  /** 從 HTML 擷取標題（優先 og:title → <title> → 第一個 h1）。 */
+  public String extractTitle(String html) {
+    if (isBlank(html)) return null;
+    return extractTitle(Jsoup.parse(html));
+  }
+
+  /** SHA‑256 雜湊（用於內容去重）。 */
+  public String sha256(String input) {
+    try {
+      MessageDigest md = MessageDigest.getInstance("SHA-256");
+      return HEX.formatHex(md.digest(input.getBytes(StandardCharsets.UTF_8)));
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  // ====== 內部實作 ======
 
-    // 判斷是否為 BBC 頁面（不依賴 baseUri；以內容特徵判斷）
-    boolean isBBC = isBBC(doc);
+  /** 抽取出的正文段落與勝出的策略名稱（例如 "bbc"、"generic/article"、"jsonld"）。 */
+  private record Body(List<String> paragraphs, String strategy) {}
 
-    if (isBBC) {
-      String bbc = extractFromBBC(doc);
-      if (!isBlank(bbc)) return cleanText(bbc);
+  /**
+   * 正文段落抽取：站台抽取器（依 host / fingerprint 分派）→ 一般抽取 → JSON-LD → 全頁 fallback。
+   * 站台抽取器抽不到時先試 JSON-LD（站台頁面通常有 articleBody），再走一般流程。
+   */
+  private Body extractBody(Document doc) {
+    // 先走訪一次 DOM 標記噪音子樹，後續段落收集只做 O(1) 查表
+    NoiseIndex noise = NoiseIndex.build(doc);
+
+    Optional<SiteExtractor> site = registry.resolve(doc.location(), doc);
+    boolean triedJsonLd = false;
+    if (site.isPresent()) {
+      String name = site.get().name();
+      String text = site.get().extract(doc, noise);
+      if (!isBlank(text)) return new Body(cleanLines(text), name);
+
+      String jsonld = extractFromJsonLd(doc);
+      if (!isBlank(jsonld)) return new Body(cleanLines(jsonld), name + "/jsonld");
+      triedJsonLd = true;
     }
 
-    // 一般抽取（article / 常見容器）
-    String generic = extractGeneric(doc);
-    if (!isBlank(generic)) return cleanText(generic);
+    // 一般抽取（article / 常見容器 / body）
+    Body generic = extractGeneric(doc, noise);
+    if (generic != null) return generic;
 
     // JSON-LD fallback（articleBody / text）
-    String jsonld = extractFromJsonLd(doc);
-    if (!isBlank(jsonld)) return cleanText(jsonld);
+    if (!triedJsonLd) {
+      String jsonld = extractFromJsonLd(doc);
+      if (!isBlank(jsonld)) return new Body(cleanLines(jsonld), "jsonld");
+    }
 
     // 全頁 fallback
-    String fallback = extractWholePageFallback(doc);
-    return cleanText(fallback);
+    String fallback = extractWholePageFallback(doc, noise);
+    return new Body(cleanLines(fallback), "fallback");
   }
 
-  /** 從 HTML 擷取標題（優先 og:title → <title> → 第一個 h1）。 */
-  public String extractTitle(String html) {
-    if (isBlank(html)) return null;
-    Document doc = Jsoup.parse(html);
-
+  private String extractTitle(Document doc) {
     // og:title
     Element og = doc.selectFirst("meta[property=og:title], meta[name=og:title]");
     if (og != null && og.hasAttr("content")) {
@@ -108,110 +391,49 @@ public class JsoupFetcher {
     return null;
   }
 
-  /** SHA‑256 雜湊（用於內容去重）。 */
-  public String sha256(String input) {
-    try {
-      MessageDigest md = MessageDigest.getInstance("SHA-256");
-      byte[] hash = md.digest(input.getBytes(StandardCharsets.UTF_8));
-      StringBuilder hex = new StringBuilder();
-      for (byte b : hash) hex.append(String.format("%02x", b));
-      return hex.toString();
-    } catch (Exception e) {
-      throw new RuntimeException(e);
-    }
+  private static String attrOf(Element el, String attr) {
+    if (el == null) return null;
+    String v = el.attr(attr);
+    return isBlank(v) ? null : v.trim();
   }
 
-  // ====== 內部實作 ======
-
   private Connection connect(String url) {
     return Jsoup.connect(url)
         .userAgent(USER_AGENT)
         .timeout((int) TIMEOUT.toMillis())
+        .maxBodySize(maxBodyBytes)
+        .ignoreContentType(true) // 改由 requireHtml 自行判斷，錯誤訊息較明確
         .followRedirects(true)
         .header("Accept-Language", "en-US,en;q=0.9,zh-TW;q=0.8,zh;q=0.7");
   }
 
-  /** 以內容特徵判斷是否為 BBC 頁面（避免依賴 baseUri）。 */
-  private boolean isBBC(Document doc) {
-    // og:site_name=BBC 或 canonical 指向 bbc.com/news
-    if (doc.selectFirst("meta[property=og:site_name][content*=BBC]") != null) return true;
-    if (doc.selectFirst("link[rel=canonical][href*=bbc.com]") != null) return true;
-    // 常見 BBC 正文容器特徵
-    if (!doc.select("[data-component=text-block]").isEmpty()) return true;
-    return false;
-  }
-
-  /**
-   * BBC 新版正文抽取：
-   *  - 只取 [data-component=text-block] 裡的 <p>
-   *  - 可選取 [data-component=quote-block] 的 quotes
-   *  - 排除相關連結模組（links-list/topic-list/related 等）、單一 <a> 段落
-   */
-  private String extractFromBBC(Document doc) {
-    List<String> lines = new ArrayList<>();
-
-    // 1) 正文段落
-    Elements paras = doc.select("[data-component=text-block] p");
-    for (Element p : paras) {
-      if (isNoise(p)) continue;
-
-      // 排除只有單一 <a> 的段落（多半是「相關閱讀」）
-      if (p.children().size() == 1 && "a".equals(p.child(0).tagName())
-          && p.text().equals(p.child(0).text())) {
-        continue;
-      }
-
-      String t = p.text();
-      if (!isBlank(t)) lines.add(t);
-    }
-
-    // 2) 引言（可選）
-    Elements quotes = doc.select("[data-component=quote-block] blockquote, [data-component=quote-block] q");
-    for (Element q : quotes) {
-      if (isNoise(q)) continue;
-      String t = q.text();
-      if (!isBlank(t)) lines.add(t);
-    }
-
-    String joined = joinLines(lines);
-    if (!isBlank(joined)) return joined;
-
-    // 3) JSON‑LD fallback
-    String jsonld = extractFromJsonLd(doc);
-    if (!isBlank(jsonld)) return jsonld;
-
-    // 4) 一般抽取
-    return extractGeneric(doc);
-  }
-
   /**
    * 一般站點抽取：優先 <article>，再嘗試常見容器，最後全頁段落。
    */
-  private String extractGeneric(Document doc) {
+  private Body extractGeneric(Document doc, NoiseIndex noise) {
     // 先嘗試 <article>
-    Element article = doc.selectFirst("article");
+    Element article = doc.selectFirst(ARTICLE);
     if (article != null) {
-      String fromArticle = collectParagraphLike(article);
-      if (!isBlank(fromArticle)) return fromArticle;
+      String fromArticle = collectParagraphLike(article, noise);
+      if (!isBlank(fromArticle)) return new Body(cleanLines(fromArticle), "generic/article");
     }
 
     // 常見容器
-    Elements containers = doc.select(
-        "main, .content, .post, .article, .entry-content, #content, .rich-text, .story-body");
-    for (Element c : containers) {
-      String t = collectParagraphLike(c);
-      if (!isBlank(t) && t.length() >= 200) return t; // 避免抓到過短區塊
+    for (Element c : doc.select(CONTAINERS)) {
+      String t = collectParagraphLike(c, noise);
+      if (!isBlank(t) && t.length() >= 200) return new Body(cleanLines(t), "generic/container"); // 避免抓到過短區塊
     }
 
     // 退回：全頁 p/li/h* 等
-    return collectParagraphLike(doc.body());
+    String body = collectParagraphLike(doc.body(), noise);
+    return isBlank(body) ? null : new Body(cleanLines(body), "generic/body");
   }
 
   /**
    * 解析所有 <script type="application/ld+json">，擷取 articleBody/text。
    */
   private String extractFromJsonLd(Document doc) {
-    Elements scripts = doc.select("script[type=application/ld+json]");
+    Elements scripts = doc.select(JSON_LD);
     List<String> bodies = new ArrayList<>();
 
     for (Element s : scripts) {
@@ -266,23 +488,23 @@ public class JsoupFetcher {
   /**
    * 防呆「全頁 fallback」：抓 body 內 p/h1-h6/li/blockquote，濾掉常見噪音。
    */
-  private String extractWholePageFallback(Document doc) {
+  private String extractWholePageFallback(Document doc, NoiseIndex noise) {
     if (doc.body() == null) return "";
     // 移除常見噪音
     doc.select("nav, footer, header, aside, script, style, noscript, form, button, input, textarea, figure, figcaption, svg, video, audio")
         .remove();
-    return collectParagraphLike(doc.body());
+    return collectParagraphLike(doc.body(), noise);
   }
 
   /**
    * 從容器收集「類段落」節點：p, h1-h6, li, blockquote；去重保序。
    */
-  private String collectParagraphLike(Element root) {
+  private String collectParagraphLike(Element root, NoiseIndex noise) {
     if (root == null) return "";
-    Elements nodes = root.select("p, h1, h2, h3, h4, h5, h6, li, blockquote");
+    Elements nodes = root.select(PARAGRAPH_LIKE);
     List<String> lines = new ArrayList<>();
     for (Element el : nodes) {
-      if (isNoise(el)) continue;
+      if (noise.isNoise(el)) continue;
       String t = el.text();
       if (!isBlank(t)) lines.add(t);
     }
@@ -291,64 +513,41 @@ public class JsoupFetcher {
   }
 
   /**
-   * 噪音判斷：分享/導覽/廣告/推薦模組等；含 BBC 的 links-list/topic-list/related 等排除。
+   * 統一清洗（單次字元掃描，取代多次 replace + regex）：
+   * 換行正規化、NBSP 視為空白、移除零寬空白、連續空白壓成一個、修剪每行首尾、丟棄空行。
    */
-  private boolean isNoise(Element el) {
-    String cls = String.join(" ", el.classNames()).toLowerCase(Locale.ROOT);
-    String id = el.id() == null ? "" : el.id().toLowerCase(Locale.ROOT);
-    String blob = cls + " " + id;
-
-    // 通用雜訊
-    if (blob.contains("share") || blob.contains("social") || blob.contains("breadcrumb")
-        || blob.contains("comment") || blob.contains("subscribe")
-        || blob.contains("advert") || blob.contains(" ad-") || blob.contains("-ad-")
-        || blob.contains("sponsor") || blob.contains("promo")
-        || blob.contains("nav") || blob.contains("footer") || blob.contains("header")
-        || blob.contains("btn") || blob.contains("button")) {
-      return true;
-    }
-
-    // BBC 常見「相關/推薦/主題列表」容器：用 closest(...) 判斷祖先（注意：closest 回傳單一 Element 或 null）
-    if (el.closest("[data-component=links-list], [data-component=topic-list], [data-component=tag-list], " +
-                   "[data-component=unordered-list-block], [data-component=ordered-list-block], " +
-                   "[data-component=related-content], [data-component=story-package]") != null) {
-      return true;
-    }
-
-    // 祖先語意判斷
-    Element sec = el.closest("section, aside, nav");
-    if (sec != null) {
-      String aria = (sec.hasAttr("aria-label") ? sec.attr("aria-label") : "") + " " +
-                    (sec.hasAttr("aria-labelledby") ? sec.attr("aria-labelledby") : "");
-      String ariaLc = aria.toLowerCase(Locale.ROOT);
-      if (ariaLc.contains("related") || ariaLc.contains("more on this story")
-          || ariaLc.contains("more") || ariaLc.contains("you may also like")) {
-        return true;
+  private static List<String> cleanLines(String raw) {
+    List<String> lines = new ArrayList<>();
+    if (raw == null) return lines;
+
+    StringBuilder line = new StringBuilder();
+    boolean pendingSpace = false;
+    for (int i = 0, n = raw.length(); i < n; i++) {
+      char c = raw.charAt(i);
+      if (c == '\n' || c == '\r') {
+        flushLine(line, lines);
+        pendingSpace = false;
+      } else if (c == '\u200B') {
+        // 零寬空白：直接丟棄
+      } else if (c <= ' ' || c == '\u00A0') {
+        pendingSpace = line.length() > 0; // 行首空白不保留；行中延後到下一個字元才補一個空白
+      } else {
+        if (pendingSpace) {
+          line.append(' ');
+          pendingSpace = false;
+        }
+        line.append(c);
       }
     }
-
-    // 只有單一 <a> 的段落：視為噪音（多半是「相關閱讀」）
-    if ("p".equals(el.tagName()) && el.children().size() == 1 && "a".equals(el.child(0).tagName())) {
-      return true;
-    }
-
-    return false;
+    flushLine(line, lines);
+    return lines;
   }
 
-  /** 統一清洗：去多空白、合併連續空行、修剪首尾。 */
-  private String cleanText(String raw) {
-    if (raw == null) return "";
-    String s = raw.replace("\r\n", "\n").replace('\r', '\n');
-    s = s.replace("\u00A0", " ").replace("\u200B", "");
-    s = MULTI_SPACE.matcher(s).replaceAll(" ");
-    s = MULTI_NL.matcher(s).replaceAll("\n\n");
-
-    List<String> lines = s.lines()
-        .map(String::trim)
-        .filter(line -> !line.isEmpty())
-        .collect(Collectors.toList());
-
-    return String.join("\n\n", lines).trim();
+  private static void flushLine(StringBuilder line, List<String> out) {
+    if (line.length() > 0) {
+      out.add(line.toString());
+      line.setLength(0);
+    }
   }
 
   private static String joinLines(List<String> lines) {
@@ -360,6 +559,45 @@ public class JsoupFetcher {
     return String.join("\n\n", filtered);
   }
 
+  /** 將讀到的 body 同步複製一份（供 HtmlCache 使用），並記錄已讀位元組數。 */
+  private static final class CapturingInputStream extends FilterInputStream {
+    private final ByteArrayOutputStream copy;
+    private long count;
+
+    CapturingInputStream(InputStream in, boolean capture) {
+      super(in);
+      this.copy = capture ? new ByteArrayOutputStream() : null;
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = super.read();
+      if (b >= 0) {
+        count++;
+        if (copy != null) copy.write(b);
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] buf, int off, int len) throws IOException {
+      int n = super.read(buf, off, len);
+      if (n > 0) {
+        count += n;
+        if (copy != null) copy.write(buf, off, n);
+      }
+      return n;
+    }
+
+    long count() {
+      return count;
+    }
+
+    byte[] captured() {
+      return copy == null ? new byte[0] : copy.toByteArray();
+    }
+  }
+
   private static boolean isBlank(String s) {
     return s == null || s.trim().isEmpty();
   }
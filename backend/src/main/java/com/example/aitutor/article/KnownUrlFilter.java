@@ -0,0 +1,99 @@
+package com.example.aitutor.article;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 已知網址 / 內容雜湊的記憶體 Bloom filter：回答「一定沒有」時直接略過 DB 查詢。
+ *
+ * 啟動時從 article（source_url 正規化後、content_hash）與 article_url_alias 載入，之後每次寫入同步加入。
+ * 載入完成前一律回答「可能有」（照常查 DB）。舊資料的 source_url 若與正規化結果不同，
+ * 載入時順便補一筆別名，讓以正規化網址查詢也能命中。
+ */
+@Slf4j
+@Component
+public class KnownUrlFilter {
+
+  private static final int LOAD_BATCH = 1000;
+
+  private final ArticleRepository repo;
+  private final ArticleUrlAliasRepository aliases;
+  private final boolean enabled;
+  private final BloomFilter urls;
+  private final BloomFilter contentHashes;
+  private volatile boolean ready;
+
+  public KnownUrlFilter(ArticleRepository repo,
+                        ArticleUrlAliasRepository aliases,
+                        @Value("${ingest.known-filter.enabled:true}") boolean enabled,
+                        @Value("${ingest.known-filter.expected:1000000}") long expected,
+                        @Value("${ingest.known-filter.fpp:0.01}") double fpp) {
+    this.repo = repo;
+    this.aliases = aliases;
+    this.enabled = enabled;
+    this.urls = new BloomFilter(enabled ? expected * 2 : 1, fpp);   // 每篇約 source_url + 1 個別名
+    this.contentHashes = new BloomFilter(enabled ? expected : 1, fpp);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void load() {
+    if (!enabled) return;
+    long t0 = System.nanoTime();
+    int articles = 0, aliasCount = 0, backfilled = 0;
+
+    long afterId = 0;
+    while (true) {
+      List<ArticleRepository.KnownRow> rows = repo.findKnownAfter(afterId, PageRequest.of(0, LOAD_BATCH));
+      if (rows.isEmpty()) break;
+      for (ArticleRepository.KnownRow r : rows) {
+        if (r.getSourceUrl() != null) {
+          String canonical = UrlCanonicalizer.canonicalize(r.getSourceUrl());
+          urls.add(canonical);
+          if (!canonical.equals(r.getSourceUrl())) backfilled += aliases.insertIgnore(canonical, r.getId());
+        }
+        if (r.getContentHash() != null) contentHashes.add(r.getContentHash());
+        afterId = r.getId();
+        articles++;
+      }
+    }
+
+    String afterUrl = "";
+    while (true) {
+      List<String> batch = aliases.findUrlsAfter(afterUrl, PageRequest.of(0, LOAD_BATCH));
+      if (batch.isEmpty()) break;
+      batch.forEach(urls::add);
+      aliasCount += batch.size();
+      afterUrl = batch.get(batch.size() - 1);
+    }
+
+    ready = true;
+    log.info("[KnownUrls] loaded {} articles, {} aliases ({} backfilled) in {} ms, filter {} KB",
+        articles, aliasCount, backfilled, (System.nanoTime() - t0) / 1_000_000,
+        (urls.sizeInBytes() + contentHashes.sizeInBytes()) / 1024);
+  }
+
+  /** false = 一定沒有這個（已正規化的）網址；true = 可能有，需查 DB。 */
+  public boolean mightContainUrl(String canonicalUrl) {
+    return !enabled || !ready || urls.mightContain(canonicalUrl);
+  }
+
+  /** false = 一定沒有這個內容雜湊；true = 可能有，需查 DB。 */
+  public boolean mightContainContentHash(String contentHash) {
+    return !enabled || !ready || contentHashes.mightContain(contentHash);
+  }
+
+  public void addUrl(String canonicalUrl) {
+    if (enabled && canonicalUrl != null) urls.add(canonicalUrl);
+  }
+
+  public void addContentHash(String contentHash) {
+    if (enabled && contentHash != null) contentHashes.add(contentHash);
+  }
+}
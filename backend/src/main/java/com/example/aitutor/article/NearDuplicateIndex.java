@@ -0,0 +1,119 @@
+package com.example.aitutor.article;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 近似重複文章索引（SimHash + 分段查表）。
+ *
+ * 64-bit 指紋切成 maxDistance+1 段；依鴿籠原理，distance ≤ maxDistance 的兩個指紋至少有一段完全相同，
+ * 因此只需比對「任一段相同」的候選，查詢成本與 article 表大小無關。
+ *
+ * 啟動時從 DB 載入（並補算舊資料的 simhash），之後每次寫入文章時同步加入。
+ */
+@Slf4j
+@Component
+public class NearDuplicateIndex {
+
+  public record Match(long articleId, int distance) {}
+
+  private record Entry(long articleId, long simhash) {}
+
+  private static final int BACKFILL_BATCH = 200;
+
+  private final ArticleRepository repo;
+  private final boolean enabled;
+  private final int maxDistance;
+  private final int bands;
+  private final int bandBits;
+  private final Map<Long, List<Entry>> buckets = new ConcurrentHashMap<>();
+
+  public NearDuplicateIndex(ArticleRepository repo,
+                            @Value("${ingest.near-duplicate.enabled:true}") boolean enabled,
+                            @Value("${ingest.near-duplicate.max-distance:3}") int maxDistance) {
+    this.repo = repo;
+    this.enabled = enabled;
+    this.maxDistance = Math.max(0, Math.min(maxDistance, 7));
+    this.bands = this.maxDistance + 1;
+    this.bandBits = 64 / bands;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void load() {
+    if (!enabled) return;
+    int backfilled = backfill();
+    int n = 0;
+    for (ArticleRepository.SimhashRow row : repo.findAllSimhashes()) {
+      add(row.getId(), row.getSimhash());
+      n++;
+    }
+    log.info("[NearDup] indexed {} article(s) ({} backfilled), maxDistance={}, bands={}", n, backfilled, maxDistance, bands);
+  }
+
+  /** 找出最相近且 distance ≤ maxDistance 的既有文章。 */
+  public Optional<Match> findNearest(long simhash) {
+    if (!enabled) return Optional.empty();
+    Match best = null;
+    for (int b = 0; b < bands; b++) {
+      List<Entry> bucket = buckets.get(bandKey(b, simhash));
+      if (bucket == null) continue;
+      for (Entry e : bucket) {
+        int d = SimHash.distance(simhash, e.simhash());
+        if (d <= maxDistance && (best == null || d < best.distance())) best = new Match(e.articleId(), d);
+      }
+    }
+    return Optional.ofNullable(best);
+  }
+
+  /** 兩個指紋是否算近似重複（未啟用時一律 false）；用於比對尚未寫入索引的文章。 */
+  public boolean isNear(long a, long b) {
+    return enabled && SimHash.distance(a, b) <= maxDistance;
+  }
+
+  public void add(long articleId, long simhash) {
+    if (!enabled) return;
+    Entry e = new Entry(articleId, simhash);
+    for (int b = 0; b < bands; b++) {
+      buckets.computeIfAbsent(bandKey(b, simhash), k -> new CopyOnWriteArrayList<>()).add(e);
+    }
+  }
+
+  /** 舊資料沒有 simhash：分批補算並寫回（過短文章算不出指紋，維持 null）。 */
+  private int backfill() {
+    int total = 0;
+    long afterId = 0;
+    while (true) {
+      List<Article> batch = repo.findBySimhashIsNullAndIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, BACKFILL_BATCH));
+      if (batch.isEmpty()) return total;
+      for (Article a : batch) {
+        Long fp = SimHash.of(a.getCleanedText());
+        if (fp != null) {
+          repo.updateSimhash(a.getId(), fp);
+          total++;
+        }
+        afterId = a.getId();
+      }
+    }
+  }
+
+  private long bandKey(int band, long simhash) {
+    long mask = bandBits == 64 ? -1L : (1L << bandBits) - 1;
+    long value = (simhash >>> (band * bandBits)) & mask;
+    return ((long) band << 56) ^ value;
+  }
+}
@@ -0,0 +1,113 @@
+package com.example.aitutor.article;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Locale;
+import java.util.Set;
+
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.select.NodeTraversor;
+import org.jsoup.select.NodeVisitor;
+
+/**
+ * 噪音節點索引：走訪 DOM 一次，標記所有噪音元素；之後 isNoise 為 O(1) 查表，
+ * 段落收集因此是線性掃描（不再對每個候選節點做 closest(...) 往上找祖先）。
+ *
+ * 整棵子樹標記為噪音：
+ *   - 相關/連結列表元件（data-component=links-list / topic-list / related-content ...）
+ *   - 最近一層 section/aside/nav 的 aria-label(ledby) 含 related / more / you may also like
+ *   - class/id 含分享、社群、廣告、贊助、推廣字樣（share / social / advert / ad- / sponsor / promo）
+ * 僅元素本身視為噪音：
+ *   - class/id 含 nav / footer / header / btn / button / breadcrumb / comment / subscribe
+ *     （這些字常出現在包住正文的外層容器上，例如 "article-header-wrapper"，不往下擴散）
+ *   - 只有單一 &lt;a&gt; 的 &lt;p&gt;（多半是「相關閱讀」）
+ */
+public final class NoiseIndex {
+
+  private static final Set<String> RELATED_COMPONENTS = Set.of(
+      "links-list", "topic-list", "tag-list",
+      "unordered-list-block", "ordered-list-block",
+      "related-content", "story-package");
+
+  private static final String[] SUBTREE_KEYWORDS = {
+      "share", "social", "advert", " ad-", "-ad-", "sponsor", "promo"};
+
+  private static final String[] SELF_KEYWORDS = {
+      "breadcrumb", "comment", "subscribe", "nav", "footer", "header", "btn", "button"};
+
+  private static final String[] RELATED_ARIA = {
+      "related", "more on this story", "more", "you may also like"};
+
+  private final Set<Element> noise = Collections.newSetFromMap(new IdentityHashMap<>());
+
+  private NoiseIndex() {}
+
+  static NoiseIndex build(Element root) {
+    NoiseIndex index = new NoiseIndex();
+    if (root != null) NodeTraversor.traverse(index.new Marker(), root);
+    return index;
+  }
+
+  public boolean isNoise(Element el) {
+    return noise.contains(el);
+  }
+
+  /** 走訪時以堆疊傳遞祖先狀態：bit0 = 子樹噪音、bit1 = 最近一層 section/aside/nav 為 related。 */
+  private final class Marker implements NodeVisitor {
+    private static final int SUBTREE = 1;
+    private static final int RELATED_SECTION = 2;
+
+    private final Deque<Integer> inherited = new ArrayDeque<>();
+
+    @Override
+    public void head(Node node, int depth) {
+      if (!(node instanceof Element el)) return;
+
+      int parent = inherited.isEmpty() ? 0 : inherited.peek();
+      boolean subtree = (parent & SUBTREE) != 0;
+      boolean relatedSection = (parent & RELATED_SECTION) != 0;
+
+      String tag = el.normalName();
+      if ("section".equals(tag) || "aside".equals(tag) || "nav".equals(tag)) {
+        relatedSection = hasRelatedAria(el);
+      }
+      if (!subtree && RELATED_COMPONENTS.contains(el.attr("data-component"))) {
+        subtree = true;
+      }
+
+      boolean self = false;
+      if (!subtree && (el.hasAttr("class") || el.hasAttr("id"))) {
+        String blob = (el.className() + " " + el.id()).toLowerCase(Locale.ROOT);
+        if (containsAny(blob, SUBTREE_KEYWORDS)) subtree = true;
+        else self = containsAny(blob, SELF_KEYWORDS);
+      }
+      if (!self && "p".equals(tag) && el.childrenSize() == 1 && "a".equals(el.child(0).normalName())) {
+        self = true;
+      }
+
+      if (subtree || relatedSection || self) noise.add(el);
+      inherited.push((subtree ? SUBTREE : 0) | (relatedSection ? RELATED_SECTION : 0));
+    }
+
+    @Override
+    public void tail(Node node, int depth) {
+      if (node instanceof Element) inherited.pop();
+    }
+  }
+
+  private static boolean hasRelatedAria(Element sec) {
+    if (!sec.hasAttr("aria-label") && !sec.hasAttr("aria-labelledby")) return false;
+    String aria = (sec.attr("aria-label") + " " + sec.attr("aria-labelledby")).toLowerCase(Locale.ROOT);
+    return containsAny(aria, RELATED_ARIA);
+  }
+
+  private static boolean containsAny(String s, String[] keywords) {
+    for (String k : keywords) {
+      if (s.contains(k)) return true;
+    }
+    return false;
+  }
+}
@@ -0,0 +1,92 @@
+package com.example.aitutor.article;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 段落位移索引：cleaned_text 中每個段落的 [start, end)（以 code point 計，與 Postgres substring 一致），
+ * 攤平成 [s0, e0, s1, e1, ...] 存在 article.paragraph_offsets。
+ *
+ * 段落分隔與舊有的 split("\\n\\n+") 相同：連續兩個以上換行；空段落不收錄。
+ * 寫入時算一次，之後讀取只需依位移切字串，不必再跑 regex，也能只讀部分段落。
+ */
+public final class ParagraphIndex {
+
+  private ParagraphIndex() {}
+
+  /** 掃描全文一次，回傳攤平的段落位移。 */
+  public static List<Integer> of(String text) {
+    List<Integer> offsets = new ArrayList<>();
+    if (text == null || text.isEmpty()) return offsets;
+
+    int cp = 0;          // 目前 code point 位置
+    int start = 0;       // 目前段落起點
+    int newlines = 0;    // 連續換行數
+    int end = 0;         // 目前段落最後一個非換行字元之後
+    for (int i = 0; i < text.length(); ) {
+      int c = text.codePointAt(i);
+      i += Character.charCount(c);
+      if (c == '\n') {
+        newlines++;
+      } else {
+        if (newlines >= 2) {
+          add(offsets, start, end);
+          start = cp;
+        }
+        newlines = 0;
+        end = cp + 1;
+      }
+      cp++;
+    }
+    add(offsets, start, end);
+    return offsets;
+  }
+
+  private static void add(List<Integer> offsets, int start, int end) {
+    if (end > start) {
+      offsets.add(start);
+      offsets.add(end);
+    }
+  }
+
+  public static int count(List<Integer> offsets) {
+    return offsets == null ? 0 : offsets.size() / 2;
+  }
+
+  /** 段落 [from, to) 覆蓋的 code point 範圍起點。 */
+  public static int rangeStart(List<Integer> offsets, int from) {
+    return offsets.get(2 * from);
+  }
+
+  /** 段落 [from, to) 覆蓋的 code point 範圍終點（不含）。 */
+  public static int rangeEnd(List<Integer> offsets, int to) {
+    return offsets.get(2 * (to - 1) + 1);
+  }
+
+  /**
+   * 依位移切出段落 [from, to)。
+   * chunk 是從 rangeStart(offsets, from) 開始的文字（可以是全文，也可以只是 DB 讀回的那一段）。
+   */
+  public static List<String> slice(String chunk, int chunkStart, List<Integer> offsets, int from, int to) {
+    List<String> out = new ArrayList<>(Math.max(0, to - from));
+    int cp = chunkStart;   // chunk 內目前位置對應的 code point
+    int idx = 0;           // chunk 內目前位置（UTF-16 index）
+    for (int p = from; p < to; p++) {
+      int s = offsets.get(2 * p);
+      int e = offsets.get(2 * p + 1);
+      int begin = chunk.offsetByCodePoints(idx, s - cp);
+      int stop = chunk.offsetByCodePoints(begin, e - s);
+      out.add(chunk.substring(begin, stop));
+      idx = stop;
+      cp = e;
+    }
+    return out;
+  }
+
+  /** 整篇切段（已有位移時不跑 regex）。 */
+  public static List<String> split(String text, List<Integer> offsets) {
+    if (text == null || text.isEmpty()) return List.of();
+    if (offsets == null) offsets = of(text);
+    return slice(text, 0, offsets, 0, count(offsets));
+  }
+}
@@ -0,0 +1,88 @@
+package com.example.aitutor.article;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Evaluator;
+import org.jsoup.select.QueryParser;
+
+/**
+ * 以設定檔選擇器描述的站台抽取器（例如 BBC：[data-component=text-block] p + quote-block）。
+ * 選擇器於建構時編譯成 Evaluator，抽取時不再解析 CSS 字串。
+ */
+final class SelectorSiteExtractor implements SiteExtractor {
+
+  private final String name;
+  private final List<String> hosts;
+  private final Evaluator fingerprint;
+  private final Evaluator paragraphs;
+  private final Evaluator quotes;
+  private final boolean skipLinkOnlyParagraphs;
+
+  SelectorSiteExtractor(ExtractorProperties.Rule rule) {
+    if (rule.getName() == null || rule.getParagraphs() == null) {
+      throw new IllegalArgumentException("extractors.sites[*] 需要 name 與 paragraphs");
+    }
+    this.name = rule.getName();
+    this.hosts = List.copyOf(rule.getHosts());
+    this.fingerprint = compile(rule.getFingerprint());
+    this.paragraphs = compile(rule.getParagraphs());
+    this.quotes = compile(rule.getQuotes());
+    this.skipLinkOnlyParagraphs = rule.isSkipLinkOnlyParagraphs();
+  }
+
+  @Override
+  public String name() {
+    return name;
+  }
+
+  @Override
+  public List<String> hosts() {
+    return hosts;
+  }
+
+  @Override
+  public Evaluator fingerprint() {
+    return fingerprint;
+  }
+
+  @Override
+  public String extract(Document doc, NoiseIndex noise) {
+    List<String> lines = new ArrayList<>();
+
+    // 1) 正文段落
+    for (Element p : doc.select(paragraphs)) {
+      if (noise.isNoise(p)) continue;
+
+      // 排除只有單一 <a> 的段落（多半是「相關閱讀」）
+      if (skipLinkOnlyParagraphs && p.childrenSize() == 1 && "a".equals(p.child(0).normalName())
+          && p.text().equals(p.child(0).text())) {
+        continue;
+      }
+      String t = p.text();
+      if (!t.isBlank()) lines.add(t);
+    }
+
+    // 2) 引言（可選）
+    if (quotes != null) {
+      for (Element q : doc.select(quotes)) {
+        if (noise.isNoise(q)) continue;
+        String t = q.text();
+        if (!t.isBlank()) lines.add(t);
+      }
+    }
+
+    List<String> kept = new ArrayList<>(lines.size());
+    for (String l : lines) {
+      String t = l.trim();
+      if (t.length() >= 2) kept.add(t);
+    }
+    return String.join("\n\n", kept);
+  }
+
+  private static Evaluator compile(String css) {
+    return (css == null || css.isBlank()) ? null : QueryParser.parse(css);
+  }
+}
@@ -0,0 +1,75 @@
+package com.example.aitutor.article;
+
+import java.util.Arrays;
+
+/**
+ * 64-bit SimHash：以「連續 3 個詞」為 shingle，相似文章的指紋只差少數位元。
+ * 兩篇文章的相似度以 Hamming distance 衡量（distance 越小越像；0 = 幾乎相同）。
+ */
+public final class SimHash {
+
+  /** shingle 數少於此值的文章不做近似去重（短文指紋不穩定）。 */
+  public static final int MIN_SHINGLES = 20;
+
+  private static final int SHINGLE = 3;
+
+  private SimHash() {}
+
+  /** 計算指紋；文章過短時回傳 null。 */
+  public static Long of(String text) {
+    if (text == null) return null;
+
+    long[] words = wordHashes(text);
+    int shingles = words.length - SHINGLE + 1;
+    if (shingles < MIN_SHINGLES) return null;
+
+    int[] weights = new int[64];
+    for (int i = 0; i < shingles; i++) {
+      long h = words[i];
+      for (int k = 1; k < SHINGLE; k++) h = mix(h * 31 + words[i + k]);
+      for (int bit = 0; bit < 64; bit++) {
+        weights[bit] += ((h >>> bit) & 1L) != 0 ? 1 : -1;
+      }
+    }
+
+    long fp = 0;
+    for (int bit = 0; bit < 64; bit++) {
+      if (weights[bit] > 0) fp |= 1L << bit;
+    }
+    return fp;
+  }
+
+  public static int distance(long a, long b) {
+    return Long.bitCount(a ^ b);
+  }
+
+  /** 小寫英數字詞的 FNV-1a 雜湊（單次掃描，不建立中間字串）。 */
+  private static long[] wordHashes(String text) {
+    long[] out = new long[64];
+    int n = 0;
+    long h = 0;
+    boolean inWord = false;
+    for (int i = 0, len = text.length(); i <= len; i++) {
+      char c = i < len ? Character.toLowerCase(text.charAt(i)) : ' ';
+      if (Character.isLetterOrDigit(c)) {
+        if (!inWord) {
+          h = 0xcbf29ce484222325L;
+          inWord = true;
+        }
+        h = (h ^ c) * 0x100000001b3L;
+      } else if (inWord) {
+        if (n == out.length) out = Arrays.copyOf(out, n * 2);
+        out[n++] = h;
+        inWord = false;
+      }
+    }
+    return Arrays.copyOf(out, n);
+  }
+
+  /** 64-bit finalizer（SplitMix64），讓 shingle 雜湊的每個位元分布均勻。 */
+  private static long mix(long z) {
+    z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+    z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+    return z ^ (z >>> 31);
+  }
+}
@@ -0,0 +1,27 @@
+package com.example.aitutor.article;
+
+import java.util.List;
+
+import org.jsoup.nodes.Document;
+import org.jsoup.select.Evaluator;
+
+/**
+ * 站台特化的正文抽取器。ExtractorRegistry 依 canonical host（O(1) 查表）分派，
+ * host 查不到時才用 fingerprint 比對內容特徵；抽不到正文時回傳 null，交回一般流程。
+ *
+ * 除了設定檔（extractors.sites）定義的選擇器規則外，也可把實作註冊成 Spring bean。
+ */
+public interface SiteExtractor {
+
+  /** 名稱；會出現在 ExtractedArticle.extractor（例如 "bbc"、"bbc/jsonld"）。 */
+  String name();
+
+  /** 負責的 canonical host（例如 "bbc.com"）；子網域會往上比對到這一層。 */
+  List<String> hosts();
+
+  /** host 無法判斷時的內容特徵；null 表示不參與 fingerprint 比對。 */
+  Evaluator fingerprint();
+
+  /** 回傳以 \n\n 串接的正文；抽不到回傳 null 或空字串。 */
+  String extract(Document doc, NoiseIndex noise);
+}
@@ -0,0 +1,11 @@
+package com.example.aitutor.article;
+
+/**
+ * 依儲存格式原樣讀出的全文位元組：PLAIN 為 UTF-8 純文字，GZIP 為可直接當作 Content-Encoding: gzip 回傳的壓縮資料。
+ */
+public record StoredText(TextCodec codec, byte[] bytes) {
+
+  public String decode() {
+    return codec.decode(bytes);
+  }
+}
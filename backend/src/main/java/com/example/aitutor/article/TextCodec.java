@@ -0,0 +1,67 @@
+package com.example.aitutor.article;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 文章全文的儲存格式（article.text_codec）。
+ * PLAIN=存在 cleaned_text；GZIP=UTF-8 後 gzip 存在 cleaned_text_gz，可原封不動以 Content-Encoding: gzip 回傳。
+ */
+public enum TextCodec {
+  PLAIN("plain", null),
+  GZIP("gzip", "gzip");
+
+  private final String id;
+  private final String contentEncoding;
+
+  TextCodec(String id, String contentEncoding) {
+    this.id = id;
+    this.contentEncoding = contentEncoding;
+  }
+
+  /** 存在 text_codec 欄位的值。 */
+  public String id() {
+    return id;
+  }
+
+  /** 對應的 HTTP Content-Encoding；PLAIN 為 null。 */
+  public String contentEncoding() {
+    return contentEncoding;
+  }
+
+  public static TextCodec of(String id) {
+    if (id == null || id.isBlank()) return PLAIN;
+    for (TextCodec c : values()) {
+      if (c.id.equals(id.strip().toLowerCase(Locale.ROOT))) return c;
+    }
+    throw new IllegalArgumentException("Unknown text codec: " + id);
+  }
+
+  public byte[] encode(String text) {
+    byte[] raw = text.getBytes(StandardCharsets.UTF_8);
+    if (this == PLAIN) return raw;
+    ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 3 + 64);
+    try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+      gz.write(raw);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return out.toByteArray();
+  }
+
+  public String decode(byte[] bytes) {
+    if (this == PLAIN) return new String(bytes, StandardCharsets.UTF_8);
+    try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+      return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
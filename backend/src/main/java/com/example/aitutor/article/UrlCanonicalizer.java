@@ -0,0 +1,98 @@
+package com.example.aitutor.article;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 文章網址正規化：同一篇文章的不同網址變體收斂成同一個字串，作為 source_url / 別名 / single-flight 的 key。
+ *
+ *   - scheme、host 小寫；去掉預設 port、fragment
+ *   - 去掉追蹤參數（utm_*、fbclid、gclid…）與 AMP 參數，其餘參數依名稱排序
+ *   - AMP：amp. 子網域、/amp 路徑段、.amp 副檔名、Google AMP cache（*.cdn.ampproject.org/c/s/…）
+ *   - 去掉路徑結尾的 /（根路徑除外）
+ *
+ * 無法解析的網址原樣（trim 後）回傳。
+ */
+public final class UrlCanonicalizer {
+
+  private static final Set<String> TRACKING_PARAMS = Set.of(
+      "fbclid", "gclid", "dclid", "msclkid", "yclid", "igshid", "mc_cid", "mc_eid",
+      "_ga", "_gl", "ref_src", "ref_url", "cmpid", "ocid", "at_medium", "at_campaign", "at_custom1",
+      "at_custom2", "at_custom3", "at_custom4", "xtor", "amp", "outputtype");
+  private static final String AMP_CACHE_SUFFIX = ".cdn.ampproject.org";
+
+  private UrlCanonicalizer() {}
+
+  public static String canonicalize(String url) {
+    if (url == null) return null;
+    String trimmed = url.trim();
+    try {
+      URI u = new URI(trimmed);
+      String scheme = u.getScheme() == null ? null : u.getScheme().toLowerCase(Locale.ROOT);
+      String host = u.getHost() == null ? null : u.getHost().toLowerCase(Locale.ROOT);
+      if (host == null || !("http".equals(scheme) || "https".equals(scheme))) return trimmed;
+
+      String path = u.getRawPath() == null ? "" : u.getRawPath();
+
+      // Google AMP cache：https://www-bbc-com.cdn.ampproject.org/c/s/www.bbc.com/news/… → https://www.bbc.com/news/…
+      if (host.endsWith(AMP_CACHE_SUFFIX)) {
+        String rest = path.startsWith("/c/s/") ? path.substring(5) : path.startsWith("/c/") ? path.substring(3) : null;
+        if (rest != null && !rest.isEmpty()) {
+          int slash = rest.indexOf('/');
+          host = (slash < 0 ? rest : rest.substring(0, slash)).toLowerCase(Locale.ROOT);
+          path = slash < 0 ? "" : rest.substring(slash);
+          scheme = "https";
+        }
+      }
+      if (host.startsWith("amp.")) host = host.substring(4);
+
+      int port = u.getPort();
+      if (port == 80 && "http".equals(scheme) || port == 443 && "https".equals(scheme)) port = -1;
+
+      path = canonicalPath(path);
+      String query = canonicalQuery(u.getRawQuery());
+
+      StringBuilder sb = new StringBuilder(trimmed.length());
+      sb.append(scheme).append("://").append(host);
+      if (port >= 0) sb.append(':').append(port);
+      sb.append(path);
+      if (!query.isEmpty()) sb.append('?').append(query);
+      return sb.toString();
+    } catch (URISyntaxException e) {
+      return trimmed;
+    }
+  }
+
+  private static String canonicalPath(String path) {
+    if (path.isEmpty()) return "/";
+    String p = URI.create(path).normalize().getRawPath();
+    if (p == null || p.isEmpty()) return "/";
+
+    // AMP 路徑：/news/123/amp、/amp/news/123、/news/123.amp
+    if (p.endsWith("/amp") || p.endsWith("/amp/")) p = p.substring(0, p.lastIndexOf("/amp"));
+    if (p.startsWith("/amp/")) p = p.substring(4);
+    if (p.endsWith(".amp")) p = p.substring(0, p.length() - 4);
+    if (p.endsWith(".amp.html")) p = p.substring(0, p.length() - 9) + ".html";
+
+    while (p.length() > 1 && p.endsWith("/")) p = p.substring(0, p.length() - 1);
+    return p.isEmpty() ? "/" : p;
+  }
+
+  private static String canonicalQuery(String rawQuery) {
+    if (rawQuery == null || rawQuery.isEmpty()) return "";
+    List<String> kept = new ArrayList<>();
+    for (String pair : rawQuery.split("&")) {
+      if (pair.isEmpty()) continue;
+      int eq = pair.indexOf('=');
+      String name = (eq < 0 ? pair : pair.substring(0, eq)).toLowerCase(Locale.ROOT);
+      if (name.startsWith("utm_") || TRACKING_PARAMS.contains(name)) continue;
+      kept.add(pair);
+    }
+    kept.sort(null);
+    return String.join("&", kept);
+  }
+}
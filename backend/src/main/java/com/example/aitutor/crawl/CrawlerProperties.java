@@ -0,0 +1,50 @@
+package com.example.aitutor.crawl;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * 排程抓取設定（application.yml 的 crawler）。
+ * feeds 的 url 可以是 http(s) 或 file:（本機 RSS/Atom/sitemap 檔，測試用）。
+ */
+@Getter @Setter
+@Component
+@ConfigurationProperties(prefix = "crawler")
+public class CrawlerProperties {
+
+  /** 總開關；關閉時排程 tick 直接返回。 */
+  private boolean enabled = false;
+  /** 同時輪詢的 feed 數（每個 worker 依序匯入該 feed 的新文章，因此也是文章抓取的並行上限）。 */
+  private int workers = 4;
+  /** feed 未指定 interval 時的輪詢間隔。 */
+  private Duration defaultInterval = Duration.ofMinutes(30);
+  /** 連續失敗時的退避上限（間隔每次失敗加倍）。 */
+  private Duration maxBackoff = Duration.ofHours(6);
+  /** 每次輪詢最多抓取的新項目（由舊到新，其餘留給下次輪詢）；首次輪詢大型 sitemap 時避免一次灌入全部歷史。 */
+  private int maxItemsPerPoll = 50;
+  /** sitemap index 每次最多展開的子 sitemap 數（依 lastmod 取最新）。 */
+  private int maxChildSitemaps = 5;
+  /** feed/sitemap 下載上限（bytes）。 */
+  private int maxFeedBytes = 10 * 1024 * 1024;
+  private List<Feed> feeds = new ArrayList<>();
+
+  @Getter @Setter
+  public static class Feed {
+    /** 名稱（log 用）；未填時用 url。 */
+    private String name;
+    private String url;
+    /** 輪詢間隔；未填時用 defaultInterval。 */
+    private Duration interval;
+
+    public String label() {
+      return name == null || name.isBlank() ? url : name;
+    }
+  }
+}
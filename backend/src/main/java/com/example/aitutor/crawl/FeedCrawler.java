@@ -0,0 +1,280 @@
+package com.example.aitutor.crawl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.jsoup.Connection;
+import org.jsoup.Jsoup;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.aitutor.article.ArticleService;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * RSS/Atom/sitemap 排程抓取。
+ *
+ * 所有 feed 依下次輪詢時間放在一個 priority queue；排程 tick 只取出已到期的 feed 交給固定大小的 worker pool，
+ * 因此 tick 成本與 feed 總數無關（數百個 feed 也只是 O(到期數 · log n)）。
+ * 同一個 feed 在輪詢完成後才重新排入，不會重疊執行；連續失敗時間隔加倍（上限 maxBackoff）。
+ *
+ * 每次輪詢只處理比 high-water mark 新的項目（無日期的項目以網址是否已存在判斷），
+ * 由舊到新逐一交給 ArticleService.fetchAndSave；mark 只推進到第一個失敗的項目之前。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FeedCrawler {
+
+  private static final Duration TIMEOUT = Duration.ofSeconds(20);
+  private static final String USER_AGENT = "aitutor-crawler/1.0 (+feed reader)";
+
+  /**
+   * 單次輪詢結果。
+   *
+   * @param items   feed 內的項目數
+   * @param created 新匯入的文章數
+   * @param skipped 已存在或早於 high-water mark 的項目數
+   * @param failed  抓取/解析失敗的項目數
+   */
+  public record PollResult(String feedUrl, int items, int created, int skipped, int failed) {}
+
+  private record Due(CrawlerProperties.Feed feed, Instant at) {}
+
+  private record Fetched(byte[] body, String finalUrl, String etag, String lastModified, boolean notModified) {}
+
+  private final CrawlerProperties props;
+  private final FeedStateRepository states;
+  private final ArticleService articles;
+
+  private final PriorityQueue<Due> queue = new PriorityQueue<>(Comparator.comparing(Due::at));
+  private ExecutorService workers;
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    if (!props.isEnabled()) return;
+
+    // 同一網址只保留一筆設定
+    Map<String, CrawlerProperties.Feed> feeds = new LinkedHashMap<>();
+    for (CrawlerProperties.Feed f : props.getFeeds()) {
+      if (f.getUrl() != null && !f.getUrl().isBlank()) feeds.putIfAbsent(f.getUrl().strip(), f);
+    }
+    Map<String, FeedState> known = new LinkedHashMap<>();
+    states.findAllById(feeds.keySet()).forEach(s -> known.put(s.getFeedUrl(), s));
+
+    Instant now = Instant.now();
+    synchronized (queue) {
+      for (var e : feeds.entrySet()) {
+        FeedState s = known.get(e.getKey());
+        Instant at = s == null || s.getLastPolledAt() == null
+            ? now
+            : s.getLastPolledAt().plus(delayFor(e.getValue(), s.getConsecutiveFailures()));
+        queue.add(new Due(e.getValue(), at));
+      }
+    }
+    workers = Executors.newFixedThreadPool(Math.max(1, props.getWorkers()),
+        Thread.ofPlatform().name("feed-crawler-", 0).daemon(true).factory());
+    log.info("[Crawler] {} feeds scheduled, {} workers", feeds.size(), props.getWorkers());
+  }
+
+  @Scheduled(fixedDelayString = "${crawler.tick:PT15S}")
+  public void tick() {
+    if (workers == null) return;
+    Instant now = Instant.now();
+    List<Due> due = new ArrayList<>();
+    synchronized (queue) {
+      while (!queue.isEmpty() && !queue.peek().at().isAfter(now)) due.add(queue.poll());
+    }
+    for (Due d : due) workers.execute(() -> pollAndReschedule(d.feed()));
+  }
+
+  private void pollAndReschedule(CrawlerProperties.Feed feed) {
+    int failures = 0;
+    try {
+      PollResult r = poll(feed);
+      log.info("[Crawler] {}: items={} created={} skipped={} failed={}",
+          feed.label(), r.items(), r.created(), r.skipped(), r.failed());
+    } catch (Exception e) {
+      FeedState s = states.findById(feed.getUrl().strip()).orElseGet(() -> new FeedState(feed.getUrl().strip()));
+      failures = s.getConsecutiveFailures() + 1;
+      s.setConsecutiveFailures(failures);
+      s.setLastError(String.valueOf(e.getMessage()));
+      s.setLastPolledAt(Instant.now());
+      states.save(s);
+      log.warn("[Crawler] {} failed ({} in a row): {}", feed.label(), failures, e.toString());
+    } finally {
+      Instant next = Instant.now().plus(delayFor(feed, failures));
+      synchronized (queue) {
+        queue.add(new Due(feed, next));
+      }
+    }
+  }
+
+  private Duration delayFor(CrawlerProperties.Feed feed, int failures) {
+    Duration base = feed.getInterval() != null ? feed.getInterval() : props.getDefaultInterval();
+    if (failures <= 0) return base;
+    Duration backoff = base.multipliedBy(1L << Math.min(failures, 10));
+    return backoff.compareTo(props.getMaxBackoff()) > 0 ? props.getMaxBackoff() : backoff;
+  }
+
+  /**
+   * 輪詢一個 feed 並匯入新文章（同步執行；排程以外也可直接呼叫，例如對本機 feed 檔驗證）。
+   */
+  public PollResult poll(CrawlerProperties.Feed feed) {
+    String feedUrl = feed.getUrl().strip();
+    FeedState state = states.findById(feedUrl).orElseGet(() -> new FeedState(feedUrl));
+
+    Fetched fetched = fetch(feedUrl, state.getEtag(), state.getLastModified());
+    if (fetched.notModified()) {
+      markPolled(state, fetched, true);
+      return new PollResult(feedUrl, 0, 0, 0, 0);
+    }
+
+    FeedParser.Parsed parsed = FeedParser.parse(fetched.body(), fetched.finalUrl());
+    List<FeedItem> items = new ArrayList<>(parsed.items());
+    if (parsed.kind() == FeedParser.Kind.SITEMAP_INDEX) {
+      items.addAll(expandIndex(parsed.children(), state.getHighWater()));
+    }
+
+    Instant highWater = state.getHighWater();
+    List<FeedItem> fresh = items.stream()
+        .filter(i -> highWater == null || i.published() == null || i.published().isAfter(highWater))
+        .sorted(Comparator.comparing(FeedItem::published, Comparator.nullsFirst(Comparator.naturalOrder())))
+        .toList();
+
+    // 舊到新處理，最多抓 maxItemsPerPoll 筆，其餘留給下次輪詢。
+    // high-water mark 只推進到「連續成功或已存在」的最後一筆：遇到第一個失敗（或達上限）就停，
+    // 之後的項目下次仍會被選到（已匯入的以網址判斷略過）。
+    int max = Math.max(1, props.getMaxItemsPerPoll());
+    int created = 0, skipped = items.size() - fresh.size(), failed = 0, attempted = 0;
+    Instant newHighWater = highWater;
+    Instant stopAt = null;
+    boolean advancing = true;
+    boolean complete = true;
+    for (FeedItem item : fresh) {
+      boolean ok;
+      if (articles.isKnownUrl(item.url())) {
+        skipped++;
+        ok = true;
+      } else if (attempted >= max) {
+        stopAt = item.published();
+        complete = false;
+        break;
+      } else {
+        attempted++;
+        try {
+          articles.fetchAndSave(item.url());
+          created++;
+          ok = true;
+        } catch (Exception e) {
+          failed++;
+          ok = false;
+          complete = false;
+          log.warn("[Crawler] ingest failed {}: {}", item.url(), e.getMessage());
+        }
+      }
+      // 無日期的項目不影響 mark（本來就每次都會檢查）
+      if (item.published() == null) continue;
+      if (!ok && advancing) {
+        advancing = false;
+        stopAt = item.published();
+      }
+      if (advancing && (newHighWater == null || item.published().isAfter(newHighWater))) {
+        newHighWater = item.published();
+      }
+    }
+    // 與停下的項目同一時間的已處理項目不能讓 mark 蓋過它（filter 用的是 isAfter）
+    if (stopAt != null && newHighWater != null && !newHighWater.isBefore(stopAt)) {
+      newHighWater = stopAt.minusNanos(1);
+    }
+
+    state.setHighWater(newHighWater);
+    markPolled(state, fetched, complete);
+    return new PollResult(feedUrl, items.size(), created, skipped, failed);
+  }
+
+  // sitemap index：只展開 lastmod 比 high-water 新（或沒有 lastmod）的子 sitemap，最新的優先
+  private List<FeedItem> expandIndex(List<FeedItem> children, Instant highWater) {
+    List<FeedItem> out = new ArrayList<>();
+    List<FeedItem> pick = children.stream()
+        .filter(c -> highWater == null || c.published() == null || c.published().isAfter(highWater))
+        .sorted(Comparator.comparing(FeedItem::published, Comparator.nullsLast(Comparator.reverseOrder())))
+        .limit(Math.max(0, props.getMaxChildSitemaps()))
+        .toList();
+    for (FeedItem child : pick) {
+      try {
+        Fetched f = fetch(child.url(), null, null);
+        out.addAll(FeedParser.parse(f.body(), f.finalUrl()).items());
+      } catch (Exception e) {
+        log.warn("[Crawler] child sitemap failed {}: {}", child.url(), e.getMessage());
+      }
+    }
+    return out;
+  }
+
+  // 只有這次的新項目全部處理完（沒失敗、沒被上限截斷）才記住 ETag / Last-Modified；
+  // 否則清掉，下次一定拿到完整內容，才能重試沒完成的項目（不然 304 會把它們跳過）。
+  private void markPolled(FeedState state, Fetched fetched, boolean complete) {
+    if (!complete) {
+      state.setEtag(null);
+      state.setLastModified(null);
+    } else {
+      if (fetched.etag() != null) state.setEtag(fetched.etag());
+      if (fetched.lastModified() != null) state.setLastModified(fetched.lastModified());
+    }
+    state.setLastPolledAt(Instant.now());
+    state.setConsecutiveFailures(0);
+    state.setLastError(null);
+    states.save(state);
+  }
+
+  private Fetched fetch(String url, String etag, String lastModified) {
+    try {
+      if (url.startsWith("file:")) {
+        return new Fetched(Files.readAllBytes(Path.of(URI.create(url))), url, null, null, false);
+      }
+      Connection conn = Jsoup.connect(url)
+          .userAgent(USER_AGENT)
+          .timeout((int) TIMEOUT.toMillis())
+          .maxBodySize(props.getMaxFeedBytes())
+          .ignoreContentType(true)
+          .ignoreHttpErrors(true)
+          .followRedirects(true);
+      if (etag != null) conn.header("If-None-Match", etag);
+      if (lastModified != null) conn.header("If-Modified-Since", lastModified);
+      Connection.Response res = conn.execute();
+
+      if (res.statusCode() == 304) return new Fetched(null, url, etag, lastModified, true);
+      if (res.statusCode() >= 400) throw new IOException("HTTP " + res.statusCode() + " for " + url);
+      return new Fetched(res.bodyAsBytes(), res.url().toString(), res.header("ETag"), res.header("Last-Modified"), false);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Fetch feed failed: " + url, e);
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() throws InterruptedException {
+    if (workers == null) return;
+    workers.shutdownNow();
+    workers.awaitTermination(10, TimeUnit.SECONDS);
+  }
+}
@@ -0,0 +1,11 @@
+package com.example.aitutor.crawl;
+
+import java.time.Instant;
+
+/**
+ * feed/sitemap 中的一個文章項目。
+ *
+ * @param url       文章網址（已轉為絕對網址）
+ * @param published 發佈/更新時間；來源未提供時為 null
+ */
+public record FeedItem(String url, Instant published) {}
@@ -0,0 +1,163 @@
+package com.example.aitutor.crawl;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.parser.Parser;
+
+/**
+ * RSS 2.0 / RSS 1.0 (RDF) / Atom / sitemap / sitemap index 解析（Jsoup XML parser，依根元素判斷格式）。
+ * 支援 .xml.gz（依 gzip magic bytes 判斷）。
+ */
+public final class FeedParser {
+
+  public enum Kind { RSS, ATOM, SITEMAP, SITEMAP_INDEX, UNKNOWN }
+
+  /**
+   * @param items    文章項目（SITEMAP_INDEX 時為空）
+   * @param children 子 sitemap（僅 SITEMAP_INDEX）
+   */
+  public record Parsed(Kind kind, List<FeedItem> items, List<FeedItem> children) {}
+
+  private FeedParser() {}
+
+  public static Parsed parse(byte[] body, String baseUrl) {
+    Document doc;
+    try (InputStream in = maybeGunzip(body)) {
+      doc = Jsoup.parse(in, null, baseUrl, Parser.xmlParser());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    Element root = doc.children().first();
+    if (root == null) return new Parsed(Kind.UNKNOWN, List.of(), List.of());
+
+    return switch (root.normalName()) {
+      case "rss", "rdf:rdf" -> new Parsed(Kind.RSS, rss(root), List.of());
+      case "feed" -> new Parsed(Kind.ATOM, atom(root), List.of());
+      case "urlset" -> new Parsed(Kind.SITEMAP, sitemap(root, "url"), List.of());
+      case "sitemapindex" -> new Parsed(Kind.SITEMAP_INDEX, List.of(), sitemap(root, "sitemap"));
+      default -> new Parsed(Kind.UNKNOWN, List.of(), List.of());
+    };
+  }
+
+  private static List<FeedItem> rss(Element root) {
+    List<FeedItem> out = new ArrayList<>();
+    for (Element item : root.getElementsByTag("item")) {
+      String url = text(item, "link");
+      if (url == null) {
+        Element guid = child(item, "guid");
+        if (guid != null && !"false".equalsIgnoreCase(guid.attr("isPermaLink"))) url = blankToNull(guid.text());
+      }
+      Instant published = parseDate(text(item, "pubdate"));
+      if (published == null) published = parseDate(text(item, "dc:date"));
+      add(out, item, url, published);
+    }
+    return out;
+  }
+
+  private static List<FeedItem> atom(Element root) {
+    List<FeedItem> out = new ArrayList<>();
+    for (Element entry : root.getElementsByTag("entry")) {
+      String url = null;
+      for (Element link : entry.children()) {
+        if (!link.normalName().equals("link")) continue;
+        String rel = link.attr("rel");
+        if (rel.isEmpty() || rel.equals("alternate")) {
+          url = blankToNull(link.attr("href"));
+          break;
+        }
+      }
+      Instant published = parseDate(text(entry, "published"));
+      if (published == null) published = parseDate(text(entry, "updated"));
+      add(out, entry, url, published);
+    }
+    return out;
+  }
+
+  private static List<FeedItem> sitemap(Element root, String entryTag) {
+    List<FeedItem> out = new ArrayList<>();
+    for (Element entry : root.children()) {
+      if (!entry.normalName().equals(entryTag)) continue;
+      Instant published = null;
+      Element news = child(entry, "news:news");
+      if (news != null) published = parseDate(text(news, "news:publication_date"));
+      if (published == null) published = parseDate(text(entry, "lastmod"));
+      add(out, entry, text(entry, "loc"), published);
+    }
+    return out;
+  }
+
+  private static void add(List<FeedItem> out, Element context, String url, Instant published) {
+    if (url == null) return;
+    String abs = url.startsWith("http://") || url.startsWith("https://") || url.startsWith("file:")
+        ? url : absolutize(context, url);
+    if (abs != null) out.add(new FeedItem(abs, published));
+  }
+
+  private static String absolutize(Element context, String url) {
+    try {
+      String base = context.baseUri();
+      if (base == null || base.isEmpty()) return null;
+      return URI.create(base).resolve(url).toString();
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  private static Element child(Element parent, String normalName) {
+    for (Element c : parent.children()) {
+      if (c.normalName().equals(normalName)) return c;
+    }
+    return null;
+  }
+
+  private static String text(Element parent, String normalName) {
+    Element c = child(parent, normalName);
+    return c == null ? null : blankToNull(c.text());
+  }
+
+  private static String blankToNull(String s) {
+    return s == null || s.isBlank() ? null : s.strip();
+  }
+
+  /** RSS 的 RFC 1123 日期、Atom/sitemap 的 ISO 8601（含只有日期）；無法解析時為 null。 */
+  static Instant parseDate(String s) {
+    if (s == null) return null;
+    try {
+      return ZonedDateTime.parse(s, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+    } catch (DateTimeParseException ignored) {}
+    try {
+      return OffsetDateTime.parse(s).toInstant();
+    } catch (DateTimeParseException ignored) {}
+    try {
+      return LocalDateTime.parse(s).toInstant(ZoneOffset.UTC);
+    } catch (DateTimeParseException ignored) {}
+    try {
+      return LocalDate.parse(s.length() > 10 ? s.substring(0, 10) : s).atStartOfDay(ZoneOffset.UTC).toInstant();
+    } catch (DateTimeParseException ignored) {}
+    return null;
+  }
+
+  private static InputStream maybeGunzip(byte[] body) throws IOException {
+    InputStream in = new ByteArrayInputStream(body);
+    boolean gzip = body.length > 2 && (body[0] & 0xff) == 0x1f && (body[1] & 0xff) == 0x8b;
+    return gzip ? new GZIPInputStream(in) : in;
+  }
+}
@@ -0,0 +1,49 @@
+package com.example.aitutor.crawl;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * 每個 feed 的輪詢狀態：high-water mark 與條件式請求用的 ETag / Last-Modified。
+ */
+@Entity
+@Table(name = "feed_state")
+@Getter @Setter
+@NoArgsConstructor
+public class FeedState {
+
+  // 對應 feed_url TEXT PRIMARY KEY
+  @Id
+  @Column(name = "feed_url", columnDefinition = "TEXT")
+  private String feedUrl;
+
+  // 已處理過的最新項目時間；之後只看比它新的項目（無日期的項目改以網址是否已存在判斷）
+  @Column(name = "high_water")
+  private Instant highWater;
+
+  @Column(name = "last_polled_at")
+  private Instant lastPolledAt;
+
+  @Column(columnDefinition = "TEXT")
+  private String etag;
+
+  @Column(name = "last_modified", columnDefinition = "TEXT")
+  private String lastModified;
+
+  @Column(name = "consecutive_failures", nullable = false)
+  private int consecutiveFailures;
+
+  @Column(name = "last_error", columnDefinition = "TEXT")
+  private String lastError;
+
+  public FeedState(String feedUrl) {
+    this.feedUrl = feedUrl;
+  }
+}
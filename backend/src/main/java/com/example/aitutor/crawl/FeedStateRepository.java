@@ -0,0 +1,6 @@
+package com.example.aitutor.crawl;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface FeedStateRepository extends JpaRepository<FeedState, String> {
+}
@@ -1,9 +1,16 @@
 package com.example.aitutor.error;
 
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.aitutor.llm.LlmBusyException;
+import com.example.aitutor.llm.ProviderRateLimitException;
+
 import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
 
 @RestControllerAdvice
 public class GlobalExceptionHandler {
@@ -11,6 +18,23 @@ public class GlobalExceptionHandler {
   Map<String,Object> invalid(MethodArgumentNotValidException ex){ return Map.of("error","validation","details",ex.getBindingResult().toString()); }
   @ExceptionHandler(java.util.NoSuchElementException.class) @ResponseStatus(HttpStatus.NOT_FOUND)
   Map<String,Object> notFound(){ return Map.of("error","not_found"); }
-  @ExceptionHandler(Exception.class) @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
-  Map<String,Object> boom(Exception e){ return Map.of("error","server","message",e.getMessage()); }
+  @ExceptionHandler(ResponseStatusException.class)
+  ResponseEntity<Map<String,Object>> status(ResponseStatusException e){ return ResponseEntity.status(e.getStatusCode()).body(Map.of("error","request","message",String.valueOf(e.getReason()))); }
+  @ExceptionHandler(LlmBusyException.class) @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+  Map<String,Object> busy(LlmBusyException e){ return Map.of("error","busy","message",e.getMessage()); }
+  @ExceptionHandler(ProviderRateLimitException.class)
+  ResponseEntity<Map<String,Object>> rateLimited(ProviderRateLimitException e){
+    // Retry-After 加上隨機幾秒，避免所有前端同時重試
+    long seconds = Math.max(1, e.getRetryAfter().toSeconds()) + ThreadLocalRandom.current().nextLong(5);
+    return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header("Retry-After", String.valueOf(seconds))
+        .body(Map.of("error","rate_limited","message",String.valueOf(e.getMessage()),"retryAfterSeconds",seconds));
+  }
+  @ExceptionHandler(Exception.class)
+  ResponseEntity<Map<String,Object>> boom(Exception e){
+    // 服務層常把例外再包一層 RuntimeException：限流的仍回 429
+    for (Throwable t = e.getCause(); t != null && t != t.getCause(); t = t.getCause()) {
+      if (t instanceof ProviderRateLimitException limited) return rateLimited(limited);
+    }
+    return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error","server","message",String.valueOf(e.getMessage())));
+  }
 }
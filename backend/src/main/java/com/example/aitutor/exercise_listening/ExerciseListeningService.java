@@ -2,10 +2,12 @@ package com.example.aitutor.exercise_listening;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
+import com.example.aitutor.llm.LlmCallOptions;
 import com.example.aitutor.llm.OpenAiTtsClient;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
@@ -45,16 +47,25 @@ public class ExerciseListeningService {
                 .orElseThrow(() -> new RuntimeException("Listening set not found: " + id));
     }
 
-    public ExerciseSetListening generateExercise(String difficulty, int numQuestions,List<String> topics,String genre) {
-        try {
-             // 這裡把 List 轉成字串（只給 Prompt 用）
-            String topicString = (topics == null || topics.isEmpty())
-                    ? "general"
-                    : String.join(", ", topics);
+    /**
+     * 非同步產生聽力題組：LLM 呼叫經過 bulkhead 在 virtual thread 上執行，
+     * 之後的解析、TTS、存 DB 接在同一條 virtual thread 上（此時已歸還 LLM 名額）。
+     */
+    public CompletableFuture<ExerciseSetListening> generateExercise(String difficulty, int numQuestions,List<String> topics,String genre,
+                                                                   LlmCallOptions options) {
+        // 這裡把 List 轉成字串（只給 Prompt 用）
+        String topicString = (topics == null || topics.isEmpty())
+                ? "general"
+                : String.join(", ", topics);
 
-            // 呼叫 LLM 產生 JSON
-            String responseJson = questionGenService.generateQuestions(difficulty, numQuestions,topicString,genre);
-            
+        // 呼叫 LLM 產生 JSON
+        return questionGenService.generateQuestionsAsync(difficulty, numQuestions, topicString, genre, options)
+                .thenApply(responseJson -> buildAndSave(responseJson, difficulty, numQuestions, topics, genre));
+    }
+
+    private ExerciseSetListening buildAndSave(String responseJson, String difficulty, int numQuestions,
+                                              List<String> topics, String genre) {
+        try {
             // 解析 JSON
             JsonNode root = objectMapper.readTree(responseJson);
             String transcript = root.get("transcript").asText();
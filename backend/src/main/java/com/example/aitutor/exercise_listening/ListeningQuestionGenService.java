@@ -1,7 +1,10 @@
 package com.example.aitutor.exercise_listening;
 
+import java.util.concurrent.CompletableFuture;
+
 import org.springframework.stereotype.Service;
 
+import com.example.aitutor.llm.LlmCallOptions;
 import com.example.aitutor.llm.LlmClient;
 
 @Service
@@ -19,4 +22,12 @@ public class ListeningQuestionGenService {
         String prompt = promptFactory.buildPrompt(difficulty, numQuestions, topic, genre);
         return llmClient.completeJson(prompt);
     }
+
+    // 非同步版本：回傳 LLM 原始 JSON，呼叫經過 bulkhead
+    public CompletableFuture<String> generateQuestionsAsync(String difficulty, int numQuestions, String topic, String genre,
+                                                            LlmCallOptions options) {
+        String prompt = promptFactory.buildPrompt(difficulty, numQuestions, topic, genre);
+        // 路由提示只有難度；沒有原文，長度以 prompt 估算
+        return llmClient.completeJsonAsync(prompt, options.withHints(difficulty, 0));
+    }
 }
\ No newline at end of file
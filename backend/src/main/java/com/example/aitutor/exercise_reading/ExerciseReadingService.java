@@ -2,12 +2,19 @@ package com.example.aitutor.exercise_reading;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
 
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.example.aitutor.article.Article;
 import com.example.aitutor.article.ArticleService;
+import com.example.aitutor.llm.LlmCallOptions;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import lombok.RequiredArgsConstructor;
@@ -19,51 +26,102 @@ public class ExerciseReadingService {
   private final ArticleService articleService;
   private final ExerciseSetReadingRepository repo;
   private final ReadingQuestionGenService questionGenService;
+  private final ReadingGenerationBatcher batcher;
   private final ObjectMapper objectMapper; // Spring Boot 會自動提供
 
+  private record InFlightKey(Long articleId, ReadingSpec spec) {}
+
+  // 生成中（尚未寫入）的題組：相同 (articleId, spec) 的請求共用同一次生成與同一筆 id
+  private final ConcurrentMap<InFlightKey, CompletableFuture<Long>> inFlight = new ConcurrentHashMap<>();
+
   /**
    * 產生題組；若已有相同 (articleId, difficulty, spec) 的題組，就直接回傳既有 id。
    * 與 Controller 對齊的簽名：
    *   generateIfAbsent(Long articleId, String difficulty, List<String> types, Map<String,Integer> count)
+   *
+   * 非同步：查詢既有題組與載入文章在呼叫端完成，LLM 生成經過 bulkhead 在 virtual thread 上執行，
+   * 完成後才寫入（repo.save 自帶交易），生成期間不佔 DB 連線也不佔 servlet 執行緒。
+   * 同一篇文章短時間內的多個請求由 ReadingGenerationBatcher 合併成一次呼叫，各自寫成一筆題組；
+   * 生成期間再收到相同規格的請求則等同一個結果，只寫入一筆。
    */
-  @Transactional
-  public Long generateIfAbsent(Long articleId,
-                               String difficulty,
-                               List<String> types,
-                               Map<String, Integer> count) {
-    // 組 spec（必須與 DB 存的結構一致，避免比對失敗）
-    Map<String, Object> spec = Map.of(
-        "types", types,
-        "count", count,
-        "difficulty", difficulty
-    );
+  public CompletableFuture<Long> generateIfAbsent(Long articleId,
+                                                  String difficulty,
+                                                  List<String> types,
+                                                  Map<String, Integer> count,
+                                                  LlmCallOptions options) {
+    Map<String, Object> spec = spec(difficulty, types, count);
 
     // 先查是否已存在：比對 (articleId, difficulty, spec::jsonb)
-    String specJson = toJson(spec);
-    Long existingId = repo.findExistingId(articleId, difficulty, specJson);
+    Long existingId = repo.findExistingId(articleId, difficulty, toJson(spec));
     if (existingId != null) {
-      return existingId; // 已存在，回傳舊的 id
+      return CompletableFuture.completedFuture(existingId); // 已存在，回傳舊的 id
     }
 
+    // 相同題組正在生成：等同一個結果
+    ReadingSpec readingSpec = new ReadingSpec(difficulty, types, count);
+    InFlightKey key = new InFlightKey(articleId, readingSpec);
+    CompletableFuture<Long> created = new CompletableFuture<>();
+    CompletableFuture<Long> running = inFlight.putIfAbsent(key, created);
+    if (running != null) return running;
+
     // 沒有才真正生成
-    Article article = loadArticleOrThrow(articleId);
+    try {
+      Article article = loadArticleOrThrow(articleId);
+      settle(key, created, batcher.submit(articleId, article.getCleanedText(), readingSpec, options)
+          .thenApply(questions -> save(article, difficulty, spec, questions)));
+    } catch (RuntimeException e) {
+      inFlight.remove(key, created);
+      created.completeExceptionally(e);
+      throw e;
+    }
+    return created;
+  }
 
-    List<Question> questions = questionGenService.generate(
-        article.getCleanedText(),
-        difficulty,
-        types,
-        count
-    );
+  /**
+   * 串流產生題組：每完成一題就交給 onQuestion，全部完成後才寫入 DB 並回傳 id。
+   * 已有相同題組時不呼叫 LLM，直接把既有題目依序交出；相同題組正在生成（一般或串流請求）時，
+   * 與 generateIfAbsent 共用同一個 inFlight，等它寫入後再把題目依序交出。
+   */
+  public CompletableFuture<Long> generateStreaming(Long articleId,
+                                                   String difficulty,
+                                                   List<String> types,
+                                                   Map<String, Integer> count,
+                                                   LlmCallOptions options,
+                                                   Consumer<Question> onQuestion) {
+    Map<String, Object> spec = spec(difficulty, types, count);
+
+    Long existingId = repo.findExistingId(articleId, difficulty, toJson(spec));
+    if (existingId != null) {
+      get(existingId).getItems().forEach(onQuestion);
+      return CompletableFuture.completedFuture(existingId);
+    }
 
-    ExerciseSetReading set = ExerciseSetReading.builder()
-        .article(article)
-        .difficulty(difficulty)
-        .spec(spec)       // jsonb：Map<String,Object>
-        .items(questions) // List<Question>
-        .build();
+    InFlightKey key = new InFlightKey(articleId, new ReadingSpec(difficulty, types, count));
+    CompletableFuture<Long> created = new CompletableFuture<>();
+    CompletableFuture<Long> running = inFlight.putIfAbsent(key, created);
+    if (running != null) {
+      return running.thenApply(id -> {
+        get(id).getItems().forEach(onQuestion);
+        return id;
+      });
+    }
 
-    repo.save(set);
-    return set.getId();
+    try {
+      Article article = loadArticleOrThrow(articleId);
+      settle(key, created, questionGenService.generateStreaming(
+          article.getCleanedText(),
+          difficulty,
+          types,
+          count,
+          options,
+          onQuestion
+      ).thenApply(questions -> save(article, difficulty, spec, questions)));
+    } catch (RuntimeException e) {
+      inFlight.remove(key, created);
+      created.completeExceptionally(e);
+      throw e;
+    }
+    return created;
   }
 
   /**
@@ -77,6 +135,43 @@ public class ExerciseReadingService {
 
   // ====== 私有工具方法 ======
 
+  // 組 spec（必須與 DB 存的結構一致，避免比對失敗）
+  private Map<String, Object> spec(String difficulty, List<String> types, Map<String, Integer> count) {
+    return Map.of(
+        "types", types,
+        "count", count,
+        "difficulty", difficulty
+    );
+  }
+
+  // 寫入後才移出 inFlight，之後的請求改由 findExistingId 找到
+  private void settle(InFlightKey key, CompletableFuture<Long> created, CompletableFuture<Long> work) {
+    work.whenComplete((id, ex) -> {
+      inFlight.remove(key, created);
+      if (ex == null) created.complete(id);
+      else created.completeExceptionally(ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex);
+    });
+  }
+
+  private Long save(Article article, String difficulty, Map<String, Object> spec, List<Question> questions) {
+    ExerciseSetReading set = ExerciseSetReading.builder()
+        .article(article)
+        .difficulty(difficulty)
+        .spec(spec)       // jsonb：Map<String,Object>
+        .items(questions) // List<Question>
+        .build();
+
+    try {
+      repo.save(set);
+    } catch (DataIntegrityViolationException e) {
+      // 其他執行個體先寫入了相同題組（UNIQUE(article_id, difficulty, spec)）：沿用它的 id
+      Long existingId = repo.findExistingId(article.getId(), difficulty, toJson(spec));
+      if (existingId == null) throw e;
+      return existingId;
+    }
+    return set.getId();
+  }
+
   private Article loadArticleOrThrow(Long articleId) {
     return articleService.findById(articleId);
   }
@@ -0,0 +1,108 @@
+package com.example.aitutor.exercise_reading;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+/**
+ * 以 Jackson non-blocking parser 逐段解析 {"items":[{...},{...}]}：
+ * 每讀完 items 裡的一個物件就交出一個 JsonNode，不必等整份 JSON 結束。
+ *
+ * 第一個 '{' 之前的內容（例如 ```json）會被略過；根物件結束後的內容不再解析。
+ * JSON 不合法時 failed() 為 true，之後的片段一律忽略，由呼叫端改用完整內容解析。
+ */
+final class ItemStreamParser {
+
+  private final ObjectMapper om;
+  private final Consumer<JsonNode> onItem;
+  private final JsonParser parser;
+
+  private boolean started;
+  private boolean done;
+  private boolean failed;
+  private int depth;
+  private String field;
+  private boolean inItems;
+  private TokenBuffer item;
+  private int emitted;
+
+  ItemStreamParser(ObjectMapper om, Consumer<JsonNode> onItem) {
+    this.om = om;
+    this.onItem = onItem;
+    try {
+      this.parser = om.getFactory().createNonBlockingByteArrayParser();
+    } catch (IOException e) {
+      throw new IllegalStateException("Cannot create non-blocking JSON parser", e);
+    }
+  }
+
+  void feed(String chunk) {
+    if (done || failed || chunk == null || chunk.isEmpty()) return;
+    if (!started) {
+      int brace = chunk.indexOf('{');
+      if (brace < 0) return;
+      chunk = chunk.substring(brace);
+      started = true;
+    }
+    try {
+      byte[] bytes = chunk.getBytes(StandardCharsets.UTF_8);
+      ((ByteArrayFeeder) parser.getNonBlockingInputFeeder()).feedInput(bytes, 0, bytes.length);
+      JsonToken t;
+      while (!done && (t = parser.nextToken()) != null && t != JsonToken.NOT_AVAILABLE) {
+        onToken(t);
+      }
+    } catch (IOException e) {
+      failed = true;
+    }
+  }
+
+  /** 根物件已完整讀完。 */
+  boolean done() {
+    return done;
+  }
+
+  boolean failed() {
+    return failed;
+  }
+
+  /** 已交出的題目數。 */
+  int emitted() {
+    return emitted;
+  }
+
+  private void onToken(JsonToken t) throws IOException {
+    // 根物件深度 1、items 陣列深度 2：陣列裡的物件就是一題
+    if (t == JsonToken.START_OBJECT && inItems && depth == 2) item = new TokenBuffer(parser);
+    if (item != null) item.copyCurrentEvent(parser);
+
+    switch (t) {
+      case START_OBJECT, START_ARRAY -> {
+        depth++;
+        if (t == JsonToken.START_ARRAY && depth == 2 && "items".equals(field)) inItems = true;
+      }
+      case END_OBJECT, END_ARRAY -> {
+        depth--;
+        if (item != null && depth == 2) {
+          JsonNode node = om.readTree(item.asParser());
+          item = null;
+          emitted++;
+          onItem.accept(node);
+        } else if (inItems && depth == 1) {
+          inItems = false;
+        }
+        if (depth == 0) done = true;
+      }
+      case FIELD_NAME -> {
+        if (depth == 1) field = parser.currentName();
+      }
+      default -> { }
+    }
+  }
+}
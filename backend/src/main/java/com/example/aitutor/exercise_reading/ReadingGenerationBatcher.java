@@ -0,0 +1,170 @@
+package com.example.aitutor.exercise_reading;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.aitutor.llm.LlmCallOptions;
+import com.example.aitutor.llm.LlmClient;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 同一篇文章的出題請求在短時間窗內合併成一次 LLM 呼叫（文章 token 只付一次），再拆回各自的題組。
+ *
+ *   同一篇文章沒有生成在途時，請求立即送出（單獨的請求不必等 window）；
+ *   有生成在途時才開窗（window），窗內同 articleId 的請求加入同一批；達 max-specs 即提早送出
+ *   批內相同規格只生成一次（寫入由 ExerciseReadingService 依規格合併，只存一筆）；只有一個規格時照原本的單一題組 prompt
+ *   回應缺少某個題組時，該題組另外單獨生成；整批失敗則批內每個請求都失敗
+ *   任一請求帶 bypassCache，整批都略過快取
+ *
+ * window 設為 0 即停用合併。
+ */
+@Slf4j
+@Component
+public class ReadingGenerationBatcher {
+
+  private final ReadingQuestionGenService questionGenService;
+  private final long windowMillis;
+  private final int maxSpecs;
+
+  // guarded by this
+  private final Map<Long, Batch> open = new HashMap<>();
+  // 各文章已送出、尚未完成的 LLM 呼叫數；guarded by this
+  private final Map<Long, Integer> running = new HashMap<>();
+
+  private final LongAdder requests = new LongAdder();
+  private final LongAdder llmCalls = new LongAdder();
+
+  public ReadingGenerationBatcher(ReadingQuestionGenService questionGenService,
+                                  @Value("${reading.batch.window:PT1.5S}") Duration window,
+                                  @Value("${reading.batch.max-specs:4}") int maxSpecs) {
+    this.questionGenService = questionGenService;
+    this.windowMillis = window.toMillis();
+    this.maxSpecs = Math.max(1, maxSpecs);
+  }
+
+  public CompletableFuture<List<Question>> submit(Long articleId, String passage, ReadingSpec spec, LlmCallOptions options) {
+    requests.increment();
+    if (windowMillis <= 0 || maxSpecs <= 1) {
+      llmCalls.increment();
+      return questionGenService.generateAsync(passage, spec.difficulty(), spec.types(), spec.count(), options);
+    }
+
+    Batch ready = null;
+    CompletableFuture<List<Question>> result;
+    synchronized (this) {
+      Batch batch = open.get(articleId);
+      if (batch == null && !running.containsKey(articleId)) {
+        // 沒有其他請求可以合併：立即送出
+        ready = new Batch(articleId, passage);
+        result = ready.add(spec, options);
+        started(articleId);
+      } else if (batch == null) {
+        Batch created = new Batch(articleId, passage);
+        open.put(articleId, created);
+        CompletableFuture.runAsync(() -> flush(created),
+            CompletableFuture.delayedExecutor(windowMillis, TimeUnit.MILLISECONDS, LlmClient.VIRTUAL_THREADS));
+        result = created.add(spec, options);
+      } else {
+        result = batch.add(spec, options);
+        if (batch.specs.size() >= maxSpecs) {
+          open.remove(articleId);
+          started(articleId);
+          ready = batch;
+        }
+      }
+    }
+    if (ready != null) dispatch(ready);
+    return result;
+  }
+
+  /** 收到的請求數與實際 LLM 呼叫數（不含缺漏題組的補生成）。 */
+  public Map<String, Long> stats() {
+    return Map.of("requests", requests.sum(), "llmCalls", llmCalls.sum());
+  }
+
+  private void flush(Batch batch) {
+    synchronized (this) {
+      if (!open.remove(batch.articleId, batch)) return;   // 已因額滿提早送出
+      started(batch.articleId);
+    }
+    dispatch(batch);
+  }
+
+  // 呼叫端持有 this
+  private void started(Long articleId) {
+    running.merge(articleId, 1, Integer::sum);
+  }
+
+  private synchronized void finished(Long articleId) {
+    running.computeIfPresent(articleId, (id, n) -> n > 1 ? n - 1 : null);
+  }
+
+  private void dispatch(Batch batch) {
+    List<ReadingSpec> specs = new ArrayList<>(batch.specs.keySet());
+    List<CompletableFuture<List<Question>>> waiters = new ArrayList<>(batch.specs.values());
+    LlmCallOptions options = batch.bypassCache ? LlmCallOptions.BYPASS_CACHE : LlmCallOptions.DEFAULT;
+    llmCalls.increment();
+
+    if (specs.size() == 1) {
+      ReadingSpec spec = specs.get(0);
+      CompletableFuture<List<Question>> call =
+          questionGenService.generateAsync(batch.passage, spec.difficulty(), spec.types(), spec.count(), options);
+      call.whenComplete((v, ex) -> finished(batch.articleId));
+      forward(call, waiters.get(0));
+      return;
+    }
+
+    log.info("[ReadingBatch] article {}: {} specs in one call", batch.articleId, specs.size());
+    questionGenService.generateBatchAsync(batch.passage, specs, options).whenComplete((sets, ex) -> {
+      finished(batch.articleId);
+      for (int i = 0; i < specs.size(); i++) {
+        if (ex != null) {
+          waiters.get(i).completeExceptionally(ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex);
+        } else if (sets.get(i) != null && !sets.get(i).isEmpty()) {
+          waiters.get(i).complete(sets.get(i));
+        } else {
+          ReadingSpec spec = specs.get(i);
+          log.warn("[ReadingBatch] article {}: set {} missing from merged response, generating alone", batch.articleId, spec);
+          forward(questionGenService.generateAsync(batch.passage, spec.difficulty(), spec.types(), spec.count(), options),
+              waiters.get(i));
+        }
+      }
+    });
+  }
+
+  private static <T> void forward(CompletableFuture<T> from, CompletableFuture<T> to) {
+    from.whenComplete((v, ex) -> {
+      if (ex == null) to.complete(v);
+      else to.completeExceptionally(ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex);
+    });
+  }
+
+  private static final class Batch {
+    final Long articleId;
+    final String passage;
+    final Map<ReadingSpec, CompletableFuture<List<Question>>> specs = new LinkedHashMap<>();
+    boolean bypassCache;
+
+    Batch(Long articleId, String passage) {
+      this.articleId = articleId;
+      this.passage = passage;
+    }
+
+    CompletableFuture<List<Question>> add(ReadingSpec spec, LlmCallOptions options) {
+      bypassCache |= options.bypassCache();
+      return specs.computeIfAbsent(spec, s -> new CompletableFuture<>());
+    }
+  }
+}
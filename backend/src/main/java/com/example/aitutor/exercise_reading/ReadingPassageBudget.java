@@ -0,0 +1,148 @@
+package com.example.aitutor.exercise_reading;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.aitutor.article.ParagraphIndex;
+import com.example.aitutor.llm.TokenCounter;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 出題用文章的 token 預算：全文超過預算時，只挑最適合出題的段落（維持原順序）放進 prompt。
+ *
+ *   預算 = base + per-question × 題數，介於 [min, max]
+ *   導言（第一個非過短段落）一定保留；其餘依分數由高到低挑，放不下的略過、繼續看下一段
+ *   分數：含數字、專有名詞、引述、因果/轉折詞較高；過短（圖說、單句）較低
+ *
+ * 每次呼叫的原文 / 送出 token 數與是否截斷記在 stats()。
+ */
+@Slf4j
+@Component
+public class ReadingPassageBudget {
+
+  private static final Pattern DIGIT = Pattern.compile("\\d");
+  private static final Pattern QUOTE = Pattern.compile("[\"“”]");
+  private static final Pattern PROPER_NOUN = Pattern.compile("(?<=[a-z,;] )[A-Z][a-z]+");
+  private static final Pattern REASONING = Pattern.compile(
+      "\\b(because|however|although|therefore|but|despite|while|since|so that|as a result|according to|said)\\b",
+      Pattern.CASE_INSENSITIVE);
+
+  /** 篩選後的文章。 */
+  public record Fitted(String text, int originalTokens, int tokens, int keptParagraphs, int totalParagraphs) {
+    public boolean truncated() {
+      return keptParagraphs < totalParagraphs;
+    }
+  }
+
+  public record Stats(long calls, long truncatedCalls, long originalTokens, long passageTokens, long promptTokens,
+                      long maxPromptTokens, double avgPromptTokens) {}
+
+  private record Scored(int index, String text, int tokens, double score) {}
+
+  private final int base;
+  private final int perQuestion;
+  private final int min;
+  private final int max;
+
+  private final LongAdder calls = new LongAdder();
+  private final LongAdder truncatedCalls = new LongAdder();
+  private final LongAdder originalTokens = new LongAdder();
+  private final LongAdder passageTokens = new LongAdder();
+  private final LongAdder promptTokens = new LongAdder();
+  private final AtomicLong maxPromptTokens = new AtomicLong();
+
+  public ReadingPassageBudget(@Value("${reading.prompt.passage-tokens.base:500}") int base,
+                              @Value("${reading.prompt.passage-tokens.per-question:150}") int perQuestion,
+                              @Value("${reading.prompt.passage-tokens.min:600}") int min,
+                              @Value("${reading.prompt.passage-tokens.max:2500}") int max) {
+    this.base = base;
+    this.perQuestion = perQuestion;
+    this.min = min;
+    this.max = Math.max(min, max);
+  }
+
+  public int budgetFor(Map<String, Integer> count) {
+    int questions = count == null ? 0 : count.values().stream().mapToInt(v -> v == null ? 0 : Math.max(0, v)).sum();
+    return Math.clamp((long) base + (long) perQuestion * questions, min, max);
+  }
+
+  public Fitted fit(String passage, Map<String, Integer> count) {
+    String text = passage == null ? "" : passage;
+    int budget = budgetFor(count);
+    int total = TokenCounter.count(text);
+    List<String> paragraphs = ParagraphIndex.split(text, ParagraphIndex.of(text));
+    if (total <= budget || paragraphs.size() <= 1) {
+      return new Fitted(text, total, total, paragraphs.size(), paragraphs.size());
+    }
+
+    List<Scored> scored = new ArrayList<>(paragraphs.size());
+    for (int i = 0; i < paragraphs.size(); i++) {
+      String p = paragraphs.get(i);
+      scored.add(new Scored(i, p, TokenCounter.count(p), score(p)));
+    }
+
+    // 導言：第一個不是過短的段落
+    Scored lead = scored.stream().filter(s -> s.score() >= 0).findFirst().orElse(scored.get(0));
+    boolean[] keep = new boolean[paragraphs.size()];
+    int used = lead.tokens();
+    keep[lead.index()] = true;
+    List<Scored> ranked = new ArrayList<>(scored);
+    ranked.remove(lead);
+    ranked.sort(Comparator.comparingDouble(Scored::score).reversed());
+    for (Scored s : ranked) {
+      if (s.score() < 0) break;            // 過短的段落截斷時一律不放
+      if (used + s.tokens() > budget) continue;
+      keep[s.index()] = true;
+      used += s.tokens();
+    }
+
+    StringBuilder sb = new StringBuilder();
+    int kept = 0;
+    for (Scored s : scored) {
+      if (!keep[s.index()]) continue;
+      if (sb.length() > 0) sb.append("\n\n");
+      sb.append(s.text());
+      kept++;
+    }
+    return new Fitted(sb.toString(), total, used, kept, paragraphs.size());
+  }
+
+  /** 每次組好 prompt 後記錄（promptTokens 為整份 prompt 的估算值）。 */
+  void record(Fitted fitted, int prompt) {
+    calls.increment();
+    if (fitted.truncated()) truncatedCalls.increment();
+    originalTokens.add(fitted.originalTokens());
+    passageTokens.add(fitted.tokens());
+    promptTokens.add(prompt);
+    maxPromptTokens.accumulateAndGet(prompt, Math::max);
+    log.debug("[ReadingPrompt] passage {} -> {} tokens ({}/{} paragraphs), prompt {} tokens",
+        fitted.originalTokens(), fitted.tokens(), fitted.keptParagraphs(), fitted.totalParagraphs(), prompt);
+  }
+
+  public Stats stats() {
+    long n = calls.sum();
+    return new Stats(n, truncatedCalls.sum(), originalTokens.sum(), passageTokens.sum(), promptTokens.sum(),
+        maxPromptTokens.get(), n == 0 ? 0 : (double) promptTokens.sum() / n);
+  }
+
+  private static double score(String p) {
+    int words = p.split("\\s+").length;
+    double s = 0;
+    if (words < 12) s -= 2;               // 圖說、單句、署名
+    else if (words <= 120) s += 1;
+    s += Math.min(2, DIGIT.matcher(p).results().count() * 0.25);
+    s += Math.min(2, PROPER_NOUN.matcher(p).results().count() * 0.3);
+    s += Math.min(1.5, REASONING.matcher(p).results().count() * 0.5);
+    if (QUOTE.matcher(p).find()) s += 0.5;
+    return s;
+  }
+}
@@ -1,45 +1,114 @@
 package com.example.aitutor.exercise_reading;
 
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.springframework.stereotype.Component;
 
+import com.example.aitutor.llm.TokenCounter;
+
+import lombok.RequiredArgsConstructor;
+
 @Component
+@RequiredArgsConstructor
 public class ReadingPromptFactory {
 
+  private final ReadingPassageBudget budget;
+
   public String build(String passage, String diff, List<String> types, Map<String,Integer> count) {
+    // 長文只放最適合出題的段落（預算依題數）
+    ReadingPassageBudget.Fitted fitted = budget.fit(passage, count);
+
     StringBuilder sb = new StringBuilder();
 
     sb.append("You are an English pedagogy assistant.\n");
     sb.append("Target CEFR level: ").append(diff).append("\n");
     sb.append("Generate questions from the passage below.\n\n");
 
-    sb.append("Passage:\n");
-    sb.append(passage).append("\n\n");
+    sb.append(fitted.truncated() ? "Passage (selected paragraphs of a longer article):\n" : "Passage:\n");
+    sb.append(fitted.text()).append("\n\n");
 
     sb.append("Question types and counts requested: ").append(count).append("\n\n");
 
     sb.append("Return ONLY valid JSON with this schema:\n");
     sb.append("{\n");
     sb.append("  \"items\": [\n");
+    appendItemSchema(sb, "    ");
+    sb.append("  ]\n");
+    sb.append("}\n\n");
+
+    appendRules(sb);
+
+    String prompt = sb.toString();
+    budget.record(fitted, TokenCounter.count(prompt));
+    return prompt;
+  }
+
+  /**
+   * 同一篇文章的多個題組合併成一次呼叫（文章只送一次）：
+   * 回傳 {"sets":[{"key":"s1","items":[...]}, ...]}，key 依 specs 順序為 s1、s2…
+   */
+  public String buildMulti(String passage, List<ReadingSpec> specs) {
+    Map<String, Integer> total = new LinkedHashMap<>();
+    for (ReadingSpec spec : specs) {
+      spec.count().forEach((type, n) -> total.merge(type, n == null ? 0 : n, Integer::sum));
+    }
+    ReadingPassageBudget.Fitted fitted = budget.fit(passage, total);
+
+    StringBuilder sb = new StringBuilder();
+
+    sb.append("You are an English pedagogy assistant.\n");
+    sb.append("Generate ").append(specs.size()).append(" independent question sets from the passage below.\n\n");
+
+    sb.append(fitted.truncated() ? "Passage (selected paragraphs of a longer article):\n" : "Passage:\n");
+    sb.append(fitted.text()).append("\n\n");
+
+    sb.append("Sets:\n");
+    for (int i = 0; i < specs.size(); i++) {
+      ReadingSpec spec = specs.get(i);
+      sb.append("- key \"s").append(i + 1).append("\": target CEFR level ").append(spec.difficulty())
+          .append("; question types and counts requested: ").append(spec.count()).append("\n");
+    }
+    sb.append("\n");
+
+    sb.append("Return ONLY valid JSON with this schema:\n");
+    sb.append("{\n");
+    sb.append("  \"sets\": [\n");
     sb.append("    {\n");
-    sb.append("      \"type\": \"mcq\" | \"tf\", \n");
-    sb.append("      \"prompt\": string,\n");
-    sb.append("      \"options\": [string,...],   // for mcq only\n");
-    sb.append("      \"answer\": number | boolean, // 0-based index for mcq, true/false for tf\n");
-    sb.append("      \"explanation\": string\n");
+    sb.append("      \"key\": string,\n");
+    sb.append("      \"items\": [\n");
+    appendItemSchema(sb, "        ");
+    sb.append("      ]\n");
     sb.append("    }\n");
     sb.append("  ]\n");
     sb.append("}\n\n");
 
+    appendRules(sb);
+    sb.append("- Return every set key exactly once. Each set follows its own level and counts.\n");
+    sb.append("- Questions in different sets must not repeat each other.\n");
+
+    String prompt = sb.toString();
+    budget.record(fitted, TokenCounter.count(prompt));
+    return prompt;
+  }
+
+  private static void appendItemSchema(StringBuilder sb, String indent) {
+    sb.append(indent).append("{\n");
+    sb.append(indent).append("  \"type\": \"mcq\" | \"tf\", \n");
+    sb.append(indent).append("  \"prompt\": string,\n");
+    sb.append(indent).append("  \"options\": [string,...],   // for mcq only\n");
+    sb.append(indent).append("  \"answer\": number | boolean, // 0-based index for mcq, true/false for tf\n");
+    sb.append(indent).append("  \"explanation\": string\n");
+    sb.append(indent).append("}\n");
+  }
+
+  private static void appendRules(StringBuilder sb) {
     sb.append("Rules:\n");
     sb.append("- Output ONLY JSON. No markdown, no text before or after.\n");
     sb.append("- For 'mcq', `answer` must be the 0-based index of the correct option.\n");
     sb.append("- For 'tf', `answer` must be a boolean true/false.\n");
     sb.append("- Respect the requested number of each question type.\n");
     sb.append("- Keep explanations short and clear.\n");
-
-    return sb.toString();
   }
 }
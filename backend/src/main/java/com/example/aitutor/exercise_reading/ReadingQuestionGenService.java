@@ -1,12 +1,19 @@
 package com.example.aitutor.exercise_reading;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 import org.springframework.stereotype.Service;
 
+import com.example.aitutor.llm.LlmCallOptions;
 import com.example.aitutor.llm.LlmClient;
+import com.example.aitutor.llm.TokenCounter;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import lombok.RequiredArgsConstructor;
@@ -14,50 +21,98 @@ import lombok.RequiredArgsConstructor;
 @Service
 @RequiredArgsConstructor
 public class ReadingQuestionGenService {
+  private static final List<String> DIFFICULTIES = List.of("easy", "medium", "hard");
+
   private final ReadingPromptFactory promptFactory;
   private final ObjectMapper om;
   private final LlmClient llm;
 
   public List<Question> generate(String passage, String diff, List<String> types, Map<String, Integer> count) {
     String prompt = promptFactory.build(passage, diff, types, count);
-    String json = llm.completeJson(prompt);
+    return parse(llm.completeJson(prompt));
+  }
+
+  /** 非同步版本：LLM 呼叫經過 bulkhead 在 virtual thread 上執行，不佔呼叫端執行緒。 */
+  public CompletableFuture<List<Question>> generateAsync(String passage, String diff, List<String> types,
+                                                         Map<String, Integer> count, LlmCallOptions options) {
+    String prompt = promptFactory.build(passage, diff, types, count);
+    return llm.completeJsonAsync(prompt, hints(options, passage, diff)).thenApply(this::parse);
+  }
+
+  /**
+   * 串流版本：模型以 stream 模式輸出，items 每完成一題就交給 onQuestion（在 LLM 呼叫的 virtual thread 上）。
+   * 完成時回傳全部題目；串流解析失敗時改用完整內容解析，尚未交出的題目再補交。
+   */
+  public CompletableFuture<List<Question>> generateStreaming(String passage, String diff, List<String> types,
+                                                             Map<String, Integer> count, LlmCallOptions options,
+                                                             Consumer<Question> onQuestion) {
+    String prompt = promptFactory.build(passage, diff, types, count);
+    List<Question> streamed = new ArrayList<>();
+    ItemStreamParser parser = new ItemStreamParser(om, n -> {
+      Question q = toQuestion(n);
+      streamed.add(q);
+      onQuestion.accept(q);
+    });
+
+    return llm.streamJsonAsync(prompt, hints(options, passage, diff), parser::feed).thenApply(json -> {
+      if (parser.done() && !parser.failed()) return streamed;
+      int brace = json.indexOf('{');
+      List<Question> all = parse(brace > 0 ? json.substring(brace) : json);
+      for (int i = streamed.size(); i < all.size(); i++) onQuestion.accept(all.get(i));
+      return all;
+    });
+  }
+
+  /**
+   * 多個題組一次呼叫（同一篇文章）：回傳與 specs 同順序的題目清單；回應中缺少的題組為 null，由呼叫端另行處理。
+   */
+  public CompletableFuture<List<List<Question>>> generateBatchAsync(String passage, List<ReadingSpec> specs,
+                                                                    LlmCallOptions options) {
+    String prompt = promptFactory.buildMulti(passage, specs);
+    String hardest = specs.stream().map(ReadingSpec::difficulty)
+        .max(Comparator.comparingInt(d -> DIFFICULTIES.indexOf(d))).orElse(null);
+    return llm.completeJsonAsync(prompt, hints(options, passage, hardest)).thenApply(json -> parseSets(json, specs.size()));
+  }
+
+  // 路由提示：原文長度與難度（RoutingLlmClient 據此挑 backend）
+  private static LlmCallOptions hints(LlmCallOptions options, String passage, String diff) {
+    return options.withHints(diff, TokenCounter.count(passage == null ? "" : passage));
+  }
+
+  private List<List<Question>> parseSets(String json, int size) {
+    List<List<Question>> res = new ArrayList<>(Collections.nCopies(size, null));
+    try {
+      var sets = om.readTree(json).path("sets");
+      for (var set : sets) {
+        String key = set.path("key").asText("");
+        if (!key.startsWith("s")) continue;
+        int i;
+        try {
+          i = Integer.parseInt(key.substring(1)) - 1;
+        } catch (NumberFormatException e) {
+          continue;
+        }
+        if (i < 0 || i >= size || res.get(i) != null || !set.path("items").isArray()) continue;
+        List<Question> items = new ArrayList<>();
+        for (var n : set.path("items")) {
+          items.add(toQuestion(n));
+        }
+        res.set(i, items);
+      }
+    } catch (Exception e) {
+      throw new RuntimeException("Failed to parse LLM JSON: " + e.getMessage(), e);
+    }
+    return res;
+  }
 
+  private List<Question> parse(String json) {
     List<Question> res = new ArrayList<>();
     try {
       var root = om.readTree(json);
       var items = root.path("items");
       if (items.isArray()) {
         for (var n : items) {
-          Question q = new Question();
-          q.setType(n.path("type").asText(null));
-          q.setPrompt(n.path("prompt").asText(null));
-
-          // options
-          if (n.has("options") && n.get("options").isArray()) {
-            List<String> opts = new ArrayList<>();
-            for (var opt : n.get("options")) {
-              opts.add(opt.asText());
-            }
-            q.setOptions(opts);
-          }
-
-          // answer (可能是 int / boolean / string)
-          if (n.has("answer")) {
-            if (n.get("answer").isInt()) {
-              q.setAnswer(n.get("answer").asInt());
-            } else if (n.get("answer").isBoolean()) {
-              q.setAnswer(n.get("answer").asBoolean());
-            } else if (n.get("answer").isTextual()) {
-              q.setAnswer(n.get("answer").asText());
-            }
-          }
-
-          // explanation
-          if (n.has("explanation")) {
-            q.setExplanation(n.get("explanation").asText());
-          }
-
-          res.add(q);
+          res.add(toQuestion(n));
         }
       }
     } catch (Exception e) {
@@ -66,4 +121,37 @@ public class ReadingQuestionGenService {
 
     return res;
   }
+
+  private Question toQuestion(JsonNode n) {
+    Question q = new Question();
+    q.setType(n.path("type").asText(null));
+    q.setPrompt(n.path("prompt").asText(null));
+
+    // options
+    if (n.has("options") && n.get("options").isArray()) {
+      List<String> opts = new ArrayList<>();
+      for (var opt : n.get("options")) {
+        opts.add(opt.asText());
+      }
+      q.setOptions(opts);
+    }
+
+    // answer (可能是 int / boolean / string)
+    if (n.has("answer")) {
+      if (n.get("answer").isInt()) {
+        q.setAnswer(n.get("answer").asInt());
+      } else if (n.get("answer").isBoolean()) {
+        q.setAnswer(n.get("answer").asBoolean());
+      } else if (n.get("answer").isTextual()) {
+        q.setAnswer(n.get("answer").asText());
+      }
+    }
+
+    // explanation
+    if (n.has("explanation")) {
+      q.setExplanation(n.get("explanation").asText());
+    }
+
+    return q;
+  }
 }
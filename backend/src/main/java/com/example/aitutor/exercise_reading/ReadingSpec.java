@@ -0,0 +1,7 @@
+package com.example.aitutor.exercise_reading;
+
+import java.util.List;
+import java.util.Map;
+
+/** 一個題組的出題規格（難度、題型、各題型數量）；合併請求時以此判斷是否為同一題組。 */
+public record ReadingSpec(String difficulty, List<String> types, Map<String, Integer> count) {}
@@ -0,0 +1,70 @@
+package com.example.aitutor.http;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+
+/**
+ * 所有對外 HTTP（LLM、TTS、R2）共用的 OkHttpClient：同一個連線池（keep-alive 重用連線、免去每次 TLS 握手）、
+ * TLS 端點以 ALPN 協商 HTTP/2、每個主機的同時請求上限，以及 OutboundHttpMetrics 的連線統計。
+ * 各用途需要不同 timeout 或標頭時用 newBuilder() 衍生，連線池與 Dispatcher 仍共用。
+ */
+@Slf4j
+@Configuration
+public class OutboundHttpConfig {
+
+  @Bean
+  public OutboundHttpMetrics outboundHttpMetrics() {
+    return new OutboundHttpMetrics();
+  }
+
+  @Bean
+  public PerHostLimitInterceptor perHostLimitInterceptor(
+      @Value("${http.client.max-requests-per-host:16}") int maxPerHost,
+      @Value("${http.client.host-acquire-timeout:PT30S}") Duration acquireTimeout) {
+    return new PerHostLimitInterceptor(Math.max(1, maxPerHost), acquireTimeout);
+  }
+
+  @Bean
+  public OkHttpClient outboundHttpClient(
+      OutboundHttpMetrics metrics,
+      PerHostLimitInterceptor perHostLimit,
+      @Value("${http.client.connect-timeout:PT5S}") Duration connectTimeout,
+      @Value("${http.client.read-timeout:PT60S}") Duration readTimeout,
+      @Value("${http.client.write-timeout:PT30S}") Duration writeTimeout,
+      @Value("${http.client.max-idle-connections:16}") int maxIdle,
+      @Value("${http.client.keep-alive:PT5M}") Duration keepAlive,
+      @Value("${http.client.max-requests:64}") int maxRequests,
+      @Value("${http.client.max-requests-per-host:16}") int maxPerHost,
+      @Value("${http.client.http2:true}") boolean http2) {
+    // 非同步呼叫（串流）在 virtual thread 上執行；不會擋住 JVM 結束，不需另外關閉
+    Dispatcher dispatcher = new Dispatcher(Executors.newVirtualThreadPerTaskExecutor());
+    dispatcher.setMaxRequests(Math.max(1, maxRequests));
+    dispatcher.setMaxRequestsPerHost(Math.max(1, maxPerHost));
+
+    log.info("[HTTP] outbound client: pool {} idle / keep-alive {}, {} per host, connect {} read {}, http2={}",
+        maxIdle, keepAlive, maxPerHost, connectTimeout, readTimeout, http2);
+    return new OkHttpClient.Builder()
+        .connectionPool(new ConnectionPool(maxIdle, keepAlive.toMillis(), TimeUnit.MILLISECONDS))
+        .dispatcher(dispatcher)
+        .protocols(http2 ? List.of(Protocol.HTTP_2, Protocol.HTTP_1_1) : List.of(Protocol.HTTP_1_1))
+        .connectTimeout(connectTimeout)
+        .readTimeout(readTimeout)
+        .writeTimeout(writeTimeout)
+        .retryOnConnectionFailure(true)
+        .addInterceptor(perHostLimit)
+        .eventListenerFactory(metrics)
+        .build();
+  }
+}
@@ -0,0 +1,143 @@
+package com.example.aitutor.http;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.SocketTimeoutException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * 共用 OkHttpClient 的 EventListener：依目的主機統計呼叫、連線建立 / 重用、TLS 握手、
+ * 連線時間與等待回應標頭的時間（TTFB），以及連線 / 讀取逾時。
+ * 每個 Call 各有一個 listener 實例（記錄該次呼叫的時間點），統計累加到主機層級。
+ */
+public class OutboundHttpMetrics implements EventListener.Factory {
+
+  public record HostStats(String host, long calls, long failures, long connectTimeouts, long readTimeouts,
+                          long newConnections, long reusedConnections, long tlsHandshakes, long http2Calls,
+                          double avgConnectMs, long maxConnectMs, double avgTtfbMs, long maxTtfbMs) {}
+
+  private final Map<String, Host> hosts = new ConcurrentHashMap<>();
+
+  @Override
+  public EventListener create(Call call) {
+    return new CallListener(hosts.computeIfAbsent(call.request().url().host(), h -> new Host()));
+  }
+
+  public List<HostStats> stats() {
+    return hosts.entrySet().stream()
+        .map(e -> e.getValue().stats(e.getKey()))
+        .sorted(Comparator.comparing(HostStats::host))
+        .toList();
+  }
+
+  private static final class Host {
+    final LongAdder calls = new LongAdder();
+    final LongAdder failures = new LongAdder();
+    final LongAdder connectTimeouts = new LongAdder();
+    final LongAdder readTimeouts = new LongAdder();
+    final LongAdder newConnections = new LongAdder();
+    final LongAdder reusedConnections = new LongAdder();
+    final LongAdder tlsHandshakes = new LongAdder();
+    final LongAdder http2Calls = new LongAdder();
+    final LongAdder connectNanos = new LongAdder();
+    final AtomicLong maxConnectNanos = new AtomicLong();
+    final LongAdder ttfbSamples = new LongAdder();
+    final LongAdder ttfbNanos = new LongAdder();
+    final AtomicLong maxTtfbNanos = new AtomicLong();
+
+    HostStats stats(String host) {
+      long connects = newConnections.sum();
+      long ttfbs = ttfbSamples.sum();
+      return new HostStats(host, calls.sum(), failures.sum(), connectTimeouts.sum(), readTimeouts.sum(),
+          connects, reusedConnections.sum(), tlsHandshakes.sum(), http2Calls.sum(),
+          connects == 0 ? 0 : connectNanos.sum() / 1e6 / connects, maxConnectNanos.get() / 1_000_000,
+          ttfbs == 0 ? 0 : ttfbNanos.sum() / 1e6 / ttfbs, maxTtfbNanos.get() / 1_000_000);
+    }
+  }
+
+  // 單次呼叫的時間點；OkHttp 對同一個 Call 的事件依序在同一條執行緒上回呼
+  private static final class CallListener extends EventListener {
+    private final Host host;
+    private long connectStart;
+    private long requestSent;
+    private boolean connected;
+
+    CallListener(Host host) {
+      this.host = host;
+    }
+
+    @Override
+    public void callStart(Call call) {
+      host.calls.increment();
+    }
+
+    @Override
+    public void connectStart(Call call, InetSocketAddress address, Proxy proxy) {
+      connectStart = System.nanoTime();
+    }
+
+    @Override
+    public void secureConnectStart(Call call) {
+      host.tlsHandshakes.increment();
+    }
+
+    @Override
+    public void connectEnd(Call call, InetSocketAddress address, Proxy proxy, Protocol protocol) {
+      long nanos = System.nanoTime() - connectStart;
+      connected = true;
+      host.newConnections.increment();
+      host.connectNanos.add(nanos);
+      host.maxConnectNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    @Override
+    public void connectFailed(Call call, InetSocketAddress address, Proxy proxy, Protocol protocol, IOException e) {
+      if (e instanceof SocketTimeoutException) host.connectTimeouts.increment();
+    }
+
+    @Override
+    public void connectionAcquired(Call call, Connection connection) {
+      if (!connected) host.reusedConnections.increment();
+      if (connection.protocol() == Protocol.HTTP_2) host.http2Calls.increment();
+    }
+
+    @Override
+    public void requestHeadersEnd(Call call, Request request) {
+      requestSent = System.nanoTime();
+    }
+
+    @Override
+    public void requestBodyEnd(Call call, long byteCount) {
+      requestSent = System.nanoTime();
+    }
+
+    @Override
+    public void responseHeadersEnd(Call call, Response response) {
+      if (requestSent == 0) return;
+      long nanos = System.nanoTime() - requestSent;
+      host.ttfbSamples.increment();
+      host.ttfbNanos.add(nanos);
+      host.maxTtfbNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    @Override
+    public void callFailed(Call call, IOException e) {
+      host.failures.increment();
+      if (e instanceof SocketTimeoutException && requestSent > 0) host.readTimeouts.increment();
+    }
+  }
+}
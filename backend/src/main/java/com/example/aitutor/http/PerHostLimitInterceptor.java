@@ -0,0 +1,115 @@
+package com.example.aitutor.http;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+
+/**
+ * 每個目的主機同時進行中的請求上限（含同步呼叫；OkHttp Dispatcher 的 maxRequestsPerHost 只管 enqueue 的呼叫）。
+ * 名額在回應 body 關閉時才歸還，串流回應讀完前都算在途；等待超過 acquire-timeout 視為 IOException。
+ */
+public class PerHostLimitInterceptor implements Interceptor {
+
+  private final int maxPerHost;
+  private final long acquireTimeoutNanos;
+  private final Map<String, Semaphore> permits = new ConcurrentHashMap<>();
+
+  public PerHostLimitInterceptor(int maxPerHost, Duration acquireTimeout) {
+    this.maxPerHost = maxPerHost;
+    this.acquireTimeoutNanos = acquireTimeout.toNanos();
+  }
+
+  @Override
+  public Response intercept(Chain chain) throws IOException {
+    String host = chain.request().url().host();
+    Semaphore s = permits.computeIfAbsent(host, h -> new Semaphore(maxPerHost, true));
+    try {
+      if (!s.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS)) {
+        throw new IOException("Too many concurrent requests to " + host);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted waiting for " + host);
+    }
+
+    AtomicBoolean released = new AtomicBoolean();
+    Runnable release = () -> {
+      if (released.compareAndSet(false, true)) s.release();
+    };
+    Response response;
+    try {
+      response = chain.proceed(chain.request());
+    } catch (IOException | RuntimeException e) {
+      release.run();
+      throw e;
+    }
+    if (response.body() == null) {
+      release.run();
+      return response;
+    }
+    return response.newBuilder().body(new ReleasingBody(response.body(), release)).build();
+  }
+
+  /** 目前各主機在途的請求數。 */
+  public Map<String, Integer> inFlight() {
+    Map<String, Integer> res = new TreeMap<>();
+    permits.forEach((h, s) -> res.put(h, maxPerHost - s.availablePermits()));
+    return res;
+  }
+
+  private static final class ReleasingBody extends ResponseBody {
+    private final ResponseBody delegate;
+    private final BufferedSource source;
+
+    ReleasingBody(ResponseBody delegate, Runnable release) {
+      this.delegate = delegate;
+      this.source = Okio.buffer(new ForwardingSource(delegate.source()) {
+        @Override
+        public long read(Buffer sink, long byteCount) throws IOException {
+          long n = super.read(sink, byteCount);
+          if (n == -1) release.run();
+          return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+          try {
+            super.close();
+          } finally {
+            release.run();
+          }
+        }
+      });
+    }
+
+    @Override
+    public MediaType contentType() {
+      return delegate.contentType();
+    }
+
+    @Override
+    public long contentLength() {
+      return delegate.contentLength();
+    }
+
+    @Override
+    public BufferedSource source() {
+      return source;
+    }
+  }
+}
@@ -0,0 +1,60 @@
+package com.example.aitutor.llm;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+/**
+ * 實際呼叫交給 HedgingLlmClient（再往下是 OpenAiLlmClient / DummyLlmClient），
+ * 同步與非同步呼叫都經過同一個 LlmBulkhead，共用同時在途上限。
+ * 對外注入的是外層的 CachingLlmClient（快取命中不佔名額）。
+ */
+@Service
+@Qualifier("llmBounded")
+public class BulkheadLlmClient implements LlmClient {
+
+  private final LlmClient backend;
+  private final LlmBulkhead bulkhead;
+
+  public BulkheadLlmClient(@Qualifier("llmHedged") LlmClient backend, LlmBulkhead bulkhead) {
+    this.backend = backend;
+    this.bulkhead = bulkhead;
+  }
+
+  @Override
+  public String completeJson(String prompt) {
+    return LlmClient.await(completeJsonAsync(prompt));
+  }
+
+  @Override
+  public String completeJson(String prompt, LlmCallOptions options) {
+    return LlmClient.await(completeJsonAsync(prompt, options));
+  }
+
+  @Override
+  public CompletableFuture<String> completeJsonAsync(String prompt, LlmCallOptions options) {
+    return bulkhead.submit(() -> backend.completeJson(prompt, options));
+  }
+
+  @Override
+  public String streamJson(String prompt, Consumer<String> onChunk) {
+    return LlmClient.await(streamJsonAsync(prompt, onChunk));
+  }
+
+  @Override
+  public String streamJson(String prompt, LlmCallOptions options, Consumer<String> onChunk) {
+    return LlmClient.await(streamJsonAsync(prompt, options, onChunk));
+  }
+
+  @Override
+  public CompletableFuture<String> streamJsonAsync(String prompt, LlmCallOptions options, Consumer<String> onChunk) {
+    return bulkhead.submit(() -> backend.streamJson(prompt, options, onChunk));
+  }
+
+  @Override
+  public String fingerprint() {
+    return backend.fingerprint();
+  }
+}
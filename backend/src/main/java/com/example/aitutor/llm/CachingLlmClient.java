@@ -0,0 +1,270 @@
+package com.example.aitutor.llm;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 對外注入的 LlmClient：以 sha256(fingerprint + 正規化 prompt) 為 key 快取回應，未命中才交給 BulkheadLlmClient。
+ * fingerprint 含 provider、模型與 temperature，任一改變就是不同的 key。
+ *
+ *   記憶體：LRU（max-entries）+ TTL，命中時不經過 bulkhead，直接回傳
+ *   Postgres：llm_cache 表，TTL 與筆數上限由排程清除；DB 故障只記 log，照常呼叫 LLM
+ *   同一個 key 同時只有一個請求在途，其餘等同一個結果（例如 client timeout 後的重試）
+ *   只有合法 JSON 才寫入快取；LlmCallOptions.bypassCache 不讀快取、結果照常寫回
+ *
+ * 串流呼叫命中快取時，整段內容一次交給 onChunk。
+ */
+@Slf4j
+@Primary
+@Service
+public class CachingLlmClient implements LlmClient {
+
+  private static final Pattern HORIZONTAL_WS = Pattern.compile("[ \\t\\x0B\\f]+");
+  private static final Pattern WS_AROUND_NEWLINE = Pattern.compile(" ?\n ?");
+
+  /** 命中率計入記憶體、DB 與等待同一在途請求（coalesced）三種。 */
+  public record Stats(boolean enabled, int memoryEntries, long memoryHits, long dbHits, long coalesced,
+                      long misses, long bypassed, long notCached, double hitRatio) {}
+
+  private record Entry(String response, long expiresAtNanos) {}
+
+  private final LlmClient delegate;
+  private final LlmCacheRepository repo;
+  private final ObjectMapper om;
+  private final boolean enabled;
+  private final boolean persist;
+  private final long memoryTtlNanos;
+  private final Duration persistTtl;
+  private final int maxRows;
+
+  private final LinkedHashMap<String, Entry> memory;
+  private final ConcurrentHashMap<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+  private final LongAdder memoryHits = new LongAdder();
+  private final LongAdder dbHits = new LongAdder();
+  private final LongAdder coalesced = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder bypassed = new LongAdder();
+  private final LongAdder notCached = new LongAdder();
+
+  public CachingLlmClient(@Qualifier("llmBounded") LlmClient delegate,
+                          LlmCacheRepository repo,
+                          ObjectMapper om,
+                          @Value("${llm.cache.enabled:true}") boolean enabled,
+                          @Value("${llm.cache.memory.max-entries:200}") int maxEntries,
+                          @Value("${llm.cache.memory.ttl:PT6H}") Duration memoryTtl,
+                          @Value("${llm.cache.persistent.enabled:true}") boolean persist,
+                          @Value("${llm.cache.persistent.ttl:P30D}") Duration persistTtl,
+                          @Value("${llm.cache.persistent.max-rows:50000}") int maxRows) {
+    this.delegate = delegate;
+    this.repo = repo;
+    this.om = om;
+    this.enabled = enabled;
+    this.persist = enabled && persist;
+    this.memoryTtlNanos = memoryTtl.toNanos();
+    this.persistTtl = persistTtl;
+    this.maxRows = maxRows;
+
+    int cap = Math.max(1, maxEntries);
+    this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+        return size() > cap;
+      }
+    };
+    log.info("[LLM] cache enabled={}, memory={} entries/{}, persistent={} ttl={}",
+        enabled, cap, memoryTtl, this.persist, persistTtl);
+  }
+
+  @Override
+  public String completeJson(String prompt) {
+    return LlmClient.await(completeJsonAsync(prompt));
+  }
+
+  @Override
+  public String completeJson(String prompt, LlmCallOptions options) {
+    return LlmClient.await(completeJsonAsync(prompt, options));
+  }
+
+  @Override
+  public CompletableFuture<String> completeJsonAsync(String prompt, LlmCallOptions options) {
+    if (!enabled) return delegate.completeJsonAsync(prompt, options);
+    return lookupOrCall(prompt, options, null, () -> delegate.completeJsonAsync(prompt, options));
+  }
+
+  @Override
+  public String streamJson(String prompt, Consumer<String> onChunk) {
+    return LlmClient.await(streamJsonAsync(prompt, onChunk));
+  }
+
+  @Override
+  public String streamJson(String prompt, LlmCallOptions options, Consumer<String> onChunk) {
+    return LlmClient.await(streamJsonAsync(prompt, options, onChunk));
+  }
+
+  @Override
+  public CompletableFuture<String> streamJsonAsync(String prompt, LlmCallOptions options, Consumer<String> onChunk) {
+    if (!enabled) return delegate.streamJsonAsync(prompt, options, onChunk);
+    return lookupOrCall(prompt, options, onChunk, () -> delegate.streamJsonAsync(prompt, options, onChunk));
+  }
+
+  @Override
+  public String fingerprint() {
+    return delegate.fingerprint();
+  }
+
+  public Stats stats() {
+    long hits = memoryHits.sum() + dbHits.sum() + coalesced.sum();
+    long total = hits + misses.sum();
+    int entries;
+    synchronized (memory) {
+      entries = memory.size();
+    }
+    return new Stats(enabled, entries, memoryHits.sum(), dbHits.sum(), coalesced.sum(),
+        misses.sum(), bypassed.sum(), notCached.sum(), total == 0 ? 0 : (double) hits / total);
+  }
+
+  /** 清除逾期與超過筆數上限的持久快取。 */
+  @Scheduled(fixedDelayString = "${llm.cache.persistent.purge-interval:PT1H}", initialDelayString = "PT5M")
+  public void purge() {
+    if (!persist) return;
+    try {
+      int expired = repo.deleteOlderThan(Instant.now().minus(persistTtl));
+      int trimmed = maxRows > 0 ? repo.trimTo(maxRows) : 0;
+      if (expired + trimmed > 0) log.info("[LLM] cache purge: {} expired, {} over max-rows", expired, trimmed);
+    } catch (Exception e) {
+      log.warn("[LLM] cache purge failed: {}", e.getMessage());
+    }
+  }
+
+  // onChunk 為 null 表示非串流呼叫；命中快取時整段交給 onChunk
+  private CompletableFuture<String> lookupOrCall(String prompt, LlmCallOptions options, Consumer<String> onChunk,
+                                                 Supplier<CompletableFuture<String>> call) {
+    String key = key(prompt);
+    if (options.bypassCache()) {
+      bypassed.increment();
+      return call.get().thenApply(r -> store(key, r));
+    }
+
+    String hit = memoryGet(key);
+    if (hit != null) {
+      memoryHits.increment();
+      return CompletableFuture.completedFuture(deliver(hit, onChunk));
+    }
+
+    CompletableFuture<String> mine = new CompletableFuture<>();
+    CompletableFuture<String> shared = inFlight.putIfAbsent(key, mine);
+    if (shared != null) {
+      coalesced.increment();
+      return shared.thenApply(r -> deliver(r, onChunk));
+    }
+
+    CompletableFuture.supplyAsync(() -> dbGet(key), VIRTUAL_THREADS)
+        .thenCompose(stored -> {
+          if (stored != null) return CompletableFuture.completedFuture(deliver(stored, onChunk));
+          misses.increment();
+          return call.get().thenApply(r -> store(key, r));
+        })
+        .whenComplete((r, ex) -> {
+          inFlight.remove(key, mine);
+          if (ex == null) mine.complete(r);
+          else mine.completeExceptionally(ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex);
+        });
+    return mine;
+  }
+
+  private static String deliver(String response, Consumer<String> onChunk) {
+    if (onChunk != null) onChunk.accept(response);
+    return response;
+  }
+
+  private String memoryGet(String key) {
+    synchronized (memory) {
+      Entry e = memory.get(key);
+      if (e == null) return null;
+      if (System.nanoTime() - e.expiresAtNanos() > 0) {
+        memory.remove(key);
+        return null;
+      }
+      return e.response();
+    }
+  }
+
+  private void memoryPut(String key, String response) {
+    synchronized (memory) {
+      memory.put(key, new Entry(response, System.nanoTime() + memoryTtlNanos));
+    }
+  }
+
+  private String dbGet(String key) {
+    if (!persist) return null;
+    try {
+      String stored = repo.findFresh(key, Instant.now().minus(persistTtl)).orElse(null);
+      if (stored != null) {
+        dbHits.increment();
+        memoryPut(key, stored);
+        repo.touch(key);
+      }
+      return stored;
+    } catch (Exception e) {
+      log.warn("[LLM] cache read failed: {}", e.getMessage());
+      return null;
+    }
+  }
+
+  // 只快取可解析的 JSON；寫入失敗不影響回傳
+  private String store(String key, String response) {
+    try {
+      om.readTree(response);
+    } catch (Exception e) {
+      notCached.increment();
+      return response;
+    }
+    memoryPut(key, response);
+    if (persist) {
+      try {
+        repo.upsert(key, delegate.fingerprint(), response);
+      } catch (Exception e) {
+        log.warn("[LLM] cache write failed: {}", e.getMessage());
+      }
+    }
+    return response;
+  }
+
+  private String key(String prompt) {
+    String normalized = WS_AROUND_NEWLINE.matcher(
+        HORIZONTAL_WS.matcher(prompt.replace("\r\n", "\n")).replaceAll(" ")).replaceAll("\n").strip();
+    try {
+      MessageDigest sha = MessageDigest.getInstance("SHA-256");
+      sha.update(delegate.fingerprint().getBytes(StandardCharsets.UTF_8));
+      sha.update((byte) '\n');
+      sha.update(normalized.getBytes(StandardCharsets.UTF_8));
+      return HexFormat.of().formatHex(sha.digest());
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
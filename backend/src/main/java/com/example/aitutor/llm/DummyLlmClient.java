@@ -1,10 +1,12 @@
 package com.example.aitutor.llm;
 
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 
 @Service
 @Profile("dev")
+@Qualifier("llmBackend")
 public class DummyLlmClient implements LlmClient {
   @Override
   public String completeJson(String prompt) {
@@ -22,4 +24,9 @@ public class DummyLlmClient implements LlmClient {
       }
       """;
   }
+
+  @Override
+  public String fingerprint() {
+    return "dummy";
+  }
 }
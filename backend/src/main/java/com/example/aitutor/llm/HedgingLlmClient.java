@@ -0,0 +1,217 @@
+package com.example.aitutor.llm;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 降低長尾延遲的 hedged request：呼叫超過近期延遲的 p 百分位仍未完成時，再送一個相同請求，
+ * 先回傳合法 JSON 的勝出，另一個取消（中斷執行緒，OkHttp 的連線隨之關閉）。
+ *
+ *   門檻：最近 window 次成功呼叫的延遲取 percentile，且不低於 min-delay；樣本不足 min-samples 時不 hedge
+ *   預算：每次呼叫累積 budget 點額度（上限 max-burst），真的送出 hedge 時才花 1 點，額外呼叫約為 budget 比例
+ *   串流呼叫不 hedge（內容已交給呼叫端，無法撤回）
+ *
+ * 位置：BulkheadLlmClient → HedgingLlmClient → backend，hedge 的那一份不另佔 bulkhead 名額，
+ * 但仍經過 ProviderRateLimiter。
+ */
+@Slf4j
+@Service
+@Qualifier("llmHedged")
+public class HedgingLlmClient implements LlmClient {
+
+  public record Stats(boolean enabled, long calls, long hedged, long hedgeWins, long budgetDenied,
+                      long thresholdMs, int samples) {}
+
+  private final LlmClient backend;
+  private final ObjectMapper om;
+  private final boolean enabled;
+  private final double percentile;
+  private final int minSamples;
+  private final long minDelayNanos;
+  private final double budget;
+  private final double maxBurst;
+
+  // 最近 window 次成功呼叫的延遲（環狀），guarded by this
+  private final long[] latencies;
+  private int next;
+  private int size;
+  private double credits;
+
+  private final LongAdder calls = new LongAdder();
+  private final LongAdder hedged = new LongAdder();
+  private final LongAdder hedgeWins = new LongAdder();
+  private final LongAdder budgetDenied = new LongAdder();
+
+  public HedgingLlmClient(@Qualifier("llmBackend") LlmClient backend,
+                          ObjectMapper om,
+                          @Value("${llm.hedge.enabled:false}") boolean enabled,
+                          @Value("${llm.hedge.percentile:0.95}") double percentile,
+                          @Value("${llm.hedge.window:200}") int window,
+                          @Value("${llm.hedge.min-samples:20}") int minSamples,
+                          @Value("${llm.hedge.min-delay:PT3S}") Duration minDelay,
+                          @Value("${llm.hedge.budget:0.1}") double budget,
+                          @Value("${llm.hedge.max-burst:5}") double maxBurst) {
+    this.backend = backend;
+    this.om = om;
+    this.enabled = enabled;
+    this.percentile = Math.clamp(percentile, 0.5, 0.999);
+    this.minSamples = Math.max(1, minSamples);
+    this.minDelayNanos = minDelay.toNanos();
+    this.budget = Math.max(0, budget);
+    this.maxBurst = Math.max(1, maxBurst);
+    this.latencies = new long[Math.max(this.minSamples, window)];
+  }
+
+  @Override
+  public String completeJson(String prompt) {
+    return completeJson(prompt, LlmCallOptions.DEFAULT);
+  }
+
+  @Override
+  public String completeJson(String prompt, LlmCallOptions options) {
+    calls.increment();
+    if (!enabled) return backend.completeJson(prompt, options);
+
+    long threshold = thresholdNanos();
+    if (threshold <= 0) return timed(() -> backend.completeJson(prompt, options));
+
+    CompletableFuture<String> winner = new CompletableFuture<>();
+    AtomicInteger pending = new AtomicInteger(1);
+    AtomicReference<String> invalid = new AtomicReference<>();
+    Future<?> primary = VIRTUAL_THREADS.submit(() -> attempt(prompt, options, winner, pending, invalid, false));
+    try {
+      return winner.get(threshold, TimeUnit.NANOSECONDS);
+    } catch (TimeoutException e) {
+      // 超過門檻才扣額度；額度不足就繼續等第一份
+      if (!takeCredit()) return LlmClient.await(winner);
+      // 送出第二份，先回合法 JSON 的勝出
+      hedged.increment();
+      pending.incrementAndGet();
+      log.debug("[LLM] hedging after {} ms", TimeUnit.NANOSECONDS.toMillis(threshold));
+      Future<?> hedge = VIRTUAL_THREADS.submit(() -> attempt(prompt, options, winner, pending, invalid, true));
+      try {
+        return LlmClient.await(winner);
+      } finally {
+        primary.cancel(true);
+        hedge.cancel(true);
+      }
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException re) throw re;
+      throw new RuntimeException(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      primary.cancel(true);
+      throw new RuntimeException("Interrupted while waiting for LLM", e);
+    } finally {
+      if (!winner.isDone()) primary.cancel(true);
+    }
+  }
+
+  @Override
+  public String streamJson(String prompt, Consumer<String> onChunk) {
+    return backend.streamJson(prompt, onChunk);
+  }
+
+  @Override
+  public String streamJson(String prompt, LlmCallOptions options, Consumer<String> onChunk) {
+    return backend.streamJson(prompt, options, onChunk);
+  }
+
+  @Override
+  public String fingerprint() {
+    return backend.fingerprint();
+  }
+
+  public Stats stats() {
+    long t = thresholdNanos();
+    int samples;
+    synchronized (this) {
+      samples = size;
+    }
+    return new Stats(enabled, calls.sum(), hedged.sum(), hedgeWins.sum(), budgetDenied.sum(),
+        t / 1_000_000, samples);
+  }
+
+  // 單一份呼叫：合法 JSON 才算勝出；兩份都不合法時照舊回傳原文交給呼叫端解析，都失敗則回傳錯誤
+  private void attempt(String prompt, LlmCallOptions options, CompletableFuture<String> winner,
+                       AtomicInteger pending, AtomicReference<String> invalid, boolean isHedge) {
+    String r;
+    try {
+      r = timed(() -> backend.completeJson(prompt, options));
+    } catch (RuntimeException e) {
+      if (pending.decrementAndGet() == 0) {
+        if (invalid.get() != null) winner.complete(invalid.get());
+        else winner.completeExceptionally(e);
+      }
+      return;
+    }
+    if (isValidJson(r)) {
+      if (winner.complete(r) && isHedge) hedgeWins.increment();
+    } else {
+      invalid.set(r);
+    }
+    if (pending.decrementAndGet() == 0) winner.complete(r);
+  }
+
+  private boolean isValidJson(String s) {
+    try {
+      om.readTree(s);
+      return true;
+    } catch (Exception e) {
+      return false;
+    }
+  }
+
+  private String timed(Supplier<String> call) {
+    long t0 = System.nanoTime();
+    String r = call.get();
+    record(System.nanoTime() - t0);
+    return r;
+  }
+
+  private synchronized void record(long nanos) {
+    latencies[next] = nanos;
+    next = (next + 1) % latencies.length;
+    if (size < latencies.length) size++;
+    credits = Math.min(maxBurst, credits + budget);
+  }
+
+  private synchronized boolean takeCredit() {
+    if (credits < 1) {
+      budgetDenied.increment();
+      return false;
+    }
+    credits -= 1;
+    return true;
+  }
+
+  /** 0 = 樣本不足，不 hedge。 */
+  private long thresholdNanos() {
+    long[] copy;
+    synchronized (this) {
+      if (size < minSamples) return 0;
+      copy = Arrays.copyOf(latencies, size);
+    }
+    Arrays.sort(copy);
+    int idx = Math.min(copy.length - 1, (int) Math.ceil(percentile * copy.length) - 1);
+    return Math.max(minDelayNanos, copy[Math.max(0, idx)]);
+  }
+}
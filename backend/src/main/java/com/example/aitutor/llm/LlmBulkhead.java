@@ -0,0 +1,146 @@
+package com.example.aitutor.llm;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * LLM 呼叫的 bulkhead：同時在途上限 + 有上限的等待佇列，呼叫跑在 virtual threads（不佔 servlet 執行緒）。
+ *
+ *   在途未滿：直接執行
+ *   在途已滿：進入等待（公平 Semaphore，先到先服務），等待超過 queue-timeout 即失敗
+ *   等待數已達 max-queue：立即拒絕（LlmBusyException），burst 不會無限堆積
+ *
+ * permit 在呼叫結束時就歸還，之後的 thenApply 等後續階段不佔名額。
+ *
+ * 設定：
+ *   llm.bulkhead.max-in-flight  同時呼叫上限
+ *   llm.bulkhead.max-queue      等待中的呼叫上限
+ *   llm.bulkhead.queue-timeout  單次最長等待
+ */
+@Slf4j
+@Component
+public class LlmBulkhead {
+
+  /** 目前狀態與啟動以來的累計值（等待時間只計入實際取得 permit 的呼叫）。 */
+  public record Stats(int maxInFlight, int inFlight, int maxQueue, int queued,
+                      long submitted, long completed, long failed, long rejected, long timedOut,
+                      double avgWaitMs, long maxWaitMs) {}
+
+  private final int maxInFlight;
+  private final int maxQueue;
+  private final Duration queueTimeout;
+  private final Semaphore permits;
+  private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+  private final AtomicInteger queued = new AtomicInteger();
+  private final LongAdder submitted = new LongAdder();
+  private final LongAdder completed = new LongAdder();
+  private final LongAdder failed = new LongAdder();
+  private final LongAdder rejected = new LongAdder();
+  private final LongAdder timedOut = new LongAdder();
+  private final LongAdder admitted = new LongAdder();
+  private final LongAdder waitNanos = new LongAdder();
+  private final AtomicLong maxWaitNanos = new AtomicLong();
+
+  public LlmBulkhead(@Value("${llm.bulkhead.max-in-flight:8}") int maxInFlight,
+                     @Value("${llm.bulkhead.max-queue:32}") int maxQueue,
+                     @Value("${llm.bulkhead.queue-timeout:PT30S}") Duration queueTimeout) {
+    this.maxInFlight = Math.max(1, maxInFlight);
+    this.maxQueue = Math.max(0, maxQueue);
+    this.queueTimeout = queueTimeout;
+    this.permits = new Semaphore(this.maxInFlight, true);
+    log.info("[LLM] bulkhead maxInFlight={}, maxQueue={}, queueTimeout={}", this.maxInFlight, this.maxQueue, queueTimeout);
+  }
+
+  public <T> CompletableFuture<T> submit(Callable<T> call) {
+    submitted.increment();
+    long enqueued = System.nanoTime();
+
+    // 有空位就直接拿（tryAcquire 帶 timeout 才會遵守公平順序，不插隊）
+    boolean immediate;
+    try {
+      immediate = permits.tryAcquire(0, TimeUnit.NANOSECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return CompletableFuture.failedFuture(e);
+    }
+    if (immediate) {
+      recordWait(0);
+      return CompletableFuture.supplyAsync(() -> runHolding(call), executor);
+    }
+
+    if (queued.incrementAndGet() > maxQueue) {
+      queued.decrementAndGet();
+      rejected.increment();
+      return CompletableFuture.failedFuture(new LlmBusyException(
+          "LLM queue full (" + maxQueue + " waiting, " + maxInFlight + " in flight)"));
+    }
+    return CompletableFuture.supplyAsync(() -> {
+      boolean acquired;
+      try {
+        acquired = permits.tryAcquire(queueTimeout.toNanos(), TimeUnit.NANOSECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new CompletionException(e);
+      } finally {
+        queued.decrementAndGet();
+      }
+      if (!acquired) {
+        timedOut.increment();
+        throw new LlmBusyException("LLM queue wait exceeded " + queueTimeout);
+      }
+      recordWait(System.nanoTime() - enqueued);
+      return runHolding(call);
+    }, executor);
+  }
+
+  public Stats stats() {
+    long n = admitted.sum();
+    return new Stats(maxInFlight, maxInFlight - permits.availablePermits(), maxQueue, queued.get(),
+        submitted.sum(), completed.sum(), failed.sum(), rejected.sum(), timedOut.sum(),
+        n == 0 ? 0 : waitNanos.sum() / 1e6 / n, maxWaitNanos.get() / 1_000_000);
+  }
+
+  @PreDestroy
+  void shutdown() {
+    executor.shutdownNow();
+  }
+
+  // 已持有 permit：執行呼叫，結束即歸還
+  private <T> T runHolding(Callable<T> call) {
+    try {
+      T result = call.call();
+      completed.increment();
+      return result;
+    } catch (RuntimeException e) {
+      failed.increment();
+      throw e;
+    } catch (Exception e) {
+      failed.increment();
+      throw new CompletionException(e);
+    } finally {
+      permits.release();
+    }
+  }
+
+  private void recordWait(long nanos) {
+    admitted.increment();
+    waitNanos.add(nanos);
+    maxWaitNanos.accumulateAndGet(nanos, Math::max);
+  }
+}
@@ -0,0 +1,8 @@
+package com.example.aitutor.llm;
+
+/** LLM bulkhead 的等待佇列已滿，或等待超過上限。 */
+public class LlmBusyException extends RuntimeException {
+  public LlmBusyException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,42 @@
+package com.example.aitutor.llm;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * LLM 回應快取（持久層）：key = sha256(fingerprint + 正規化 prompt)。
+ * 讀寫都走 LlmCacheRepository 的 native SQL；這裡只提供 schema 對應。
+ */
+@Entity
+@Table(name = "llm_cache")
+@Getter @Setter
+@NoArgsConstructor
+public class LlmCacheEntry {
+
+  // 對應 cache_key TEXT PRIMARY KEY（sha256 hex）
+  @Id
+  @Column(name = "cache_key", columnDefinition = "TEXT")
+  private String cacheKey;
+
+  @Column(nullable = false, columnDefinition = "TEXT")
+  private String fingerprint;
+
+  @Column(nullable = false, columnDefinition = "TEXT")
+  private String response;
+
+  @Column(name = "created_at", nullable = false)
+  private Instant createdAt;
+
+  @Column(name = "last_hit_at")
+  private Instant lastHitAt;
+
+  @Column(nullable = false)
+  private int hits;
+}
@@ -0,0 +1,51 @@
+package com.example.aitutor.llm;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface LlmCacheRepository extends JpaRepository<LlmCacheEntry, String> {
+
+  @Query("select e.response from LlmCacheEntry e where e.cacheKey = :key and e.createdAt > :notBefore")
+  Optional<String> findFresh(String key, Instant notBefore);
+
+  /** 同一個 key 再寫入（例如 bypass 後的新結果）即覆蓋並重設建立時間。 */
+  @Modifying
+  @Transactional
+  @Query(value = """
+      INSERT INTO llm_cache (cache_key, fingerprint, response, created_at, hits)
+      VALUES (:key, :fingerprint, :response, now() AT TIME ZONE 'UTC', 0)
+      ON CONFLICT (cache_key) DO UPDATE
+        SET fingerprint = EXCLUDED.fingerprint,
+            response = EXCLUDED.response,
+            created_at = EXCLUDED.created_at
+      """, nativeQuery = true)
+  int upsert(String key, String fingerprint, String response);
+
+  @Modifying
+  @Transactional
+  @Query(value = "UPDATE llm_cache SET hits = hits + 1, last_hit_at = now() AT TIME ZONE 'UTC' WHERE cache_key = :key",
+      nativeQuery = true)
+  int touch(String key);
+
+  @Modifying
+  @Transactional
+  @Query(value = "DELETE FROM llm_cache WHERE created_at < :cutoff", nativeQuery = true)
+  int deleteOlderThan(Instant cutoff);
+
+  /** 只保留最近使用的 maxRows 筆。 */
+  @Modifying
+  @Transactional
+  @Query(value = """
+      DELETE FROM llm_cache WHERE cache_key IN (
+        SELECT cache_key FROM llm_cache
+        ORDER BY COALESCE(last_hit_at, created_at) DESC
+        OFFSET :maxRows
+      )
+      """, nativeQuery = true)
+  int trimTo(int maxRows);
+}
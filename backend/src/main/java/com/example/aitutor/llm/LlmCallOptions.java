@@ -0,0 +1,32 @@
+package com.example.aitutor.llm;
+
+import java.util.Locale;
+
+/**
+ * 單次呼叫的選項。
+ *
+ * @param bypassCache   不讀快取（結果仍會寫回，等於強制更新）
+ * @param difficulty    路由提示：easy / medium / hard，null = 未知
+ * @param passageTokens 路由提示：文章的估算 token 數，0 = 未知（改用整份 prompt 估算）
+ */
+public record LlmCallOptions(boolean bypassCache, String difficulty, int passageTokens) {
+
+  public static final LlmCallOptions DEFAULT = new LlmCallOptions(false);
+  public static final LlmCallOptions BYPASS_CACHE = new LlmCallOptions(true);
+
+  public LlmCallOptions(boolean bypassCache) {
+    this(bypassCache, null, 0);
+  }
+
+  /** 同樣的快取設定，加上路由提示。 */
+  public LlmCallOptions withHints(String difficulty, int passageTokens) {
+    return new LlmCallOptions(bypassCache, difficulty, passageTokens);
+  }
+
+  /** 依 HTTP Cache-Control 請求標頭：no-cache / no-store 即略過快取。 */
+  public static LlmCallOptions fromCacheControl(String cacheControl) {
+    if (cacheControl == null) return DEFAULT;
+    String v = cacheControl.toLowerCase(Locale.ROOT);
+    return v.contains("no-cache") || v.contains("no-store") ? BYPASS_CACHE : DEFAULT;
+  }
+}
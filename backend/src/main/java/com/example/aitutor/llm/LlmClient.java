@@ -1,5 +1,69 @@
 package com.example.aitutor.llm;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
 public interface LlmClient {
+
+  /** 預設的非同步執行緒：每次呼叫一條 virtual thread。 */
+  ExecutorService VIRTUAL_THREADS = Executors.newVirtualThreadPerTaskExecutor();
+
   String completeJson(String prompt);
+
+  /** 帶選項的同步呼叫；options 只有路由（RoutingLlmClient）與外層包裝會用到，其他 backend 忽略。 */
+  default String completeJson(String prompt, LlmCallOptions options) {
+    return completeJson(prompt);
+  }
+
+  default CompletableFuture<String> completeJsonAsync(String prompt) {
+    return completeJsonAsync(prompt, LlmCallOptions.DEFAULT);
+  }
+
+  /**
+   * 非同步版本；預設在 virtual thread 上呼叫 completeJson。
+   * options 由外層（快取、bulkhead）與路由解讀，一般 backend 忽略。
+   */
+  default CompletableFuture<String> completeJsonAsync(String prompt, LlmCallOptions options) {
+    return CompletableFuture.supplyAsync(() -> completeJson(prompt, options), VIRTUAL_THREADS);
+  }
+
+  /**
+   * 串流版本：模型輸出的片段依序交給 onChunk（在呼叫端執行緒上），結束時回傳完整內容。
+   * 不支援串流的實作預設整段一次交出。
+   */
+  default String streamJson(String prompt, Consumer<String> onChunk) {
+    String content = completeJson(prompt);
+    onChunk.accept(content);
+    return content;
+  }
+
+  default String streamJson(String prompt, LlmCallOptions options, Consumer<String> onChunk) {
+    return streamJson(prompt, onChunk);
+  }
+
+  default CompletableFuture<String> streamJsonAsync(String prompt, Consumer<String> onChunk) {
+    return streamJsonAsync(prompt, LlmCallOptions.DEFAULT, onChunk);
+  }
+
+  default CompletableFuture<String> streamJsonAsync(String prompt, LlmCallOptions options, Consumer<String> onChunk) {
+    return CompletableFuture.supplyAsync(() -> streamJson(prompt, options, onChunk), VIRTUAL_THREADS);
+  }
+
+  /** 影響輸出的設定（provider、模型、temperature）；相同 fingerprint + prompt 視為同一個請求。 */
+  default String fingerprint() {
+    return getClass().getSimpleName();
+  }
+
+  /** 等待結果；CompletionException 包著的 RuntimeException 直接拋出。 */
+  static <T> T await(CompletableFuture<T> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException re) throw re;
+      throw e;
+    }
+  }
 }
@@ -0,0 +1,57 @@
+package com.example.aitutor.llm;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * RoutingLlmClient 的 backend 清單與健康判定（application.yml 的 llm.routing）。
+ * backends 留空時只有一個由 openai.* 建立的 backend，行為與單一 OpenAI 相同。
+ */
+@Getter @Setter
+@Component
+@ConfigurationProperties(prefix = "llm.routing")
+public class LlmRoutingProperties {
+
+  private List<Backend> backends = new ArrayList<>();
+  /** EWMA 平滑係數：新樣本的權重。 */
+  private double ewmaAlpha = 0.2;
+  /** 延遲 EWMA 超過同批最快 backend 的幾倍即視為偏慢，排到後面。 */
+  private double slowFactor = 3;
+  /** 偏慢的 backend 仍照原順序的機率（用來更新它的延遲 EWMA）。 */
+  private double probeRatio = 0.05;
+  /** 排在後段時的分數 = 延遲 EWMA × (1 + error-penalty × 錯誤率 EWMA)，越低越優先。 */
+  private double errorPenalty = 4;
+  /** 連續失敗幾次即視為降級。 */
+  private int failureThreshold = 3;
+  /** 錯誤率 EWMA 超過此值也視為降級。 */
+  private double errorRateThreshold = 0.5;
+  /** 呼叫次數達此值後，錯誤率與偏慢的判定才生效。 */
+  private int minSamples = 5;
+  /** 降級後暫停路由的時間；之後放行一次探測，成功即恢復。 */
+  private Duration cooldown = Duration.ofSeconds(30);
+
+  @Getter @Setter
+  public static class Backend {
+    private String name;
+    /** OpenAI 相容端點，例如 http://localhost:8000/v1/；空白 = OpenAI 官方。 */
+    private String baseUrl;
+    private String apiKey;
+    private String model;
+    /** null = 沿用 openai.temperature。 */
+    private Double temperature;
+    /** ProviderRateLimiter 的 lane；本機端點可另開 lane，未設定的 lane 不限 RPM/TPM。 */
+    private String lane = "chat";
+    private Duration timeout = Duration.ofSeconds(60);
+    /** 只接文章 token 數不超過此值的請求；0 = 不限。 */
+    private int maxPassageTokens = 0;
+    /** 只接難度不高於此值的請求（easy / medium / hard）；空白 = 不限。 */
+    private String maxDifficulty;
+  }
+}
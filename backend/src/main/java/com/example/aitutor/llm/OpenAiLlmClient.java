@@ -2,47 +2,113 @@ package com.example.aitutor.llm;
 
 import java.time.Duration;
 import java.util.List;
+import java.util.function.Consumer;
 
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.stereotype.Service;
-
+import com.theokanning.openai.client.OpenAiApi;
 import com.theokanning.openai.completion.chat.ChatCompletionRequest;
 import com.theokanning.openai.completion.chat.ChatMessage;
 import com.theokanning.openai.service.OpenAiService;
 
 import lombok.extern.slf4j.Slf4j;
+import okhttp3.OkHttpClient;
+import retrofit2.Retrofit;
 
+/**
+ * OpenAI 相容的 chat completions 端點（OpenAI 本身或本機的相容伺服器），由 RoutingLlmClient 依設定建立。
+ * 每個實例綁定一個模型與一條 ProviderRateLimiter lane。
+ */
 @Slf4j
-@Service
 public class OpenAiLlmClient implements LlmClient {
 
+  private final String name;
   private final OpenAiService service;
   private final String model;
+  private final double temperature;
+  private final ProviderRateLimiter limiter;
+  private final String lane;
+  private final int expectedOutputTokens;
 
-  public OpenAiLlmClient(@Value("${openai.api-key}") String apiKey,
-                       @Value("${openai.model:gpt-4o-mini}") String model) {
-  this.service = new OpenAiService(apiKey, Duration.ofSeconds(60)); // ← 加長 timeout
-  this.model = model;
-}
-  @Override
-  public String completeJson(String prompt) {
-    ChatMessage system = new ChatMessage("system", "You are an assistant that outputs only JSON.");
-    ChatMessage user = new ChatMessage("user", prompt);
+  public OpenAiLlmClient(String name, OkHttpClient http, String baseUrl, String apiKey, Duration timeout,
+                         String model, double temperature, int expectedOutputTokens,
+                         ProviderRateLimiter limiter, String lane) {
+    this.name = name;
+    this.service = createService(http, baseUrl, apiKey, timeout);
+    this.model = model;
+    this.temperature = temperature;
+    this.expectedOutputTokens = expectedOutputTokens;
+    this.limiter = limiter;
+    this.lane = lane;
+  }
 
-    ChatCompletionRequest req = ChatCompletionRequest.builder()
-        .model(model)
-        .messages(List.of(system, user))
-        .temperature(0.7)
+  // 由共用的 OkHttpClient 衍生（同一個連線池），只換 read timeout 與 Authorization 標頭；
+  // baseUrl 為空時用 OpenAI 官方端點，否則換掉 Retrofit 的 base URL（例如 http://localhost:8000/v1/）
+  private static OpenAiService createService(OkHttpClient http, String baseUrl, String apiKey, Duration timeout) {
+    String bearer = "Bearer " + (apiKey == null ? "" : apiKey);
+    OkHttpClient client = http.newBuilder()
+        .addInterceptor(chain -> chain.proceed(chain.request().newBuilder().header("Authorization", bearer).build()))
+        .readTimeout(timeout)
         .build();
+    Retrofit retrofit = OpenAiService.defaultRetrofit(client, OpenAiService.defaultObjectMapper());
+    if (baseUrl != null && !baseUrl.isBlank()) {
+      retrofit = retrofit.newBuilder().baseUrl(baseUrl.endsWith("/") ? baseUrl : baseUrl + "/").build();
+    }
+    return new OpenAiService(retrofit.create(OpenAiApi.class), client.dispatcher().executorService());
+  }
 
-    var result = service.createChatCompletion(req);
+  @Override
+  public String completeJson(String prompt) {
+    // 限流 + 429/5xx 退避重試（lane 依設定，預設 chat）；TPM 先以估算預扣，再依 usage 校正
+    int estimated = TokenCounter.count(prompt) + expectedOutputTokens;
+    var result = limiter.execute(lane, estimated, () -> service.createChatCompletion(request(prompt, false)));
+    if (result.getUsage() != null) limiter.reconcile(lane, estimated, (int) result.getUsage().getTotalTokens());
     String content = result.getChoices().get(0).getMessage().getContent();
 
-    log.info("=== RAW LLM prompt === \n{}", prompt);
+    log.info("=== RAW LLM prompt ({}) === \n{}", name, prompt);
 
     log.info("=== RAW LLM RESPONSE === \n{}", content);
 
 
     return content;
   }
+
+  /**
+   * stream=true：逐個 chunk 取 delta 內容交給 onChunk（blockingForEach 在呼叫端執行緒上執行）。
+   * 已經交出內容後失敗就不重試（避免重複片段）。
+   */
+  @Override
+  public String streamJson(String prompt, Consumer<String> onChunk) {
+    StringBuilder content = new StringBuilder();
+    int estimated = TokenCounter.count(prompt) + expectedOutputTokens;
+    limiter.execute(lane, estimated, () -> {
+      service.streamChatCompletion(request(prompt, true)).blockingForEach(chunk -> {
+        if (chunk.getChoices() == null || chunk.getChoices().isEmpty()) return;
+        ChatMessage delta = chunk.getChoices().get(0).getMessage();
+        if (delta == null || delta.getContent() == null || delta.getContent().isEmpty()) return;
+        content.append(delta.getContent());
+        onChunk.accept(delta.getContent());
+      });
+      return null;
+    }, () -> content.length() == 0);
+
+    log.info("=== RAW LLM prompt ({}, stream) === \n{}", name, prompt);
+    log.info("=== RAW LLM RESPONSE (stream) === \n{}", content);
+    return content.toString();
+  }
+
+  private ChatCompletionRequest request(String prompt, boolean stream) {
+    ChatMessage system = new ChatMessage("system", "You are an assistant that outputs only JSON.");
+    ChatMessage user = new ChatMessage("user", prompt);
+
+    return ChatCompletionRequest.builder()
+        .model(model)
+        .messages(List.of(system, user))
+        .temperature(temperature)
+        .stream(stream)
+        .build();
+  }
+
+  @Override
+  public String fingerprint() {
+    return name + ":" + model + ":t=" + temperature;
+  }
 }
@@ -1,30 +1,41 @@
 // src/main/java/com/example/aitutor/llm/OpenAiTtsClient.java
 package com.example.aitutor.llm;
 
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
 
 import com.example.aitutor.storage.AudioStorage;
+import com.example.aitutor.storage.AudioStorageException;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
 
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class OpenAiTtsClient {
 
+    private static final MediaType JSON = MediaType.get("application/json");
+
     private final AudioStorage audioStorage;
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final ProviderRateLimiter limiter;
+    private final OkHttpClient http;   // 共用連線池，TTS 連續呼叫時重用同一條 TLS 連線
 
     @Value("${openai.api-key}")
     private String apiKey;
@@ -51,26 +62,39 @@ public class OpenAiTtsClient {
             }
             """.formatted(model, voice, quoteForJson(transcript));
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.setBearerAuth(apiKey);
-
-            ResponseEntity<byte[]> resp = restTemplate.exchange(
-                    ttsUrl,
-                    HttpMethod.POST,
-                    new HttpEntity<>(body.getBytes(StandardCharsets.UTF_8), headers),
-                    byte[].class
-            );
-
-            if (!resp.getStatusCode().is2xxSuccessful() || resp.getBody() == null) {
-                throw new RuntimeException("TTS failed: " + resp.getStatusCode());
-            }
+            Request request = new Request.Builder()
+                    .url(ttsUrl)
+                    .header("Authorization", "Bearer " + apiKey)
+                    .post(RequestBody.create(JSON, body.getBytes(StandardCharsets.UTF_8)))
+                    .build();
+
+            // 與 LLM 共用限流器（lane = tts）：429/5xx 退避重試並遵守 Retry-After
+            // 回應 body 直接串流進 AudioStorage（邊合成邊寫入 / 上傳），不整檔放進記憶體
+            // 讀 TTS 回應失敗（連線中斷）照常重試；儲存端失敗改拋 AudioStorageException，不重打 TTS
+            String publicUrl = limiter.execute("tts", 0, () -> {
+                try (Response resp = http.newCall(request).execute()) {
+                    if (!resp.isSuccessful()) throw statusError(resp);
+                    if (resp.body() == null) throw new RuntimeException("TTS failed: empty body");
+                    try (ReadTrackingStream audio = new ReadTrackingStream(resp.body().byteStream())) {
+                        try {
+                            return audioStorage.save(filename, audio);
+                        } catch (RuntimeException e) {
+                            if (audio.readError != null) {
+                                throw new UncheckedIOException("TTS response interrupted", audio.readError);
+                            }
+                            if (e instanceof AudioStorageException) throw e;
+                            throw new AudioStorageException("Failed to store " + filename, e);
+                        }
+                    }
+                }
+            });
 
-            byte[] mp3 = resp.getBody();
-            String publicUrl = audioStorage.save(filename, mp3);
             log.info("[TTS] Generated mp3 => {}", publicUrl);
             return publicUrl;
 
+        } catch (ProviderRateLimitException ex) {
+            log.warn("[TTS] rate limited: {}", ex.getMessage());
+            throw ex;
         } catch (Exception ex) {
             log.error("[TTS] error", ex);
             // 失敗時也可回傳一個靜音檔（dev/local）或直接拋錯
@@ -78,6 +102,47 @@ public class OpenAiTtsClient {
         }
     }
 
+    // 轉成 Spring 的 HttpStatusCodeException，ProviderRateLimiter 依狀態碼與 Retry-After 判斷是否重試
+    private static RuntimeException statusError(Response resp) throws IOException {
+        HttpHeaders headers = new HttpHeaders();
+        resp.headers().toMultimap().forEach(headers::addAll);
+        byte[] body = resp.body() == null ? new byte[0] : resp.body().bytes();
+        HttpStatusCode status = HttpStatusCode.valueOf(resp.code());
+        String message = "TTS failed: " + resp.code();
+        return status.is5xxServerError()
+                ? HttpServerErrorException.create(message, status, resp.message(), headers, body, StandardCharsets.UTF_8)
+                : HttpClientErrorException.create(message, status, resp.message(), headers, body, StandardCharsets.UTF_8);
+    }
+
+    /** 記錄讀取 TTS 回應時發生的 IOException，用來區分是回應中斷還是儲存端失敗。 */
+    private static final class ReadTrackingStream extends FilterInputStream {
+        IOException readError;
+
+        ReadTrackingStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            try {
+                return super.read();
+            } catch (IOException e) {
+                readError = e;
+                throw e;
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            try {
+                return super.read(b, off, len);
+            } catch (IOException e) {
+                readError = e;
+                throw e;
+            }
+        }
+    }
+
     private static String quoteForJson(String s) {
         return "\"" + s.replace("\\", "\\\\")
                        .replace("\"", "\\\"")
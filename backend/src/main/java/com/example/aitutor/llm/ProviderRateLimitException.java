@@ -0,0 +1,18 @@
+package com.example.aitutor.llm;
+
+import java.time.Duration;
+
+/** 供應商限流（429）重試用盡，或在用戶端限流佇列中等待過久。retryAfter 為建議的重試間隔。 */
+public class ProviderRateLimitException extends RuntimeException {
+
+  private final Duration retryAfter;
+
+  public ProviderRateLimitException(String message, Duration retryAfter, Throwable cause) {
+    super(message, cause);
+    this.retryAfter = retryAfter;
+  }
+
+  public Duration getRetryAfter() {
+    return retryAfter;
+  }
+}
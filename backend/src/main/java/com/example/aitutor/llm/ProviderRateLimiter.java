@@ -0,0 +1,332 @@
+package com.example.aitutor.llm;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+
+import com.example.aitutor.storage.AudioStorageException;
+import com.theokanning.openai.OpenAiHttpException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * OpenAI 呼叫的用戶端限流與重試，LLM（lane = chat）與 TTS（lane = tts）共用。
+ *
+ *   RPM / TPM：token bucket，每分鐘補滿；TPM 以 prompt 估算 + 預期輸出預扣，回應帶 usage 時再校正
+ *   同時呼叫數：AIMD，成功 +1/limit、回應過慢 ×0.9、429 ×0.5，介於 [min, max]
+ *   排隊：每個 lane 一條 FIFO，只有隊首能取得名額（先到先服務，不會被插隊餓死）
+ *   重試：429、5xx、連線/逾時錯誤以 full-jitter 指數退避重試；有 Retry-After 時至少等那麼久，
+ *         且整個 lane 暫停到那時（其他請求不會同時撞上去）
+ *
+ * 重試用盡的 429、或排隊超過 queue-timeout 時拋 ProviderRateLimitException（前端收到 429 + Retry-After）。
+ */
+@Slf4j
+@Component
+public class ProviderRateLimiter {
+
+  private static final List<Integer> RETRYABLE_STATUS = List.of(408, 409, 429, 500, 502, 503, 504);
+
+  public record LaneStats(String lane, double concurrencyLimit, int inFlight, int queued,
+                          double availableRequests, double availableTokens, long calls, long retries,
+                          long throttled, long failures, double avgQueueMs) {}
+
+  /** 失敗分類：status 0 = 連線/逾時等 I/O 錯誤。 */
+  record Failure(int status, Duration retryAfter, boolean retryable) {
+    boolean throttled() {
+      return status == 429;
+    }
+  }
+
+  private final RateLimitProperties props;
+  private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+
+  public ProviderRateLimiter(RateLimitProperties props) {
+    this.props = props;
+  }
+
+  public <T> T execute(String lane, int tokens, Callable<T> call) {
+    return execute(lane, tokens, call, () -> true);
+  }
+
+  /**
+   * 在 lane 的限流下執行 call，可重試的失敗依退避重試。
+   * retryAllowed 回傳 false 時不再重試（例如串流已經交出部分內容）。
+   */
+  public <T> T execute(String laneName, int tokens, Callable<T> call, BooleanSupplier retryAllowed) {
+    Lane lane = lane(laneName);
+    for (int attempt = 1; ; attempt++) {
+      lane.acquire(tokens);
+      long t0 = System.nanoTime();
+      Exception error;
+      try {
+        T result = call.call();
+        lane.onSuccess(System.nanoTime() - t0);
+        return result;
+      } catch (Exception e) {
+        error = e;
+      } finally {
+        lane.release();
+      }
+
+      Failure f = classify(error);
+      lane.onFailure(f);
+      boolean again = f.retryable() && attempt < props.getMaxAttempts() && retryAllowed.getAsBoolean();
+      if (!again) {
+        if (f.throttled()) {
+          throw new ProviderRateLimitException("Provider rate limit (" + laneName + ") after " + attempt + " attempts",
+              f.retryAfter() != null ? f.retryAfter() : props.getBaseBackoff(), error);
+        }
+        if (error instanceof RuntimeException re) throw re;
+        throw new RuntimeException(error);
+      }
+
+      Duration wait = backoff(attempt, f.retryAfter());
+      lane.retries.increment();
+      log.warn("[RateLimit] {} attempt {} failed (status {}), retry in {} ms",
+          laneName, attempt, f.status(), wait.toMillis());
+      try {
+        Thread.sleep(wait);
+      } catch (InterruptedException ie) {
+        Thread.currentThread().interrupt();
+        throw new RuntimeException(error);
+      }
+    }
+  }
+
+  /** 回應帶實際 token 用量時校正 TPM（預扣 estimated，實際 actual）。 */
+  public void reconcile(String lane, int estimated, int actual) {
+    if (actual > 0) lane(lane).adjustTokens(estimated - actual);
+  }
+
+  public List<LaneStats> stats() {
+    return lanes.values().stream().map(Lane::stats).toList();
+  }
+
+  private Lane lane(String name) {
+    return lanes.computeIfAbsent(name, n -> new Lane(n, props.lane(n)));
+  }
+
+  // full jitter：[0, min(max, base × 2^(attempt-1))]；Retry-After 為下限
+  private Duration backoff(int attempt, Duration retryAfter) {
+    long cap = Math.min(props.getMaxBackoff().toMillis(), props.getBaseBackoff().toMillis() << Math.min(20, attempt - 1));
+    long ms = ThreadLocalRandom.current().nextLong(cap + 1);
+    if (retryAfter != null) ms = Math.max(ms, retryAfter.toMillis() + ThreadLocalRandom.current().nextLong(250));
+    return Duration.ofMillis(ms);
+  }
+
+  static Failure classify(Throwable error) {
+    for (Throwable t = error; t != null; t = t.getCause() == t ? null : t.getCause()) {
+      if (t instanceof ProviderRateLimitException) return new Failure(429, null, false);
+      // 儲存端失敗（TTS 已成功回應）：重打 TTS 無助於寫入，也不該再付一次合成費用
+      if (t instanceof AudioStorageException) return new Failure(-1, null, false);
+      if (t instanceof OpenAiHttpException oe) {
+        // 額度用完也是 429，但重試無用
+        boolean quota = "insufficient_quota".equals(oe.code);
+        return new Failure(oe.statusCode, retryAfter(oe.getCause()), !quota && RETRYABLE_STATUS.contains(oe.statusCode));
+      }
+      if (t instanceof retrofit2.HttpException he) {
+        return new Failure(he.code(), retryAfter(he), RETRYABLE_STATUS.contains(he.code()));
+      }
+      if (t instanceof HttpStatusCodeException he) {
+        int status = he.getStatusCode().value();
+        String header = he.getResponseHeaders() == null ? null : he.getResponseHeaders().getFirst("Retry-After");
+        String headerMs = he.getResponseHeaders() == null ? null : he.getResponseHeaders().getFirst("retry-after-ms");
+        return new Failure(status, parseRetryAfter(header, headerMs), RETRYABLE_STATUS.contains(status));
+      }
+      if (t instanceof IOException) return new Failure(0, null, true);
+    }
+    return new Failure(-1, null, false);
+  }
+
+  private static Duration retryAfter(Throwable t) {
+    if (!(t instanceof retrofit2.HttpException he) || he.response() == null) return null;
+    return parseRetryAfter(he.response().headers().get("Retry-After"), he.response().headers().get("retry-after-ms"));
+  }
+
+  // Retry-After：秒數或 HTTP-date；OpenAI 另有 retry-after-ms
+  static Duration parseRetryAfter(String value, String millis) {
+    try {
+      if (millis != null && !millis.isBlank()) return Duration.ofMillis((long) Double.parseDouble(millis.strip()));
+      if (value == null || value.isBlank()) return null;
+      String v = value.strip();
+      if (v.chars().allMatch(Character::isDigit)) return Duration.ofSeconds(Long.parseLong(v));
+      Duration d = Duration.between(ZonedDateTime.now(), ZonedDateTime.parse(v, DateTimeFormatter.RFC_1123_DATE_TIME));
+      return d.isNegative() ? Duration.ZERO : d;
+    } catch (RuntimeException e) {
+      return null;
+    }
+  }
+
+  /** 單一 lane：token buckets + AIMD 同時數 + FIFO 等待。所有狀態由 lock 保護。 */
+  private final class Lane {
+    final String name;
+    final RateLimitProperties.Lane cfg;
+    final ReentrantLock lock = new ReentrantLock();
+    final Condition changed = lock.newCondition();
+    final ArrayDeque<Object> queue = new ArrayDeque<>();
+
+    double limit;
+    int inFlight;
+    double requestTokens;
+    double tokenTokens;
+    long lastRefill = System.nanoTime();
+    long pausedUntil = System.nanoTime();
+
+    final LongAdder calls = new LongAdder();
+    final LongAdder retries = new LongAdder();
+    final LongAdder throttled = new LongAdder();
+    final LongAdder failures = new LongAdder();
+    final LongAdder queueNanos = new LongAdder();
+
+    Lane(String name, RateLimitProperties.Lane cfg) {
+      this.name = name;
+      this.cfg = cfg;
+      this.limit = Math.clamp(cfg.getInitialConcurrency(), minLimit(), maxLimit());
+      this.requestTokens = cfg.getRpm();
+      this.tokenTokens = cfg.getTpm();
+    }
+
+    void acquire(int tokens) {
+      Object ticket = new Object();
+      long start = System.nanoTime();
+      long deadline = start + props.getQueueTimeout().toNanos();
+      lock.lock();
+      try {
+        queue.add(ticket);
+        try {
+          while (true) {
+            long now = System.nanoTime();
+            refill(now);
+            long waitNanos = -1;   // -1 = 等其他人釋放名額
+            if (queue.peek() == ticket) {
+              if (now - pausedUntil < 0) {
+                waitNanos = pausedUntil - now;
+              } else if (inFlight < (int) limit) {
+                if (cfg.getRpm() > 0 && requestTokens < 1) {
+                  waitNanos = nanosUntil(1 - requestTokens, cfg.getRpm());
+                } else if (cfg.getTpm() > 0 && tokenTokens < Math.min(tokens, cfg.getTpm())) {
+                  waitNanos = nanosUntil(Math.min(tokens, cfg.getTpm()) - tokenTokens, cfg.getTpm());
+                } else {
+                  if (cfg.getRpm() > 0) requestTokens -= 1;
+                  if (cfg.getTpm() > 0) tokenTokens -= tokens;
+                  inFlight++;
+                  calls.increment();
+                  queueNanos.add(now - start);
+                  return;
+                }
+              }
+            }
+            long remaining = deadline - now;
+            if (remaining <= 0) {
+              throw new ProviderRateLimitException("Waited too long for provider capacity (" + name + ")",
+                  Duration.ofSeconds(5), null);
+            }
+            changed.awaitNanos(waitNanos < 0 ? remaining : Math.min(waitNanos, remaining));
+          }
+        } finally {
+          queue.remove(ticket);
+          changed.signalAll();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RuntimeException("Interrupted while waiting for provider capacity", e);
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    void release() {
+      lock.lock();
+      try {
+        inFlight--;
+        changed.signalAll();
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    void onSuccess(long latencyNanos) {
+      lock.lock();
+      try {
+        if (latencyNanos > cfg.getLatencyTarget().toNanos()) limit = Math.max(minLimit(), limit * 0.9);
+        else limit = Math.min(maxLimit(), limit + 1 / limit);
+        changed.signalAll();
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    void onFailure(Failure f) {
+      failures.increment();
+      if (!f.throttled()) return;
+      throttled.increment();
+      lock.lock();
+      try {
+        limit = Math.max(minLimit(), limit * 0.5);
+        Duration pause = f.retryAfter() != null ? f.retryAfter() : props.getBaseBackoff();
+        long until = System.nanoTime() + pause.toNanos();
+        if (until - pausedUntil > 0) pausedUntil = until;
+        log.warn("[RateLimit] {} throttled: concurrency -> {}, paused {} ms", name, (int) limit, pause.toMillis());
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    void adjustTokens(int delta) {
+      if (cfg.getTpm() <= 0) return;
+      lock.lock();
+      try {
+        tokenTokens = Math.min(cfg.getTpm(), tokenTokens + delta);
+        changed.signalAll();
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    LaneStats stats() {
+      lock.lock();
+      try {
+        refill(System.nanoTime());
+        long n = calls.sum();
+        return new LaneStats(name, limit, inFlight, queue.size(), requestTokens, tokenTokens, n,
+            retries.sum(), throttled.sum(), failures.sum(), n == 0 ? 0 : queueNanos.sum() / 1e6 / n);
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    private void refill(long now) {
+      double minutes = (now - lastRefill) / (double) TimeUnit.MINUTES.toNanos(1);
+      lastRefill = now;
+      if (cfg.getRpm() > 0) requestTokens = Math.min(cfg.getRpm(), requestTokens + minutes * cfg.getRpm());
+      if (cfg.getTpm() > 0) tokenTokens = Math.min(cfg.getTpm(), tokenTokens + minutes * cfg.getTpm());
+    }
+
+    private long nanosUntil(double missing, int perMinute) {
+      return (long) Math.ceil(missing / perMinute * TimeUnit.MINUTES.toNanos(1));
+    }
+
+    private int minLimit() {
+      return Math.max(1, cfg.getMinConcurrency());
+    }
+
+    private int maxLimit() {
+      return Math.max(minLimit(), cfg.getMaxConcurrency());
+    }
+  }
+}
@@ -0,0 +1,48 @@
+package com.example.aitutor.llm;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * 呼叫 OpenAI 的用戶端限流設定（application.yml 的 provider.rate-limit）。
+ * lanes 依用途分開（chat = LLM、tts = 語音），各自的 RPM/TPM 與同時呼叫數。
+ */
+@Getter @Setter
+@Component
+@ConfigurationProperties(prefix = "provider.rate-limit")
+public class RateLimitProperties {
+
+  /** 單次呼叫最多嘗試次數（含第一次）。 */
+  private int maxAttempts = 4;
+  /** 退避起點；第 n 次重試等待 base × 2^(n-1)（full jitter），有 Retry-After 時取兩者較大者。 */
+  private Duration baseBackoff = Duration.ofMillis(500);
+  private Duration maxBackoff = Duration.ofSeconds(30);
+  /** 排隊等待上限；超過才回 429 給前端。 */
+  private Duration queueTimeout = Duration.ofMinutes(2);
+  private Map<String, Lane> lanes = new LinkedHashMap<>();
+
+  @Getter @Setter
+  public static class Lane {
+    /** 每分鐘請求數上限；0 = 不限。 */
+    private int rpm = 0;
+    /** 每分鐘 token 上限（prompt 估算 + 預期輸出）；0 = 不限。 */
+    private int tpm = 0;
+    /** 同時呼叫數（AIMD 調整的起點與範圍）。 */
+    private int initialConcurrency = 4;
+    private int minConcurrency = 1;
+    private int maxConcurrency = 16;
+    /** 回應時間超過此值視為壅塞，同時呼叫數小幅下修。 */
+    private Duration latencyTarget = Duration.ofSeconds(30);
+  }
+
+  public Lane lane(String name) {
+    return lanes.computeIfAbsent(name, n -> new Lane());
+  }
+}
@@ -0,0 +1,283 @@
+package com.example.aitutor.llm;
+
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.nio.channels.ClosedByInterruptException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.OkHttpClient;
+
+/**
+ * 多個 backend（不同模型，或 OpenAI 相容的本機端點）之間的路由，依 llm.routing 設定建立。
+ *
+ *   資格：backend 可限制文章 token 數（max-passage-tokens）與難度上限（max-difficulty），
+ *         依 LlmCallOptions 的路由提示判斷；沒有提示時以整份 prompt 估算、難度視為 hard
+ *   排序：依設定順序（排前面的優先，例如較快 / 較便宜的模型）；
+ *         延遲 EWMA 超過同批最快者 slow-factor 倍的 backend 排到後面，但仍有 probe-ratio 的機率照原順序，讓 EWMA 更新；
+ *         降級中的排最後；後段依 延遲 EWMA × (1 + error-penalty × 錯誤率 EWMA) 由低到高
+ *   降級：連續失敗或錯誤率過高即暫停 cooldown，期滿後恢復原順序，再失敗就再暫停，成功一次即恢復
+ *   失敗：依序換下一個有資格的 backend；串流已交出內容後不換
+ *
+ * 被 hedge 取消（執行緒中斷）的呼叫不計入錯誤率。
+ */
+@Slf4j
+@Service
+@Profile("!dev")
+@Qualifier("llmBackend")
+public class RoutingLlmClient implements LlmClient {
+
+  private static final List<String> DIFFICULTIES = List.of("easy", "medium", "hard");
+
+  public record BackendStats(String name, String model, boolean degraded, long ewmaLatencyMs, double errorRate,
+                             long calls, long failures) {}
+
+  public record Stats(long failovers, List<BackendStats> backends) {}
+
+  private final LlmRoutingProperties props;
+  private final List<Route> routes = new ArrayList<>();
+  private final String fingerprint;
+  private final LongAdder failovers = new LongAdder();
+
+  public RoutingLlmClient(LlmRoutingProperties props,
+                          ProviderRateLimiter limiter,
+                          OkHttpClient http,
+                          @Value("${openai.api-key:}") String apiKey,
+                          @Value("${openai.model:gpt-4o-mini}") String model,
+                          @Value("${openai.temperature:0.7}") double temperature,
+                          @Value("${openai.expected-output-tokens:800}") int expectedOutputTokens) {
+    this.props = props;
+    List<LlmRoutingProperties.Backend> configured = props.getBackends();
+    if (configured.isEmpty()) {
+      var only = new LlmRoutingProperties.Backend();
+      only.setName("openai");
+      only.setApiKey(apiKey);
+      only.setModel(model);
+      configured = List.of(only);
+    }
+    for (var b : configured) {
+      String name = b.getName() == null || b.getName().isBlank() ? "backend" + routes.size() : b.getName();
+      String m = b.getModel() == null || b.getModel().isBlank() ? model : b.getModel();
+      double t = b.getTemperature() == null ? temperature : b.getTemperature();
+      String key = b.getApiKey() == null ? apiKey : b.getApiKey();
+      LlmClient client = new OpenAiLlmClient(name, http, b.getBaseUrl(), key, b.getTimeout(), m, t,
+          expectedOutputTokens, limiter, b.getLane());
+      routes.add(new Route(routes.size(), name, m, client, b.getMaxPassageTokens(), difficultyRank(b.getMaxDifficulty()),
+          Math.clamp(props.getEwmaAlpha(), 0.01, 1)));
+      log.info("[LLM] backend {}: model={} url={} lane={} maxPassageTokens={} maxDifficulty={}", name, m,
+          b.getBaseUrl() == null || b.getBaseUrl().isBlank() ? "openai" : b.getBaseUrl(), b.getLane(),
+          b.getMaxPassageTokens(), b.getMaxDifficulty() == null ? "-" : b.getMaxDifficulty());
+    }
+    this.fingerprint = routes.size() == 1
+        ? routes.get(0).client.fingerprint()
+        : "router[" + String.join(",", routes.stream().map(r -> r.client.fingerprint()).toList()) + "]";
+  }
+
+  @Override
+  public String completeJson(String prompt) {
+    return completeJson(prompt, LlmCallOptions.DEFAULT);
+  }
+
+  @Override
+  public String completeJson(String prompt, LlmCallOptions options) {
+    List<Route> order = order(prompt, options);
+    RuntimeException last = null;
+    for (Route r : order) {
+      if (last != null) failovers.increment();
+      long t0 = System.nanoTime();
+      try {
+        String content = r.client.completeJson(prompt);
+        r.success(System.nanoTime() - t0);
+        return content;
+      } catch (RuntimeException e) {
+        if (interrupted(e)) throw e;
+        r.failure(props);
+        last = e;
+        log.warn("[LLM] backend {} failed: {}", r.name, e.getMessage());
+      }
+    }
+    throw last;
+  }
+
+  @Override
+  public String streamJson(String prompt, Consumer<String> onChunk) {
+    return streamJson(prompt, LlmCallOptions.DEFAULT, onChunk);
+  }
+
+  @Override
+  public String streamJson(String prompt, LlmCallOptions options, Consumer<String> onChunk) {
+    List<Route> order = order(prompt, options);
+    boolean[] delivered = {false};
+    Consumer<String> tracking = chunk -> {
+      delivered[0] = true;
+      onChunk.accept(chunk);
+    };
+    RuntimeException last = null;
+    for (Route r : order) {
+      if (last != null) failovers.increment();
+      long t0 = System.nanoTime();
+      try {
+        String content = r.client.streamJson(prompt, tracking);
+        r.success(System.nanoTime() - t0);
+        return content;
+      } catch (RuntimeException e) {
+        if (interrupted(e)) throw e;
+        r.failure(props);
+        if (delivered[0]) throw e;
+        last = e;
+        log.warn("[LLM] backend {} failed (stream): {}", r.name, e.getMessage());
+      }
+    }
+    throw last;
+  }
+
+  @Override
+  public String fingerprint() {
+    return fingerprint;
+  }
+
+  public Stats stats() {
+    long now = System.nanoTime();
+    return new Stats(failovers.sum(), routes.stream().map(r -> r.stats(now)).toList());
+  }
+
+  private record Ranked(Route route, int tier, double score) {}
+
+  // 有資格的 backend：正常（設定順序）→ 偏慢（分數）→ 降級中（分數）；都沒有資格時全部都算
+  private List<Route> order(String prompt, LlmCallOptions options) {
+    int tokens = options.passageTokens() > 0 ? options.passageTokens() : TokenCounter.count(prompt);
+    int rank = difficultyRank(options.difficulty());
+    List<Route> eligible = routes.stream().filter(r -> r.accepts(tokens, rank)).toList();
+    if (eligible.isEmpty()) eligible = routes;
+
+    long now = System.nanoTime();
+    // 樣本未滿 min-samples 的不算偏慢，也不當基準（第一次呼叫常含建立連線的時間）
+    int minSamples = props.getMinSamples();
+    double fastest = eligible.stream().filter(r -> !r.degraded(now) && r.samples() >= minSamples)
+        .mapToDouble(Route::latency).filter(l -> l > 0).min().orElse(0);
+    double slowLimit = fastest * Math.max(1, props.getSlowFactor());
+    List<Ranked> ranked = new ArrayList<>(eligible.size());
+    for (Route r : eligible) {
+      int tier;
+      if (r.degraded(now)) tier = 2;
+      else if (fastest > 0 && r.samples() >= minSamples && r.latency() > slowLimit
+          && ThreadLocalRandom.current().nextDouble() >= props.getProbeRatio()) tier = 1;
+      else tier = 0;
+      ranked.add(new Ranked(r, tier, tier == 0 ? r.index : r.score(props.getErrorPenalty())));
+    }
+    ranked.sort(Comparator.comparingInt(Ranked::tier).thenComparingDouble(Ranked::score));
+    return ranked.stream().map(Ranked::route).toList();
+  }
+
+  // 未知或空白視為 hard（只交給不限難度的 backend）
+  private static int difficultyRank(String difficulty) {
+    if (difficulty == null) return DIFFICULTIES.size() - 1;
+    int i = DIFFICULTIES.indexOf(difficulty.trim().toLowerCase(Locale.ROOT));
+    return i < 0 ? DIFFICULTIES.size() - 1 : i;
+  }
+
+  private static boolean interrupted(Throwable e) {
+    if (Thread.currentThread().isInterrupted()) return true;
+    for (Throwable t = e; t != null; t = t.getCause()) {
+      if (t instanceof SocketTimeoutException) return false;   // 逾時是 backend 的問題
+      if (t instanceof InterruptedException || t instanceof InterruptedIOException
+          || t instanceof ClosedByInterruptException) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static final class Route {
+    final int index;
+    final String name;
+    final String model;
+    final LlmClient client;
+    final int maxPassageTokens;
+    final int maxDifficulty;
+    final double alpha;
+    final LongAdder calls = new LongAdder();
+    final LongAdder failures = new LongAdder();
+
+    // guarded by this；latency 為 0 表示還沒有樣本
+    private double ewmaLatencyNanos;
+    private double ewmaError;
+    private int samples;
+    private int consecutiveFailures;
+    private long degradedUntil;
+
+    Route(int index, String name, String model, LlmClient client, int maxPassageTokens, int maxDifficulty,
+          double alpha) {
+      this.index = index;
+      this.name = name;
+      this.model = model;
+      this.client = client;
+      this.maxPassageTokens = maxPassageTokens;
+      this.maxDifficulty = maxDifficulty;
+      this.alpha = alpha;
+    }
+
+    boolean accepts(int tokens, int difficulty) {
+      return (maxPassageTokens <= 0 || tokens <= maxPassageTokens) && difficulty <= maxDifficulty;
+    }
+
+    synchronized boolean degraded(long now) {
+      return degradedUntil != 0 && now - degradedUntil < 0;
+    }
+
+    synchronized int samples() {
+      return samples;
+    }
+
+    synchronized double latency() {
+      return ewmaLatencyNanos;
+    }
+
+    synchronized double score(double penalty) {
+      return ewmaLatencyNanos * (1 + penalty * ewmaError);
+    }
+
+    synchronized void success(long nanos) {
+      calls.increment();
+      ewmaLatencyNanos = ewmaLatencyNanos == 0 ? nanos : ewmaLatencyNanos + alpha * (nanos - ewmaLatencyNanos);
+      ewmaError -= alpha * ewmaError;
+      samples++;
+      consecutiveFailures = 0;
+      if (degradedUntil != 0) {
+        degradedUntil = 0;
+        log.info("[LLM] backend {} recovered", name);
+      }
+    }
+
+    synchronized void failure(LlmRoutingProperties props) {
+      calls.increment();
+      failures.increment();
+      ewmaError += alpha * (1 - ewmaError);
+      samples++;
+      consecutiveFailures++;
+      boolean tooMany = consecutiveFailures >= props.getFailureThreshold()
+          || (samples >= props.getMinSamples() && ewmaError >= props.getErrorRateThreshold());
+      if (tooMany) {
+        degradedUntil = System.nanoTime() + props.getCooldown().toNanos();
+        log.warn("[LLM] backend {} degraded for {} (error rate {}, {} consecutive failures)",
+            name, props.getCooldown(), String.format("%.2f", ewmaError), consecutiveFailures);
+      }
+    }
+
+    synchronized BackendStats stats(long now) {
+      return new BackendStats(name, model, degraded(now), (long) (ewmaLatencyNanos / 1_000_000), ewmaError,
+          calls.sum(), failures.sum());
+    }
+  }
+}
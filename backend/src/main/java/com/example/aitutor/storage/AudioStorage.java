@@ -1,10 +1,24 @@
 package com.example.aitutor.storage;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
 public interface AudioStorage {
+    /**
+     * 邊讀邊寫：in 讀到結尾即完成（不負責關閉 in），記憶體用量與檔案大小無關。
+     *
+     * @param filename 期望的檔名（例如 "listening_xxx.mp3"）
+     * @param in       檔案內容（例如 TTS 回應的 body）
+     * @return 可供前端播放的公開 URL（dev 返回 "/audio/xxx.mp3"，prod 返回 R2 公網 URL）
+     */
+    String save(String filename, InputStream in);
+
     /**
      * @param filename 期望的檔名（例如 "listening_xxx.mp3"）
      * @param bytes    檔案位元組
      * @return 可供前端播放的公開 URL（dev 返回 "/audio/xxx.mp3"，prod 返回 R2 公網 URL）
      */
-    String save(String filename, byte[] bytes);
+    default String save(String filename, byte[] bytes) {
+        return save(filename, new ByteArrayInputStream(bytes));
+    }
 }
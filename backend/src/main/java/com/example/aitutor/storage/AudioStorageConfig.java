@@ -5,6 +5,8 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import okhttp3.OkHttpClient;
+
 @Configuration
 public class AudioStorageConfig {
 
@@ -16,15 +18,17 @@ public class AudioStorageConfig {
      */
     @Bean
     public AudioStorage audioStorage(
+            OkHttpClient http,
             @Value("${spring.audio.storage:local}") String mode,
             @Value("${r2.accountId:}") String accountId,
             @Value("${r2.accessKeyId:}") String accessKeyId,
             @Value("${r2.secretAccessKey:}") String secretAccessKey,
             @Value("${r2.bucket:}") String bucket,
-            @Value("${r2.publicBaseUrl:}") String publicBaseUrl
+            @Value("${r2.publicBaseUrl:}") String publicBaseUrl,
+            @Value("${r2.partSize:5242880}") int partSize
     ) {
         if ("r2".equalsIgnoreCase(mode)) {
-            return new R2AudioStorage(accountId, accessKeyId, secretAccessKey, bucket, publicBaseUrl);
+            return new R2AudioStorage(http, accountId, accessKeyId, secretAccessKey, bucket, publicBaseUrl, partSize);
         }
         return new LocalAudioStorage();
     }
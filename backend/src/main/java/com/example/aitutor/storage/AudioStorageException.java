@@ -0,0 +1,12 @@
+package com.example.aitutor.storage;
+
+/**
+ * 寫入音檔儲存端（本機檔案 / R2）失敗。
+ * 與讀取 TTS 回應失敗區分：ProviderRateLimiter 不會因為這個例外重新呼叫 TTS。
+ */
+public class AudioStorageException extends RuntimeException {
+
+    public AudioStorageException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
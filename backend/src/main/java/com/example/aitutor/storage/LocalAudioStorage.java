@@ -1,16 +1,23 @@
-// src/main/java/com/example/aitutor/storage/LocalAudioStorage.java
 package com.example.aitutor.storage;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 public class LocalAudioStorage implements AudioStorage {
 
+    private static final long CHUNK = 1 << 20;
+
     private final Path srcDir;
     private final Path targetDir;
 
@@ -19,8 +26,13 @@ public class LocalAudioStorage implements AudioStorage {
         this.targetDir = Paths.get("target/classes/static/audio");
     }
 
+    /**
+     * 以 FileChannel 直接從 in 寫入暫存檔，完成後改名（寫到一半的檔案不會被讀到），
+     * 再由檔案複製到 target/classes（不經過 heap）。
+     */
     @Override
-    public String save(String filename, byte[] bytes) {
+    public String save(String filename, InputStream in) {
+        Path tmp = null;
         try {
             Files.createDirectories(srcDir);
             Files.createDirectories(targetDir);
@@ -28,14 +40,31 @@ public class LocalAudioStorage implements AudioStorage {
             Path srcOut = srcDir.resolve(filename);
             Path tgtOut = targetDir.resolve(filename);
 
-            Files.write(srcOut, bytes);
-            Files.write(tgtOut, bytes);
+            tmp = Files.createTempFile(srcDir, filename, ".part");
+            long size = 0;
+            try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ReadableByteChannel src = Channels.newChannel(in);
+                long n;
+                while ((n = out.transferFrom(src, size, CHUNK)) > 0) {
+                    size += n;
+                }
+            }
+            Files.move(tmp, srcOut, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.copy(srcOut, tgtOut, StandardCopyOption.REPLACE_EXISTING);
 
-            log.info("[AudioStorage:local] wrote {} and {}", srcOut.toAbsolutePath(), tgtOut.toAbsolutePath());
+            log.info("[AudioStorage:local] wrote {} bytes to {} and {}", size, srcOut.toAbsolutePath(), tgtOut.toAbsolutePath());
             // 前端可直接以 /audio/xxx.mp3 取用（由 Spring 靜態資源處理）
             return "/audio/" + filename;
         } catch (IOException e) {
-            throw new RuntimeException("Failed to write local audio file", e);
+            throw new AudioStorageException("Failed to write local audio file", e);
+        } finally {
+            if (tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException ignored) {
+                    // 已改名成功時暫存檔本來就不存在
+                }
+            }
         }
     }
 }
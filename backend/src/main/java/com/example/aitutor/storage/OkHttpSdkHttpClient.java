@@ -0,0 +1,140 @@
+package com.example.aitutor.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import okhttp3.Call;
+import okhttp3.Headers;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.BufferedSink;
+import okio.Okio;
+import okio.Source;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.http.ContentStreamProvider;
+import software.amazon.awssdk.http.ExecutableHttpRequest;
+import software.amazon.awssdk.http.HttpExecuteRequest;
+import software.amazon.awssdk.http.HttpExecuteResponse;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.SdkHttpRequest;
+import software.amazon.awssdk.http.SdkHttpResponse;
+
+/**
+ * 讓 AWS SDK（R2 上傳）走共用的 OkHttpClient：與 LLM / TTS 同一個連線池、同樣的連線統計。
+ * 請求 body 以 ContentStreamProvider 串流寫出，長度取自 SDK 算好的 Content-Length。
+ */
+class OkHttpSdkHttpClient implements SdkHttpClient {
+
+    // 由 OkHttp 自己處理的標頭
+    private static final Set<String> SKIPPED_HEADERS = Set.of("host", "content-length", "expect", "transfer-encoding");
+
+    // 與 OkHttp Request.Builder.method() 的檢查一致：GET/HEAD 不能帶 body，這幾個方法一定要有 body
+    private static final Set<String> NO_BODY_METHODS = Set.of("GET", "HEAD");
+    private static final Set<String> BODY_REQUIRED_METHODS = Set.of("POST", "PUT", "PATCH", "PROPPATCH", "REPORT");
+
+    private final OkHttpClient http;
+
+    OkHttpSdkHttpClient(OkHttpClient http) {
+        this.http = http;
+    }
+
+    @Override
+    public ExecutableHttpRequest prepareRequest(HttpExecuteRequest request) {
+        Call call = http.newCall(toOkHttp(request));
+        return new ExecutableHttpRequest() {
+            @Override
+            public HttpExecuteResponse call() throws IOException {
+                Response resp = call.execute();
+                SdkHttpResponse sdkResponse = SdkHttpResponse.builder()
+                        .statusCode(resp.code())
+                        .statusText(resp.message())
+                        .headers(resp.headers().toMultimap())
+                        .build();
+                AbortableInputStream body = resp.body() == null
+                        ? AbortableInputStream.createEmpty()
+                        : AbortableInputStream.create(resp.body().byteStream(), call::cancel);
+                return HttpExecuteResponse.builder().response(sdkResponse).responseBody(body).build();
+            }
+
+            @Override
+            public void abort() {
+                call.cancel();
+            }
+        };
+    }
+
+    @Override
+    public String clientName() {
+        return "OkHttp";
+    }
+
+    @Override
+    public void close() {
+        // 共用的 client 由 Spring 管理，這裡不關
+    }
+
+    private static Request toOkHttp(HttpExecuteRequest request) {
+        SdkHttpRequest sdk = request.httpRequest();
+        Headers.Builder headers = new Headers.Builder();
+        for (Map.Entry<String, List<String>> e : sdk.headers().entrySet()) {
+            if (SKIPPED_HEADERS.contains(e.getKey().toLowerCase(Locale.ROOT))) continue;
+            for (String v : e.getValue()) {
+                headers.add(e.getKey(), v);
+            }
+        }
+
+        String method = sdk.method().name();
+        RequestBody body = null;
+        if (request.contentStreamProvider().isPresent() && !NO_BODY_METHODS.contains(method)) {
+            long length = sdk.firstMatchingHeader("Content-Length").map(Long::parseLong).orElse(-1L);
+            String type = sdk.firstMatchingHeader("Content-Type").orElse(null);
+            body = new StreamingBody(request.contentStreamProvider().get(), length,
+                    type == null ? null : MediaType.parse(type));
+        } else if (BODY_REQUIRED_METHODS.contains(method)) {
+            body = RequestBody.create(null, new byte[0]);
+        }
+        return new Request.Builder()
+                .url(sdk.getUri().toString())
+                .headers(headers.build())
+                .method(method, body)
+                .build();
+    }
+
+    private static final class StreamingBody extends RequestBody {
+        private final ContentStreamProvider provider;
+        private final long length;
+        private final MediaType type;
+
+        StreamingBody(ContentStreamProvider provider, long length, MediaType type) {
+            this.provider = provider;
+            this.length = length;
+            this.type = type;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return type;
+        }
+
+        @Override
+        public long contentLength() {
+            return length;
+        }
+
+        @Override
+        public void writeTo(BufferedSink sink) throws IOException {
+            // 重試時 OkHttp 會再呼叫一次，provider 每次給新的 stream
+            InputStream in = provider.newStream();
+            try (Source source = Okio.source(in)) {
+                sink.writeAll(source);
+            }
+        }
+    }
+}
@@ -1,29 +1,55 @@
 // src/main/java/com/example/aitutor/storage/R2AudioStorage.java
 package com.example.aitutor.storage;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import lombok.extern.slf4j.Slf4j;
+import okhttp3.OkHttpClient;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.exception.SdkException;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3Configuration;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
 
 @Slf4j
 public class R2AudioStorage implements AudioStorage {
 
+    /** S3 / R2 multipart 除最後一段外每段至少 5 MiB。 */
+    public static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+
+    private static final ExecutorService UPLOADS = Executors.newVirtualThreadPerTaskExecutor();
+
     private final S3Client s3;
+    private final int partSize;
     private final String bucket;
     private final String publicBaseUrl; // 例如 https://cdn.example.com/audio/ （最後要有斜線）
 
-    public R2AudioStorage(String accountId,
+    public R2AudioStorage(OkHttpClient http,
+                          String accountId,
                           String accessKeyId,
                           String secretAccessKey,
                           String bucket,
-                          String publicBaseUrl) {
+                          String publicBaseUrl,
+                          int partSize) {
 
         var creds = StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKeyId, secretAccessKey));
         var s3cfg = S3Configuration.builder()
@@ -36,28 +62,119 @@ public class R2AudioStorage implements AudioStorage {
                 .credentialsProvider(creds)
                 .endpointOverride(URI.create("https://" + accountId + ".r2.cloudflarestorage.com"))
                 .serviceConfiguration(s3cfg)
+                .httpClient(new OkHttpSdkHttpClient(http)) // 與 LLM / TTS 共用連線池
                 .build();
 
         this.bucket = bucket;
         this.publicBaseUrl = ensureTrailingSlash(publicBaseUrl);
+        this.partSize = Math.max(MIN_PART_SIZE, partSize);
     }
 
     private static String ensureTrailingSlash(String s) {
         return (s.endsWith("/")) ? s : (s + "/");
     }
 
+    /**
+     * 串流上傳：先讀最多一個 part；不滿一個 part 就直接 PutObject，
+     * 否則改用 multipart，上傳第 n 段的同時讀第 n+1 段（heap 最多兩個 part）。失敗時 abort，不留殘段。
+     *
+     * 小於一個 part（至少 5 MiB，S3 / R2 multipart 的下限）的音檔會整檔讀進記憶體再 PutObject：
+     * 這是刻意的取捨。聽力音檔通常只有數百 KB，multipart 每段又不能小於 5 MiB，
+     * 改用未知長度的串流上傳反而要多一次往返；單次上傳的 heap 上限因此是兩個 part。
+     *
+     * 讀取 in 失敗時拋 UncheckedIOException（來源中斷，可重試）；R2 端失敗拋 AudioStorageException。
+     */
     @Override
-    public String save(String filename, byte[] bytes) {
+    public String save(String filename, InputStream in) {
         String key = "audio/" + filename; // 你也可直接用根目錄，看你 publicBaseUrl 如何規劃
-        var req = PutObjectRequest.builder()
+        long size;
+        try {
+            byte[] first = in.readNBytes(partSize);
+            if (first.length < partSize) {
+                var req = PutObjectRequest.builder()
+                        .bucket(bucket)
+                        .key(key)
+                        .contentType("audio/mpeg")
+                        .build();
+                s3.putObject(req, fromBytes(first, "audio/mpeg"));
+                size = first.length;
+            } else {
+                size = multipartUpload(key, first, in);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read audio stream for " + key, e);
+        } catch (SdkException e) {
+            throw new AudioStorageException("Failed to upload s3://" + bucket + "/" + key, e);
+        }
+        var publicUrl = publicBaseUrl + filename; // 假設你的 publicBaseUrl 指到 audio/ 這層
+        log.info("[AudioStorage:R2] uploaded {} bytes s3://{}/{} -> {}", size, bucket, key, publicUrl);
+        return publicUrl;
+    }
+
+    private long multipartUpload(String key, byte[] first, InputStream in) throws IOException {
+        String uploadId = s3.createMultipartUpload(CreateMultipartUploadRequest.builder()
                 .bucket(bucket)
                 .key(key)
                 .contentType("audio/mpeg")
+                .build()).uploadId();
+        List<CompletedPart> parts = new ArrayList<>();
+        long size = 0;
+        try {
+            byte[] part = first;
+            while (part.length > 0) {
+                int number = parts.size() + 1;
+                byte[] body = part;
+                CompletableFuture<CompletedPart> upload = CompletableFuture.supplyAsync(
+                        () -> uploadPart(key, uploadId, number, body), UPLOADS);
+                byte[] next = in.readNBytes(partSize);   // 與上一段的上傳重疊
+                parts.add(join(upload));
+                size += part.length;
+                part = next;
+            }
+            s3.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+                    .build());
+            return size;
+        } catch (IOException | RuntimeException e) {
+            try {
+                s3.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                        .bucket(bucket)
+                        .key(key)
+                        .uploadId(uploadId)
+                        .build());
+            } catch (RuntimeException abortError) {
+                e.addSuppressed(abortError);
+            }
+            throw e;
+        }
+    }
+
+    private CompletedPart uploadPart(String key, String uploadId, int number, byte[] body) {
+        var req = UploadPartRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .uploadId(uploadId)
+                .partNumber(number)
+                .contentLength((long) body.length)
                 .build();
+        String eTag = s3.uploadPart(req, fromBytes(body, "application/octet-stream")).eTag();
+        return CompletedPart.builder().partNumber(number).eTag(eTag).build();
+    }
 
-        s3.putObject(req, RequestBody.fromBytes(bytes));
-        var publicUrl = publicBaseUrl + filename; // 假設你的 publicBaseUrl 指到 audio/ 這層
-        log.info("[AudioStorage:R2] uploaded s3://{}/{} -> {}", bucket, key, publicUrl);
-        return publicUrl;
+    // RequestBody.fromBytes 會複製一份；改由 provider 每次（含 SDK 重試）包同一個陣列
+    private static RequestBody fromBytes(byte[] bytes, String contentType) {
+        return RequestBody.fromContentProvider(() -> new ByteArrayInputStream(bytes), bytes.length, contentType);
+    }
+
+    private static <T> T join(CompletableFuture<T> f) {
+        try {
+            return f.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw e;
+        }
     }
 }
@@ -1,19 +1,42 @@
 package com.example.aitutor.web;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.example.aitutor.article.Article;
+import com.example.aitutor.article.ArticleCursor;
+import com.example.aitutor.article.ArticleParagraphs;
 import com.example.aitutor.article.ArticleService;
+import com.example.aitutor.article.CountMode;
+import com.example.aitutor.article.StoredText;
+import com.example.aitutor.article.IngestResult;
 
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
 
 @RestController
@@ -21,15 +44,18 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class ArticleController {
 
+  private static final Duration BATCH_STREAM_TIMEOUT = Duration.ofMinutes(30);
+  private static final MediaType TEXT_UTF8 = new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8);
+
   private final ArticleService articleService;
 
   public record FetchReq(@NotBlank String url) {}
+  public record BatchFetchReq(@NotEmpty @Size(max = 1000) List<@NotBlank String> urls) {}
 
   @PostMapping("/fetch")
   public Map<String, Object> fetch(@RequestBody FetchReq req) {
     Article a = articleService.fetchAndSave(req.url());
-    String text = a.getCleanedText() == null ? "" : a.getCleanedText();
-    String[] paragraphs = text.split("\\n\\n+");
+    List<String> paragraphs = articleService.paragraphs(a);
 
     return Map.of(
         "id", a.getId(),
@@ -39,19 +65,72 @@ public class ArticleController {
         "paragraphs", paragraphs
     );
   }
+
+  /** 批次匯入：並行抓取，全部完成後回傳每個網址的狀態（順序同輸入）。 */
+  @PostMapping("/fetch/batch")
+  public List<IngestResult> fetchBatch(@Valid @RequestBody BatchFetchReq req) {
+    return articleService.fetchAndSaveAll(req.urls(), r -> {});
+  }
+
+  /**
+   * 批次匯入（SSE）：每完成一篇推送一次 event "article"（IngestResult），
+   * 全部完成後推送 event "done"（各狀態計數）。
+   */
+  @PostMapping(value = "/fetch/batch/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter fetchBatchStream(@Valid @RequestBody BatchFetchReq req) {
+    SseEmitter emitter = new SseEmitter(BATCH_STREAM_TIMEOUT.toMillis());
+    Thread.ofVirtual().name("ingest-batch-stream").start(() -> {
+      try {
+        List<IngestResult> results = articleService.fetchAndSaveAll(req.urls(), r -> send(emitter, "article", r));
+        Map<IngestResult.Status, Long> summary = results.stream()
+            .collect(Collectors.groupingBy(IngestResult::status, () -> new EnumMap<>(IngestResult.Status.class),
+                Collectors.counting()));
+        send(emitter, "done", summary);
+        emitter.complete();
+      } catch (Exception e) {
+        emitter.completeWithError(e);
+      }
+    });
+    return emitter;
+  }
+
+  // SseEmitter 不是執行緒安全的；進度回呼來自多個 virtual threads
+  private static void send(SseEmitter emitter, String event, Object data) {
+    synchronized (emitter) {
+      try {
+        emitter.send(SseEmitter.event().name(event).data(data));
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
   @GetMapping
   public Map<String,Object> listAll(
       @RequestParam(defaultValue = "0") int page,
       @RequestParam(defaultValue = "10") int size,
-      @RequestParam(required = false) String q
+      @RequestParam(required = false) String q,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "estimate") String count
   ) {
-    return articleService.findAllPaged(page, size, q);
+    ArticleCursor after;
+    CountMode countMode;
+    try {
+      after = cursor == null || cursor.isBlank() ? null : ArticleCursor.decode(cursor);
+      countMode = CountMode.parse(count);
+    } catch (IllegalArgumentException e) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "cursor 或 count 參數不正確（count: exact|estimate|none）");
+    }
+    return articleService.findAllPaged(page, size, q, after, countMode);
   }
+  /**
+   * 整篇文章（JSON，含全部段落）。壓縮儲存的文章每次都要解壓並重新編碼成 JSON；
+   * 閱讀頁改用 /paragraphs?limit=0 取欄位、/text 取（可直接轉送壓縮位元組的）全文。
+   */
   @GetMapping("/{id}")
   public Map<String, Object> get(@PathVariable Long id) {
     Article a = articleService.get(id);
-    String text = a.getCleanedText() == null ? "" : a.getCleanedText();
-    String[] paragraphs = text.split("\\n\\n+");
+    List<String> paragraphs = articleService.paragraphs(a);
 
     return Map.of(
         "id", a.getId(),
@@ -61,4 +140,61 @@ public class ArticleController {
         "paragraphs", paragraphs
     );
   }
-}
\ No newline at end of file
+
+  /**
+   * 全文純文字。壓縮儲存且 client 接受 gzip 時直接回傳存放的壓縮位元組（Content-Encoding: gzip），
+   * 否則回傳解壓後的 UTF-8 文字。
+   */
+  @GetMapping("/{id}/text")
+  public ResponseEntity<byte[]> text(
+      @PathVariable Long id,
+      @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+  ) {
+    StoredText stored = articleService.storedText(id);
+    ResponseEntity.BodyBuilder res = ResponseEntity.ok()
+        .contentType(TEXT_UTF8)
+        .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    String encoding = stored.codec().contentEncoding();
+    if (encoding == null) {
+      return res.body(stored.bytes());
+    }
+    if (accepts(acceptEncoding, encoding)) {
+      return res.header(HttpHeaders.CONTENT_ENCODING, encoding).body(stored.bytes());
+    }
+    return res.body(stored.decode().getBytes(StandardCharsets.UTF_8));
+  }
+
+  // Accept-Encoding 中列出該編碼且 q 不為 0
+  private static boolean accepts(String acceptEncoding, String encoding) {
+    if (acceptEncoding == null) return false;
+    for (String part : acceptEncoding.split(",")) {
+      String[] kv = part.strip().split(";");
+      String name = kv[0].strip();
+      if (!name.equalsIgnoreCase(encoding) && !name.equals("*")) continue;
+      for (int i = 1; i < kv.length; i++) {
+        String p = kv[i].strip();
+        if (p.startsWith("q=") && isZero(p.substring(2))) return false;
+      }
+      return true;
+    }
+    return false;
+  }
+
+  private static boolean isZero(String q) {
+    try {
+      return Double.parseDouble(q.strip()) == 0;
+    } catch (NumberFormatException e) {
+      return false;
+    }
+  }
+
+  /** 段落分頁：回傳第 from 段起最多 limit 段，供長文章分段/延遲載入；limit=0 只回傳標題等欄位與段落數。 */
+  @GetMapping("/{id}/paragraphs")
+  public ArticleParagraphs paragraphs(
+      @PathVariable Long id,
+      @RequestParam(defaultValue = "0") int from,
+      @RequestParam(defaultValue = "20") int limit
+  ) {
+    return articleService.paragraphs(id, from, limit);
+  }
+}
@@ -1,11 +1,14 @@
 package com.example.aitutor.web;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
@@ -13,6 +16,7 @@ import org.springframework.web.server.ResponseStatusException;
 import com.example.aitutor.exercise_listening.ExerciseListeningService;
 import com.example.aitutor.exercise_listening.ExerciseSetListening;
 import com.example.aitutor.exercise_listening.GenerateListeningReq;
+import com.example.aitutor.llm.LlmCallOptions;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -46,9 +50,10 @@ public class ExerciseListeningController {
     @Operation(
         summary = "產生新的聽力題組（JSON body）",
         description = "用 JSON 提供 difficulty、numQuestions、topics、genre（dialogue/short）。"
+            + "帶 Cache-Control: no-cache 時不使用 LLM 回應快取。"
     )
     @PostMapping("/generate")
-    public ExerciseSetListening generateListeningSet(
+    public CompletableFuture<ExerciseSetListening> generateListeningSet(
         @RequestBody(
             description = "聽力題組生成參數",
             required = true,
@@ -69,7 +74,8 @@ public class ExerciseListeningController {
                 }
             )
         )
-        @Valid @org.springframework.web.bind.annotation.RequestBody GenerateListeningReq req
+        @Valid @org.springframework.web.bind.annotation.RequestBody GenerateListeningReq req,
+        @RequestHeader(value = HttpHeaders.CACHE_CONTROL, required = false) String cacheControl
     ) {
         // —— 參數標準化（避免 null/空白）——
         String difficulty = req.getDifficulty();
@@ -87,6 +93,7 @@ public class ExerciseListeningController {
         }
 
         // —— 呼叫 Service（帶 genre）——
-        return exerciseListeningService.generateExercise(difficulty, numQuestions, topics, genre);
+        return exerciseListeningService.generateExercise(difficulty, numQuestions, topics, genre,
+                LlmCallOptions.fromCacheControl(cacheControl));
     }
 }
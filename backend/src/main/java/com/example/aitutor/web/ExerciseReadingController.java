@@ -1,16 +1,29 @@
 package com.example.aitutor.web;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.example.aitutor.exercise_reading.ExerciseReadingService;
 import com.example.aitutor.exercise_reading.ExerciseSetReading;
+import com.example.aitutor.llm.LlmBusyException;
+import com.example.aitutor.llm.LlmCallOptions;
+import com.example.aitutor.llm.ProviderRateLimitException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -29,14 +42,18 @@ public class ExerciseReadingController {
   private final ExerciseReadingService service; private final ObjectMapper om;
   public record GenReq(@NotNull Long articleId,@NotBlank String difficulty,@NotNull List<String> types,@NotNull Map<String,Integer> count){}
   public record GenRes(Long exerciseSetId){}
+
+  @Value("${spring.mvc.async.request-timeout:180s}")
+  private Duration streamTimeout;
   
   @Operation(
         summary = "產生新的文章題組",
         description = "用 JSON 提供 articleId、difficulty、numQuestions、types、count。"
+            + "帶 Cache-Control: no-cache 時不使用 LLM 回應快取。"
     )
 
   @PostMapping("/generate") 
-  public GenRes generate(
+  public CompletableFuture<GenRes> generate(
     @RequestBody(
         description = "閱讀題組產生請求參數",
         required = true,
@@ -57,11 +74,52 @@ public class ExerciseReadingController {
             )
         )
     )
-    @org.springframework.web.bind.annotation.RequestBody GenReq req
+    @org.springframework.web.bind.annotation.RequestBody GenReq req,
+    @RequestHeader(value = HttpHeaders.CACHE_CONTROL, required = false) String cacheControl
   ) {
-    Long id = service.generateIfAbsent(req.articleId(), req.difficulty(), req.types(), req.count());
-    return new GenRes(id);
+    return service.generateIfAbsent(req.articleId(), req.difficulty(), req.types(), req.count(),
+            LlmCallOptions.fromCacheControl(cacheControl))
+        .thenApply(GenRes::new);
   }
+
+  @Operation(
+        summary = "串流產生文章題組（SSE）",
+        description = "參數同 /generate。每完成一題送出 question 事件 {index, question}；"
+            + "全部完成並寫入後送出 done 事件 {exerciseSetId, count}；失敗時送出 error 事件。"
+    )
+  @PostMapping(value = "/generate/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter generateStream(@org.springframework.web.bind.annotation.RequestBody GenReq req,
+                                   @RequestHeader(value = HttpHeaders.CACHE_CONTROL, required = false) String cacheControl) {
+    SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+    AtomicInteger index = new AtomicInteger();
+
+    service.generateStreaming(req.articleId(), req.difficulty(), req.types(), req.count(),
+            LlmCallOptions.fromCacheControl(cacheControl),
+            q -> send(emitter, "question", Map.of("index", index.getAndIncrement(), "question", q)))
+        .whenComplete((id, ex) -> {
+          if (ex == null) {
+            send(emitter, "done", Map.of("exerciseSetId", id, "count", index.get()));
+          } else {
+            Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+            String error = cause instanceof LlmBusyException ? "busy"
+                : cause instanceof ProviderRateLimitException ? "rate_limited" : "server";
+            send(emitter, "error", Map.of("error", error,
+                "message", String.valueOf(cause.getMessage())));
+          }
+          emitter.complete();
+        });
+    return emitter;
+  }
+
+  // 客戶端中途離開時 send 會失敗：忽略，生成照常完成並寫入（下次同參數直接取用）
+  private static void send(SseEmitter emitter, String name, Object data) {
+    try {
+      emitter.send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+    } catch (IOException | IllegalStateException e) {
+      // client gone
+    }
+  }
+
   @GetMapping("/{id}")
   public Map<String,Object> get(@PathVariable Long id){ ExerciseSetReading set=service.get(id); return Map.of("id",set.getId(),"articleId",set.getArticle().getId(),"spec",set.getSpec(),"items",set.getItems());}
 }
@@ -0,0 +1,58 @@
+package com.example.aitutor.web;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.ObjectProvider;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.aitutor.exercise_reading.ReadingGenerationBatcher;
+import com.example.aitutor.http.OutboundHttpMetrics;
+import com.example.aitutor.http.PerHostLimitInterceptor;
+import com.example.aitutor.exercise_reading.ReadingPassageBudget;
+import com.example.aitutor.llm.CachingLlmClient;
+import com.example.aitutor.llm.HedgingLlmClient;
+import com.example.aitutor.llm.LlmBulkhead;
+import com.example.aitutor.llm.ProviderRateLimiter;
+import com.example.aitutor.llm.RoutingLlmClient;
+
+import io.swagger.v3.oas.annotations.Operation;
+import lombok.RequiredArgsConstructor;
+import okhttp3.OkHttpClient;
+
+@RestController
+@RequestMapping("/api/llm")
+@RequiredArgsConstructor
+public class LlmController {
+  private final LlmBulkhead bulkhead;
+  private final CachingLlmClient cache;
+  private final ReadingPassageBudget readingPrompt;
+  private final ReadingGenerationBatcher readingBatch;
+  private final ProviderRateLimiter rateLimiter;
+  private final HedgingLlmClient hedge;
+  private final ObjectProvider<RoutingLlmClient> routing;   // dev profile 沒有
+  private final OkHttpClient http;
+  private final OutboundHttpMetrics httpMetrics;
+  private final PerHostLimitInterceptor perHostLimit;
+
+  @Operation(summary = "LLM 呼叫狀態",
+      description = "bulkhead：在途數、等待佇列深度、拒絕/逾時次數與平均、最長等待時間；cache：各層命中數與命中率；"
+          + "readingPrompt：閱讀出題 prompt 的估算 token 數與文章截斷次數；"
+          + "readingBatch：閱讀出題請求數與合併後的 LLM 呼叫數；"
+          + "rateLimit：各 lane 的同時呼叫上限（AIMD）、排隊數、剩餘 RPM/TPM 與重試/429 次數；"
+          + "hedge：目前的 hedge 門檻、hedge 次數與 hedge 勝出次數、因預算不足略過的次數；"
+          + "routing：各 backend 的延遲/錯誤率 EWMA、是否降級與 failover 次數；"
+          + "http：共用連線池的連線數、各主機在途請求、新建/重用連線、TLS 握手、HTTP/2、連線時間與 TTFB、逾時次數。")
+  @GetMapping("/stats")
+  public Map<String, Object> stats() {
+    return Map.of("bulkhead", bulkhead.stats(), "cache", cache.stats(), "readingPrompt", readingPrompt.stats(),
+        "readingBatch", readingBatch.stats(), "rateLimit", rateLimiter.stats(), "hedge", hedge.stats(),
+        "routing", routing.stream().map(r -> (Object) r.stats()).findFirst().orElse(List.of()),
+        "http", Map.of("connections", http.connectionPool().connectionCount(),
+            "idleConnections", http.connectionPool().idleConnectionCount(),
+            "inFlight", perHostLimit.inFlight(), "hosts", httpMetrics.stats()));
+  }
+}
@@ -0,0 +1,13 @@
+-- 排程抓取：每個 feed 的 high-water mark 與條件式請求資訊
+CREATE TABLE feed_state (
+  feed_url TEXT PRIMARY KEY,
+  high_water TIMESTAMP,
+  last_polled_at TIMESTAMP,
+  etag TEXT,
+  last_modified TEXT,
+  consecutive_failures INT NOT NULL DEFAULT 0,
+  last_error TEXT
+);
+
+-- 抓取前以 source_url 判斷是否已匯入（原本為全表掃描）
+CREATE INDEX IF NOT EXISTS idx_article_source_url ON article (source_url);
@@ -0,0 +1,8 @@
+-- 文章網址別名（皆為 UrlCanonicalizer 正規化後的網址）：redirect 目標、rel=canonical、舊資料的未正規化 source_url
+CREATE TABLE article_url_alias (
+  url TEXT PRIMARY KEY,
+  article_id BIGINT NOT NULL REFERENCES article(id),
+  created_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX IF NOT EXISTS idx_article_url_alias_article_id ON article_url_alias (article_id);
@@ -0,0 +1,12 @@
+-- LLM 回應快取（CachingLlmClient 的持久層）；cache_key = sha256(fingerprint + 正規化 prompt)
+CREATE TABLE llm_cache (
+  cache_key TEXT PRIMARY KEY,
+  fingerprint TEXT NOT NULL,
+  response TEXT NOT NULL,
+  created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+  last_hit_at TIMESTAMP,
+  hits INT NOT NULL DEFAULT 0
+);
+
+-- 逾期清除與依最近使用排序修剪
+CREATE INDEX IF NOT EXISTS idx_llm_cache_created_at ON llm_cache (created_at);
@@ -0,0 +1,3 @@
+-- 壓縮列的檢索摘要來源：全文開頭一段純文字，讓 ts_headline 在檢索查詢內就能算出 snippet，
+-- 不必逐筆讀出壓縮全文到應用程式解壓。plain 列直接用 cleaned_text，此欄為 NULL。
+ALTER TABLE article ADD COLUMN search_excerpt TEXT;
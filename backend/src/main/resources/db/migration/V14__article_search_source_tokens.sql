@@ -0,0 +1,6 @@
+-- source 是網域（www.bbc.com）：'simple' parser 把整個網域當成一個 token，搜「bbc」找不到。
+-- 改為以點分詞後再建 B 權重；既有列只重算 B 的部分（壓縮列在 SQL 裡沒有全文可重算 C）。
+UPDATE article
+SET search_vector = ts_filter(search_vector, '{a,c,d}')
+    || setweight(to_tsvector('simple', replace(coalesce(source, ''), '.', ' ')), 'B')
+WHERE source LIKE '%.%';
@@ -0,0 +1,2 @@
+-- 壓縮列的 snippet 改為在應用程式端解壓整篇後計算（只對當頁命中），不再需要開頭摘要
+ALTER TABLE article DROP COLUMN search_excerpt;
@@ -0,0 +1,6 @@
+-- 近似去重：文章 SimHash 指紋與 flag 模式的重複標記
+-- 既有資料的 simhash 由應用程式啟動時（NearDuplicateIndex）分批補算
+ALTER TABLE article ADD COLUMN simhash BIGINT;
+ALTER TABLE article ADD COLUMN near_duplicate_of BIGINT REFERENCES article(id);
+
+CREATE INDEX IF NOT EXISTS idx_article_near_duplicate_of ON article (near_duplicate_of);
@@ -0,0 +1,10 @@
+-- 全文檢索：title（權重 A，english 詞幹）、source（B，simple 不做詞幹）、cleaned_text（C）
+-- 由 Postgres 自動維護的 generated column + GIN 索引，取代 lower(title) like '%q%' 全表掃描
+ALTER TABLE article ADD COLUMN search_vector tsvector
+  GENERATED ALWAYS AS (
+    setweight(to_tsvector('english', coalesce(title, '')), 'A') ||
+    setweight(to_tsvector('simple', coalesce(source, '')), 'B') ||
+    setweight(to_tsvector('english', coalesce(cleaned_text, '')), 'C')
+  ) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_article_search_vector ON article USING GIN (search_vector);
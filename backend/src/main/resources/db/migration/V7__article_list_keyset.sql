@@ -0,0 +1,2 @@
+-- 文章列表 keyset 分頁：ORDER BY fetched_at DESC, id DESC 與 (fetched_at, id) < 游標 皆走此索引
+CREATE INDEX IF NOT EXISTS idx_article_fetched_at_id ON article (fetched_at DESC, id DESC);
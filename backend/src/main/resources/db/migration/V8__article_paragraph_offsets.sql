@@ -0,0 +1,2 @@
+-- 段落位移索引：[s0,e0,s1,e1,...]（code point），寫入時計算；舊資料為 NULL，首次讀取時由應用程式補上
+ALTER TABLE article ADD COLUMN paragraph_offsets JSONB;
@@ -0,0 +1,9 @@
+-- 壓縮全文：text_codec=gzip 時全文存在 cleaned_text_gz，cleaned_text 為 NULL
+ALTER TABLE article ALTER COLUMN cleaned_text DROP NOT NULL;
+ALTER TABLE article ADD COLUMN cleaned_text_gz BYTEA;
+ALTER TABLE article ADD COLUMN text_codec TEXT NOT NULL DEFAULT 'plain';
+ALTER TABLE article ADD CONSTRAINT chk_article_text
+  CHECK (cleaned_text IS NOT NULL OR cleaned_text_gz IS NOT NULL);
+
+-- 壓縮列沒有純文字可供 generated column 計算，search_vector 改由應用程式寫入（既有值保留）
+ALTER TABLE article ALTER COLUMN search_vector DROP EXPRESSION;
@@ -0,0 +1,159 @@
+package com.example.aitutor.crawl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+
+import com.example.aitutor.article.ArticleService;
+import com.sun.net.httpserver.HttpServer;
+
+class FeedCrawlerTest {
+
+  private final Map<String, FeedState> saved = new HashMap<>();
+  private FeedStateRepository states;
+  private ArticleService articles;
+  private CrawlerProperties props;
+  private CrawlerProperties.Feed feed;
+
+  @BeforeEach
+  void setUp() throws URISyntaxException {
+    states = mock(FeedStateRepository.class);
+    when(states.findById(anyString())).thenAnswer(inv -> Optional.ofNullable(saved.get(inv.<String>getArgument(0))));
+    when(states.save(any(FeedState.class))).thenAnswer(inv -> {
+      FeedState s = inv.getArgument(0);
+      saved.put(s.getFeedUrl(), s);
+      return s;
+    });
+    articles = mock(ArticleService.class);
+    props = new CrawlerProperties();
+    feed = new CrawlerProperties.Feed();
+    feed.setUrl(Path.of(FeedCrawlerTest.class.getResource("/feeds/rss.xml").toURI()).toUri().toString());
+  }
+
+  @Test
+  void importsOldestFirstAndAdvancesHighWater() {
+    FeedCrawler.PollResult r = crawler().poll(feed);
+
+    assertThat(r.items()).isEqualTo(4);
+    assertThat(r.created()).isEqualTo(4);
+    InOrder order = Mockito.inOrder(articles);
+    for (int i = 1; i <= 4; i++) order.verify(articles).fetchAndSave("https://news.example.com/a/" + i);
+    assertThat(state().getHighWater()).isEqualTo(Instant.parse("2024-01-04T08:00:00Z"));
+  }
+
+  @Test
+  void highWaterStopsBeforeFirstFailure() {
+    when(articles.fetchAndSave("https://news.example.com/a/2")).thenThrow(new RuntimeException("boom"));
+
+    FeedCrawler.PollResult r = crawler().poll(feed);
+
+    assertThat(r.created()).isEqualTo(3);
+    assertThat(r.failed()).isEqualTo(1);
+    assertThat(state().getHighWater()).isEqualTo(Instant.parse("2024-01-01T08:00:00Z"));
+
+    // 下次輪詢：失敗的那篇重試，已匯入的以網址略過
+    Mockito.reset(articles);
+    when(articles.isKnownUrl(anyString())).thenAnswer(inv -> !inv.getArgument(0).equals("https://news.example.com/a/2"));
+    r = crawler().poll(feed);
+
+    assertThat(r.created()).isEqualTo(1);
+    verify(articles).fetchAndSave("https://news.example.com/a/2");
+    assertThat(state().getHighWater()).isEqualTo(Instant.parse("2024-01-04T08:00:00Z"));
+  }
+
+  @Test
+  void capLeavesNewerItemsForNextPoll() {
+    props.setMaxItemsPerPoll(2);
+
+    FeedCrawler.PollResult r = crawler().poll(feed);
+
+    assertThat(r.created()).isEqualTo(2);
+    verify(articles).fetchAndSave("https://news.example.com/a/1");
+    verify(articles).fetchAndSave("https://news.example.com/a/2");
+    verify(articles, never()).fetchAndSave("https://news.example.com/a/3");
+    assertThat(state().getHighWater()).isEqualTo(Instant.parse("2024-01-02T08:00:00Z"));
+
+    r = crawler().poll(feed);
+
+    assertThat(r.created()).isEqualTo(2);
+    verify(articles).fetchAndSave("https://news.example.com/a/3");
+    verify(articles).fetchAndSave("https://news.example.com/a/4");
+    assertThat(state().getHighWater()).isEqualTo(Instant.parse("2024-01-04T08:00:00Z"));
+  }
+
+  @Test
+  void validatorsKeptOnlyAfterCompletePoll() throws IOException {
+    byte[] body;
+    try (InputStream in = FeedCrawlerTest.class.getResourceAsStream("/feeds/rss.xml")) {
+      body = in.readAllBytes();
+    }
+    List<Integer> statuses = new ArrayList<>();
+    HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/feed.xml", ex -> {
+      int status = "\"v1\"".equals(ex.getRequestHeaders().getFirst("If-None-Match")) ? 304 : 200;
+      statuses.add(status);
+      ex.getResponseHeaders().set("ETag", "\"v1\"");
+      if (status == 304) {
+        ex.sendResponseHeaders(304, -1);
+      } else {
+        ex.sendResponseHeaders(200, body.length);
+        try (OutputStream out = ex.getResponseBody()) {
+          out.write(body);
+        }
+      }
+      ex.close();
+    });
+    server.start();
+    try {
+      feed.setUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/feed.xml");
+      when(articles.fetchAndSave("https://news.example.com/a/2")).thenThrow(new RuntimeException("boom"));
+
+      // 有一篇失敗：不記 ETag，下次要拿到完整內容才能重試
+      crawler().poll(feed);
+      assertThat(state().getEtag()).isNull();
+
+      Mockito.reset(articles);
+      when(articles.isKnownUrl(anyString())).thenAnswer(inv -> !inv.getArgument(0).equals("https://news.example.com/a/2"));
+      FeedCrawler.PollResult r = crawler().poll(feed);
+      assertThat(r.created()).isEqualTo(1);
+      assertThat(state().getEtag()).isEqualTo("\"v1\"");
+
+      // 全部處理完才記住 ETag，之後拿到 304
+      r = crawler().poll(feed);
+      assertThat(r.items()).isZero();
+      assertThat(statuses).containsExactly(200, 200, 304);
+    } finally {
+      server.stop(0);
+    }
+  }
+
+  private FeedCrawler crawler() {
+    return new FeedCrawler(props, states, articles);
+  }
+
+  private FeedState state() {
+    return saved.get(feed.getUrl());
+  }
+}
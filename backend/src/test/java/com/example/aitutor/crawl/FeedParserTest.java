@@ -0,0 +1,51 @@
+package com.example.aitutor.crawl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+
+class FeedParserTest {
+
+  @Test
+  void parsesRssLinkGuidAndPubDate() throws IOException {
+    FeedParser.Parsed p = FeedParser.parse(fixture("rss.xml"), "https://news.example.com/rss.xml");
+
+    assertThat(p.kind()).isEqualTo(FeedParser.Kind.RSS);
+    assertThat(p.items()).containsExactly(
+        new FeedItem("https://news.example.com/a/3", Instant.parse("2024-01-03T08:00:00Z")),
+        new FeedItem("https://news.example.com/a/1", Instant.parse("2024-01-01T08:00:00Z")),
+        new FeedItem("https://news.example.com/a/2", Instant.parse("2024-01-02T08:00:00Z")),
+        new FeedItem("https://news.example.com/a/4", Instant.parse("2024-01-04T08:00:00Z")));
+  }
+
+  @Test
+  void parsesAtomAlternateLinkAndFallsBackToUpdated() throws IOException {
+    FeedParser.Parsed p = FeedParser.parse(fixture("atom.xml"), "https://blog.example.org/feed.xml");
+
+    assertThat(p.kind()).isEqualTo(FeedParser.Kind.ATOM);
+    assertThat(p.items()).containsExactly(
+        new FeedItem("https://blog.example.org/posts/hello", Instant.parse("2024-02-01T10:00:00Z")),
+        new FeedItem("https://blog.example.org/posts/second", Instant.parse("2024-02-02T02:00:00Z")));
+  }
+
+  @Test
+  void parsesSitemapPreferringNewsDate() throws IOException {
+    FeedParser.Parsed p = FeedParser.parse(fixture("sitemap.xml"), "https://paper.example.net/sitemap.xml");
+
+    assertThat(p.kind()).isEqualTo(FeedParser.Kind.SITEMAP);
+    assertThat(p.items()).containsExactly(
+        new FeedItem("https://paper.example.net/story/1", Instant.parse("2024-03-01T06:30:00Z")),
+        new FeedItem("https://paper.example.net/story/2", Instant.parse("2024-03-02T00:00:00Z")),
+        new FeedItem("https://paper.example.net/story/3", null));
+  }
+
+  private static byte[] fixture(String name) throws IOException {
+    try (InputStream in = FeedParserTest.class.getResourceAsStream("/feeds/" + name)) {
+      return in.readAllBytes();
+    }
+  }
+}
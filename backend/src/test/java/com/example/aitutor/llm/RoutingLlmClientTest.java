@@ -0,0 +1,131 @@
+package com.example.aitutor.llm;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+import okhttp3.OkHttpClient;
+
+class RoutingLlmClientTest {
+
+  private Backend fast;
+  private Backend main;
+  private RoutingLlmClient router;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    fast = new Backend("fast");
+    main = new Backend("main");
+
+    // fast：只接 800 token 以內的 easy；main：不限
+    var f = backend("fast", fast);
+    f.setMaxPassageTokens(800);
+    f.setMaxDifficulty("easy");
+    var m = backend("main", main);
+
+    var props = new LlmRoutingProperties();
+    props.setBackends(List.of(f, m));
+    props.setFailureThreshold(3);
+    props.setCooldown(Duration.ofMillis(300));
+
+    var rateLimit = new RateLimitProperties();
+    rateLimit.setMaxAttempts(1);
+    router = new RoutingLlmClient(props, new ProviderRateLimiter(rateLimit), new OkHttpClient(),
+        "key", "gpt-4o-mini", 0.7, 100);
+  }
+
+  @AfterEach
+  void tearDown() {
+    fast.server.stop(0);
+    main.server.stop(0);
+  }
+
+  @Test
+  void routesByDifficultyAndPassageSize() {
+    assertThat(router.completeJson("p", LlmCallOptions.DEFAULT.withHints("easy", 300))).contains("fast");
+    assertThat(router.completeJson("p", LlmCallOptions.DEFAULT.withHints("hard", 300))).contains("main");
+    assertThat(router.completeJson("p", LlmCallOptions.DEFAULT.withHints("easy", 3000))).contains("main");
+
+    assertThat(fast.hits).hasValue(1);
+    assertThat(main.hits).hasValue(2);
+    assertThat(router.stats().failovers()).isZero();
+  }
+
+  @Test
+  void failsOverDegradesAndRecoversAfterCooldown() throws InterruptedException {
+    LlmCallOptions easy = LlmCallOptions.DEFAULT.withHints("easy", 300);
+    fast.down.set(true);
+
+    for (int i = 0; i < 3; i++) assertThat(router.completeJson("p", easy)).contains("main");
+    assertThat(router.stats().failovers()).isEqualTo(3);
+    assertThat(stats("fast").degraded()).isTrue();
+
+    // 降級中：直接走 main，不再打 fast
+    assertThat(router.completeJson("p", easy)).contains("main");
+    assertThat(fast.hits).hasValue(3);
+    assertThat(router.stats().failovers()).isEqualTo(3);
+
+    fast.down.set(false);
+    Thread.sleep(400);
+    assertThat(router.completeJson("p", easy)).contains("fast");
+    assertThat(stats("fast").degraded()).isFalse();
+  }
+
+  private RoutingLlmClient.BackendStats stats(String name) {
+    return router.stats().backends().stream().filter(b -> b.name().equals(name)).findFirst().orElseThrow();
+  }
+
+  private static LlmRoutingProperties.Backend backend(String name, Backend stub) {
+    var b = new LlmRoutingProperties.Backend();
+    b.setName(name);
+    b.setBaseUrl("http://127.0.0.1:" + stub.server.getAddress().getPort() + "/v1/");
+    b.setApiKey("key");
+    b.setModel(name + "-model");
+    b.setTimeout(Duration.ofSeconds(5));
+    return b;
+  }
+
+  /** OpenAI 相容的 chat completions 替身：回傳 {"from": name}，down 時回 500。 */
+  private static final class Backend {
+    final HttpServer server;
+    final AtomicInteger hits = new AtomicInteger();
+    final AtomicBoolean down = new AtomicBoolean();
+
+    Backend(String name) throws IOException {
+      server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+      server.createContext("/v1/chat/completions", ex -> {
+        hits.incrementAndGet();
+        ex.getRequestBody().readAllBytes();
+        int status = down.get() ? 500 : 200;
+        String body = status == 500
+            ? "{\"error\":{\"message\":\"boom\",\"type\":\"server_error\"}}"
+            : """
+              {"id":"x","object":"chat.completion","created":1,"model":"%s",
+               "choices":[{"index":0,"message":{"role":"assistant","content":"{\\"from\\":\\"%s\\"}"},
+                           "finish_reason":"stop"}],
+               "usage":{"prompt_tokens":1,"completion_tokens":1,"total_tokens":2}}
+              """.formatted(name, name);
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().add("Content-Type", "application/json");
+        ex.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = ex.getResponseBody()) {
+          out.write(bytes);
+        }
+      });
+      server.start();
+    }
+  }
+}
@@ -8,12 +8,23 @@ export async function fetchArticleByUrl(url) {
   return data;
 }
 
+// 閱讀用：欄位走 /paragraphs?limit=0（不讀全文），全文走 /text（壓縮儲存時由瀏覽器直接解 gzip），
+// 再依後端相同規則（連續兩個以上換行）切段，回傳格式同 GET /api/articles/{id}
 export async function getArticle(id) {
-  const { data } = await api.get(`/api/articles/${id}`, {
+  const noCache = {
     headers: { 'Cache-Control': 'no-cache', Pragma: 'no-cache' },
     params: { _ts: Date.now() }
-  });
-  return data;
+  };
+  const [meta, text] = await Promise.all([
+    api.get(`/api/articles/${id}/paragraphs`, { ...noCache, params: { ...noCache.params, limit: 0 } }),
+    api.get(`/api/articles/${id}/text`, { ...noCache, responseType: 'text', transformResponse: (d) => d })
+  ]);
+  const { title, source, url } = meta.data;
+  const paragraphs = String(text.data ?? '')
+    .split(/\n{2,}/)
+    .map(p => p.replace(/\n+$/, ''))
+    .filter(p => p.length > 0);
+  return { id: meta.data.id, title, source, url, paragraphs };
 }
 
 // ✅ 新增：列表 API（前端用 1-based，後端用 0-based）